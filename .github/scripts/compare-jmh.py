@@ -0,0 +1,74 @@
+#!/usr/bin/env python3
+"""Compares two JMH JSON results, e.g. of the base branch and of a pull request.
+
+Usage: compare-jmh.py BASE_RESULT HEAD_RESULT [THRESHOLD]
+
+Prints a Markdown table of every benchmark found in both results, and appends it to the job summary when run
+in a GitHub workflow. Exits with 1 when a score got worse by more than THRESHOLD (0.10 by default, i.e. 10%)
+and by more than the error margins of the two scores.
+"""
+import json
+import math
+import os
+import sys
+
+# modes whose scores are times, all other modes (thrpt) are operations per time unit
+LOWER_IS_BETTER = {"avgt", "sample", "ss"}
+
+
+def load(path):
+    with open(path) as file:
+        results = json.load(file)
+    scores = {}
+    for result in results:
+        name = ".".join(result["benchmark"].split(".")[-2:])
+        params = ", ".join(f"{key}={value}" for key, value in sorted((result.get("params") or {}).items()))
+        lower_is_better = result["mode"] in LOWER_IS_BETTER
+        metrics = {"": result["primaryMetric"], **result.get("secondaryMetrics", {})}
+        for metric_name, metric in metrics.items():
+            label = name + (":" + metric_name if metric_name else "")
+            scores[(label, params)] = (metric["score"], error(metric["scoreError"]), metric["scoreUnit"],
+                                       lower_is_better)
+    return scores
+
+
+def error(value):
+    value = float(value)
+    return 0.0 if math.isnan(value) else value
+
+
+def main():
+    if len(sys.argv) < 3:
+        sys.exit(__doc__)
+    base = load(sys.argv[1])
+    head = load(sys.argv[2])
+    threshold = float(sys.argv[3]) if len(sys.argv) > 3 else 0.10
+
+    lines = [f"### JMH results against the base branch (regression threshold {threshold:.0%})", "",
+             "| Benchmark | Params | Base | Head | Unit | Change | |",
+             "|---|---|---:|---:|---|---:|---|"]
+    regressions = 0
+    for key in sorted(head):
+        if key not in base:
+            continue
+        base_score, base_error, unit, lower_is_better = base[key]
+        head_score, head_error = head[key][0], head[key][1]
+        change = (head_score - base_score) / base_score if base_score else 0.0
+        worse = change if lower_is_better else -change
+        regressed = worse > threshold and abs(head_score - base_score) > base_error + head_error
+        regressions += regressed
+        lines.append(f"| {key[0]} | {key[1]} | {base_score:.3f} | {head_score:.3f} | {unit} | {change:+.1%} | "
+                     f"{'regressed' if regressed else ''} |")
+    lines += ["", f"{regressions} regression(s)." if regressions else "No regressions."]
+    report = "\n".join(lines) + "\n"
+
+    print(report)
+    summary = os.environ.get("GITHUB_STEP_SUMMARY")
+    if summary:
+        with open(summary, "a") as file:
+            file.write(report)
+    sys.exit(1 if regressions else 0)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,92 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.benchmark.BenchmarkProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The map helpers of {@link Utils} on a {@code multibean} section of {@code entries} tenants.
+ * <br>
+ * <br>
+ * {@link Utils#mergeMissingKeys} fills the map it is given, so each call merges into fresh copies of
+ * the tenant configs. {@link #copyTenantConfigs} measures the copies alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int entries;
+
+    private Map<String, Object> flatProperties;
+
+    private Map<String, Object> nestedProperties;
+
+    private Map<String, Object> defaultConfig;
+
+    private List<Map<String, Object>> tenantConfigs;
+
+    @Setup
+    public void setUp() {
+        flatProperties = BenchmarkProperties.multiBeanProperties(entries);
+        nestedProperties = Utils.generateNestedMap(flatProperties);
+        defaultConfig = (Map<String, Object>) Utils.generateNestedMap(BenchmarkProperties.defaultProperties()).get("tenant");
+        tenantConfigs = new ArrayList<>();
+        Map<String, Object> multiBeans = (Map<String, Object>) nestedProperties.get("multibean");
+        for (Object tenant : multiBeans.values()) {
+            tenantConfigs.add((Map<String, Object>) ((Map<String, Object>) tenant).get("tenant"));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> generateNestedMap() {
+        return Utils.generateNestedMap(flatProperties);
+    }
+
+    @Benchmark
+    public Map<String, Object> flatten() {
+        return Utils.flatten(nestedProperties, "");
+    }
+
+    @Benchmark
+    public void copyTenantConfigs(Blackhole blackhole) {
+        for (Map<String, Object> tenantConfig : tenantConfigs) {
+            blackhole.consume(copy(tenantConfig));
+        }
+    }
+
+    @Benchmark
+    public void mergeMissingKeys(Blackhole blackhole) {
+        for (Map<String, Object> tenantConfig : tenantConfigs) {
+            Map<String, Object> merged = copy(tenantConfig);
+            Utils.mergeMissingKeys(defaultConfig, merged);
+            blackhole.consume(merged);
+        }
+    }
+
+    private static Map<String, Object> copy(Map<String, Object> map) {
+        Map<String, Object> copy = new LinkedHashMap<>(map);
+        copy.replaceAll((key, value) -> value instanceof Map<?, ?> child ? copy((Map<String, Object>) child) : value);
+        return copy;
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.olufemithompson.multibeanconfig.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code BeanPropertyPostProcessor.postProcessBeforeInitialization}, for a {@code @MultiBean}
+ * with field injection and for any other bean, which every bean of the context goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanPropertyPostProcessorBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private BeanPostProcessor postProcessor;
+
+    private Object multiBean;
+
+    private Object plainBean;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(10);
+        postProcessor = context.getBean("beanPropertyPostProcessor", BeanPostProcessor.class);
+        multiBean = context.getBean("fieldClient");
+        plainBean = context.getBean("tenantConfig");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object injectMultiBean() {
+        return postProcessor.postProcessBeforeInitialization(multiBean, "fieldClient");
+    }
+
+    @Benchmark
+    public Object skipPlainBean() {
+        return postProcessor.postProcessBeforeInitialization(plainBean, "tenantConfig");
+    }
+}
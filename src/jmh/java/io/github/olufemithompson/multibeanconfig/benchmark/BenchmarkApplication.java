@@ -0,0 +1,24 @@
+package io.github.olufemithompson.multibeanconfig.benchmark;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application started by the benchmarks, declaring {@code entries} {@link TenantClient} instances
+ * and one {@link FieldTenantClient}.
+ */
+@SpringBootApplication
+public class BenchmarkApplication {
+
+    static ConfigurableApplicationContext start(int entries) {
+        SpringApplication application = new SpringApplication(BenchmarkApplication.class);
+        application.setBannerMode(Banner.Mode.OFF);
+        application.setLogStartupInfo(false);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setDefaultProperties(BenchmarkProperties.applicationProperties(entries));
+        return application.run("--logging.level.root=warn");
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.olufemithompson.multibeanconfig.benchmark;
+
+import org.springframework.boot.origin.OriginTrackedValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Property sets shaped like a loaded {@code application.yml}: flat keys, list items as {@code [n]}
+ * and values wrapped in {@link OriginTrackedValue}.
+ */
+public final class BenchmarkProperties {
+
+    private BenchmarkProperties() {
+    }
+
+    /**
+     * The default {@code tenant} section, a {@code multibean} section with {@code entries} tenants
+     * overriding part of it, and one field injected client.
+     */
+    public static Map<String, Object> applicationProperties(int entries) {
+        Map<String, Object> properties = new LinkedHashMap<>(defaultProperties());
+        properties.putAll(multiBeanProperties(entries));
+        put(properties, "multibean.field-client.class", FieldTenantClient.class.getSimpleName());
+        put(properties, "multibean.field-client.tenant.client-id", "field-client");
+        return properties;
+    }
+
+    public static Map<String, Object> defaultProperties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        put(properties, "tenant.url", "https://default.example.com");
+        put(properties, "tenant.client-id", "default");
+        put(properties, "tenant.client-secret", "default-secret");
+        put(properties, "tenant.timeout", "5s");
+        put(properties, "tenant.scopes[0]", "read");
+        put(properties, "tenant.scopes[1]", "write");
+        put(properties, "tenant.retry.max-attempts", "3");
+        put(properties, "tenant.retry.backoff", "100ms");
+        return properties;
+    }
+
+    public static Map<String, Object> multiBeanProperties(int entries) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            String prefix = "multibean.tenant-" + i + ".";
+            put(properties, prefix + "class", TenantClient.class.getSimpleName());
+            put(properties, prefix + "tenant.url", "https://tenant-" + i + ".example.com");
+            put(properties, prefix + "tenant.client-id", "tenant-" + i);
+            if (i % 2 == 0) {
+                put(properties, prefix + "tenant.client-secret", "secret-" + i);
+                put(properties, prefix + "tenant.retry.max-attempts", String.valueOf(i % 5));
+            }
+            if (i % 3 == 0) {
+                put(properties, prefix + "tenant.scopes[0]", "read");
+            }
+        }
+        return properties;
+    }
+
+    private static void put(Map<String, Object> properties, String key, String value) {
+        properties.put(key, OriginTrackedValue.of(value));
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.olufemithompson.multibeanconfig.benchmark;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * A multibean receiving its config and values through field injection, the work of
+ * {@code BeanPropertyPostProcessor}.
+ */
+@MultiBean
+public class FieldTenantClient {
+
+    @Autowired
+    private TenantConfig tenantConfig;
+
+    @Value("${tenant.client-id}")
+    private String clientId;
+
+    @Value("${tenant.url}")
+    private String url;
+
+    public TenantConfig getConfig() {
+        return tenantConfig;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
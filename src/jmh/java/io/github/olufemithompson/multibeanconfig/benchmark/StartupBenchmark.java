@@ -0,0 +1,82 @@
+package io.github.olufemithompson.multibeanconfig.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starting a context declaring {@code entries} multibean instances, each invocation in a new context.
+ * <br>
+ * <br>
+ * {@link #start} measures the startup time. {@link #retainedHeap} reports the heap the started context
+ * retains after a full GC as its {@code retainedBytes} secondary result. It runs a single measured
+ * iteration, since JMH adds up such counters across iterations, and its own time is not meaningful.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StartupBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    private int entries;
+
+    private ConfigurableApplicationContext context;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+
+        public long retainedBytes;
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        usedHeapAfterGc();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        context.close();
+        context = null;
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext start() {
+        context = BenchmarkApplication.start(entries);
+        return context;
+    }
+
+    @Benchmark
+    @Measurement(iterations = 1)
+    public ConfigurableApplicationContext retainedHeap(RetainedHeap heap) {
+        long baselineBytes = usedHeapAfterGc();
+        context = BenchmarkApplication.start(entries);
+        heap.retainedBytes = usedHeapAfterGc() - baselineBytes;
+        return context;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
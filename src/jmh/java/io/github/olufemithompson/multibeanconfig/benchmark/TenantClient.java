@@ -0,0 +1,28 @@
+package io.github.olufemithompson.multibeanconfig.benchmark;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * A multibean receiving its config through the constructor.
+ */
+@MultiBean
+public class TenantClient {
+
+    private final TenantConfig config;
+
+    @Value("${tenant.client-id}")
+    private String clientId;
+
+    public TenantClient(TenantConfig config) {
+        this.config = config;
+    }
+
+    public TenantConfig getConfig() {
+        return config;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+}
@@ -1,15 +1,27 @@
 package io.github.olufemithompson.multibeanconfig;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanPostProcessor;
-import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.stereotype.Component;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.FACTORY_INSTANCE_BEAN_NAME_SUFFIX;
 
 /**
  * A {@link BeanPostProcessor} that injects specific field values and dependencies
@@ -36,12 +48,33 @@ import java.lang.reflect.Field;
  *   </li>
  * </ul>
  *
+ * The fields to inject are resolved once per class into an {@link InjectionPlan}, cached in a
+ * {@link ClassValue}, so that prototype and request scoped multibeans do not walk their fields,
+ * check annotations or change field accessibility on every instantiation. Classes without
+ * {@link MultiBean} map to an empty plan and are skipped after a single cached lookup.
+ *
  */
 @Component
 class BeanPropertyPostProcessor implements BeanPostProcessor, ApplicationContextAware {
 
+    private static final ClassValue<InjectionPlan> INJECTION_PLANS = new ClassValue<>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return InjectionPlan.of(type);
+        }
+    };
+
     private ApplicationContext applicationContext;
 
+    private volatile MultiBeanConfigRegistry configRegistry;
+
+    private volatile MultiBeanStatistics statistics;
+
+    /**
+     * The {@link MultiBeanFactory} instances whose created instance is not yet known, by bean name.
+     */
+    private final Map<String, MultiBeanFactory<?>> factories = new ConcurrentHashMap<>();
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
@@ -49,55 +82,191 @@ class BeanPropertyPostProcessor implements BeanPostProcessor, ApplicationContext
 
     @Override
     public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
-        Class<?> clazz = bean.getClass();
-        if (clazz.isAnnotationPresent(MultiBean.class)) {
-            for (Field field : clazz.getDeclaredFields()) {
-                if (field.isAnnotationPresent(Value.class)) {
-                    injectValueField(bean, field, beanName);
-                }
+        if (bean instanceof MultiBeanFactory<?> factory && bean.getClass().isAnnotationPresent(MultiBean.class)) {
+            factories.put(beanName, factory);
+        }
+        if (INJECTION_PLANS.get(bean.getClass()).isEmpty()) {
+            return bean;
+        }
+        MultiBeanConfigRegistry registry = getConfigRegistry();
+        if (registry == null) {
+            return bean;
+        }
+        statistics.run(MultiBeanStatistics.Phase.INJECT, "beanName", beanName,
+                () -> injectFields(bean, beanName, registry, this.applicationContext::getBean));
+        return bean;
+    }
 
-                if (field.isAnnotationPresent(Autowired.class)) {
-                    injectAutowiredField(bean, field, beanName);
-                }
+    /**
+     * Arranges for the instance created by a {@link MultiBeanFactory} to be passed to
+     * {@link MultiBeanFactory#destroy(Object)} right before the factory itself is destroyed, since Spring
+     * does not destroy the objects a {@link FactoryBean} creates.
+     * <br>
+     * <br>
+     * Then wraps the instances declared with {@code metrics: true} in a proxy recording their calls,
+     * see {@link MultiBeanCallMetrics}.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        MultiBeanFactory<Object> factory = (MultiBeanFactory<Object>) factories.get(beanName);
+        if (factory != null && factory != bean && factories.remove(beanName, factory)
+                && applicationContext instanceof ConfigurableApplicationContext context
+                && context.getBeanFactory() instanceof DefaultListableBeanFactory beanFactory) {
+            String instanceName = beanName + FACTORY_INSTANCE_BEAN_NAME_SUFFIX;
+            beanFactory.registerDisposableBean(instanceName, () -> factory.destroy(bean));
+            beanFactory.registerDependentBean(beanName, instanceName);
+        }
+        if (bean instanceof FactoryBean<?>) {
+            return bean;
+        }
+        MultiBeanStatistics currentStatistics = getStatistics();
+        return currentStatistics != null ? currentStatistics.instrument(bean, beanName) : bean;
+    }
+
+    /**
+     * Injects the {@link Value} and {@link Autowired} fields of a {@link MultiBean} instance.
+     *
+     * @param configLookup resolves a config bean name and field type to the object to inject
+     */
+    static void injectFields(Object bean,
+                             String beanName,
+                             MultiBeanConfigRegistry registry,
+                             BiFunction<String, Class<?>, Object> configLookup) {
+        InjectionPlan plan = INJECTION_PLANS.get(bean.getClass());
+        MultiBeanConfigRegistry.BeanField[] registryKeys = registry.getBeanFields(beanName, plan.fieldNames);
+        List<FieldInjector> injectors = plan.injectors;
+        for (int i = 0; i < injectors.size(); i++) {
+            FieldInjector injector = injectors.get(i);
+            if (injector.autowired) {
+                injectAutowiredField(registry, configLookup, bean, injector, registryKeys[i]);
+            } else {
+                injectValueField(registry, bean, injector, registryKeys[i]);
             }
         }
-        return bean;
     }
 
-    private void injectValueField(Object bean, Field field, String beanName) {
-        Object customValue = MultiBeanConfigRegistry.getValue(
-                beanName+field.getName()
-        );
+    private MultiBeanConfigRegistry getConfigRegistry() {
+        MultiBeanConfigRegistry registry = configRegistry;
+        if (registry == null) {
+            registry = MultiBeanConfigRegistry.get(applicationContext);
+            statistics = MultiBeanStatistics.get(applicationContext);
+            configRegistry = registry;
+        }
+        return registry;
+    }
+
+    private MultiBeanStatistics getStatistics() {
+        MultiBeanStatistics current = statistics;
+        if (current == null) {
+            current = MultiBeanStatistics.get(applicationContext);
+            statistics = current;
+        }
+        return current;
+    }
+
+    private static void injectValueField(MultiBeanConfigRegistry registry,
+                                  Object bean,
+                                  FieldInjector injector,
+                                  MultiBeanConfigRegistry.BeanField registryKey) {
+        Object customValue = registry.getValue(registryKey);
         if(customValue != null){
-            try {
-                Object convertedValue = ((OriginTrackedValue)customValue).getValue();
-                field.setAccessible(true);
-                field.set(bean, convertedValue);
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException("Failed to inject property with @Value annotation: " + field.getName(), e);
-            }
+            injector.inject(bean, customValue, "Failed to inject property with @Value annotation: ");
         }
     }
 
-    private void injectAutowiredField(Object bean, Field field, String beanName) {
-        String propertyReference = MultiBeanConfigRegistry.getBeanConfigReference(
-                beanName+field.getName()
-        );
+    private static void injectAutowiredField(MultiBeanConfigRegistry registry,
+                                             BiFunction<String, Class<?>, Object> configLookup,
+                                             Object bean,
+                                             FieldInjector injector,
+                                             MultiBeanConfigRegistry.BeanField registryKey) {
+        String propertyReference = registry.getBeanConfigReference(registryKey);
         if(propertyReference != null){
-            Object property = this.applicationContext.getBean(
-                    propertyReference, field.getType()
+            Object property = configLookup.apply(
+                    propertyReference, injector.type
             );
             if(property != null){
-                try {
-                    field.setAccessible(true);
-                    field.set(bean, property);
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException("Failed to inject property with @Autowired annotation: " + field.getName(), e);
+                injector.inject(bean, property, "Failed to inject property with @Autowired annotation: ");
+            }
+        }
+
+    }
+
+    /**
+     * The {@link Value} and {@link Autowired} fields of a {@link MultiBean} class, with their setters.
+     */
+    static final class InjectionPlan {
+
+        private static final InjectionPlan EMPTY = new InjectionPlan(List.of());
+
+        private final List<FieldInjector> injectors;
+
+        private final List<String> fieldNames;
+
+        private InjectionPlan(List<FieldInjector> injectors) {
+            this.injectors = injectors;
+            this.fieldNames = injectors.stream().map(injector -> injector.name).toList();
+        }
+
+        static InjectionPlan of(Class<?> clazz) {
+            if (!clazz.isAnnotationPresent(MultiBean.class)) {
+                return EMPTY;
+            }
+            List<FieldInjector> injectors = new ArrayList<>();
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Value.class)) {
+                    injectors.add(FieldInjector.of(field, false));
+                }
+                if (field.isAnnotationPresent(Autowired.class)) {
+                    injectors.add(FieldInjector.of(field, true));
                 }
             }
+            return injectors.isEmpty() ? EMPTY : new InjectionPlan(List.copyOf(injectors));
         }
 
+        boolean isEmpty() {
+            return injectors.isEmpty();
+        }
     }
 
+    /**
+     * Sets a single field through a {@link MethodHandle} created once, with access checks already suppressed.
+     */
+    static final class FieldInjector {
 
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final String name;
+
+        private final Class<?> type;
+
+        private final boolean autowired;
+
+        private final MethodHandle setter;
+
+        private FieldInjector(String name, Class<?> type, boolean autowired, MethodHandle setter) {
+            this.name = name;
+            this.type = type;
+            this.autowired = autowired;
+            this.setter = setter;
+        }
+
+        static FieldInjector of(Field field, boolean autowired) {
+            try {
+                field.setAccessible(true);
+                MethodHandle setter = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+                return new FieldInjector(field.getName(), field.getType(), autowired, setter);
+            } catch (IllegalAccessException | RuntimeException e) {
+                throw new RuntimeException("Failed to access field for injection: " + field.getName(), e);
+            }
+        }
+
+        void inject(Object bean, Object value, String errorMessage) {
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Throwable e) {
+                throw new RuntimeException(errorMessage + name, e);
+            }
+        }
+    }
 }
@@ -1,9 +1,92 @@
 package io.github.olufemithompson.multibeanconfig;
 
+import java.util.Set;
+
 final class Constants {
     protected static final String PARENT_CONFIG_NAME="multibean";
 
     protected static final String CLASS_CONFIG_PARAM="class";
 
-    protected static final String CUSTOM_CONFIG_PROPERTY_SOURCE="custom";
+    protected static final String MULTIBEAN_PROPERTY_SOURCE="multibean";
+
+    protected static final String PARALLELISM_CONFIG_PARAM="parallelism";
+
+    protected static final String CORES_CONFIG_VALUE="cores";
+
+    protected static final String LAZY_CONFIG_PARAM="lazy";
+
+    protected static final String PROXY_CONFIG_VALUE="proxy";
+
+    protected static final String WATCH_CONFIG_PARAM="watch";
+
+    protected static final String EXECUTOR_CONFIG_PARAM="executor";
+
+    protected static final String REPLICAS_CONFIG_PARAM="replicas";
+
+    protected static final String WARMUP_CONFIG_PARAM="warmup";
+
+    protected static final String WARMUP_TIMEOUT_CONFIG_PARAM="warmup-timeout";
+
+    protected static final String SHUTDOWN_CONFIG_PARAM="shutdown";
+
+    protected static final String IMPORT_DIR_CONFIG_PARAM="import-dir";
+
+    protected static final String METRICS_CONFIG_PARAM="metrics";
+
+    protected static final String CACHE_CONFIG_PARAM="cache";
+
+    protected static final String GROUP_CONFIG_PARAM="group";
+
+    /**
+     * The most replicas an entry can be expanded into. {@link MultiBeanSelector} keeps the replica index in 16 bits.
+     */
+    protected static final int MAX_REPLICAS=65535;
+
+    /**
+     * Keys of the {@code multibean} section holding library settings rather than bean declarations.
+     */
+    protected static final Set<String> RESERVED_CONFIG_PARAMS=Set.of(PARALLELISM_CONFIG_PARAM, LAZY_CONFIG_PARAM, WATCH_CONFIG_PARAM, WARMUP_CONFIG_PARAM, SHUTDOWN_CONFIG_PARAM, IMPORT_DIR_CONFIG_PARAM, GROUP_CONFIG_PARAM);
+
+    protected static final String LAZY_TARGET_BEAN_NAME_PREFIX="multibean.target.";
+
+    protected static final String MULTIBEANS_BEAN_NAME_PREFIX="multibeans.";
+
+    protected static final String GROUP_BEAN_NAME_PREFIX="multibean.group.";
+
+    protected static final String EXECUTOR_BEAN_NAME_SUFFIX="Executor";
+
+    /**
+     * Suffix of the name under which the instance created by a {@link MultiBeanFactory} is registered for destruction.
+     */
+    protected static final String FACTORY_INSTANCE_BEAN_NAME_SUFFIX="#instance";
+
+    protected static final String MULTIBEAN_CONFIG_REGISTRY_BEAN_NAME="multiBeanConfigRegistry";
+
+    protected static final String MULTIBEAN_REFRESHER_BEAN_NAME="multiBeanRefresher";
+
+    protected static final String MULTIBEAN_REGISTRAR_BEAN_NAME="multiBeanRegistrar";
+
+    protected static final String MULTIBEAN_STATISTICS_BEAN_NAME="multiBeanStatistics";
+
+    protected static final String MULTIBEAN_WARMER_BEAN_NAME="multiBeanWarmer";
+
+    protected static final String MULTIBEAN_DRAINER_BEAN_NAME="multiBeanDrainer";
+
+    /**
+     * Bean definition attribute marking the per-instance beans whose instances are supplied at runtime:
+     * the config beans, taken from {@link MultiBeanConfigRegistry}, and the {@link MultiBeanExecutor}s.
+     */
+    protected static final String MULTIBEAN_SUPPLIED_ATTRIBUTE="multibean.supplied";
+
+    protected static final String MULTIBEAN_INDEX_LOCATION="META-INF/multibean.index";
+
+    protected static final String INDEX_BEAN_RECORD="bean";
+
+    protected static final String INDEX_CONFIG_RECORD="config";
+
+    protected static final String INDEX_VALUE_RECORD="value";
+
+    protected static final String INDEX_CONSTRUCTOR_RECORD="constructor";
+
+    protected static final String INDEX_PARAMETER_RECORD="param";
 }
@@ -0,0 +1,67 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.target.SimpleBeanTargetSource;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.FactoryBean;
+
+/**
+ * Exposes a multibean instance declared with {@code lazy: proxy} as a class based proxy.
+ * <br>
+ * <br>
+ * The proxy can be injected eagerly. The target bean, and with it the binding of its configuration,
+ * is created on the first method call, under the singleton lock of the bean factory, so concurrent
+ * first calls share a single instance. Every call looks the target up through a {@link SimpleBeanTargetSource},
+ * so a target replaced by {@link MultiBeanRefresher} is picked up by the next call.
+ */
+class LazyMultiBeanFactoryBean implements FactoryBean<Object>, BeanFactoryAware, BeanClassLoaderAware {
+
+    private final String targetBeanName;
+
+    private final Class<?> targetClass;
+
+    private BeanFactory beanFactory;
+
+    private ClassLoader classLoader;
+
+    private Object proxy;
+
+    LazyMultiBeanFactoryBean(String targetBeanName, Class<?> targetClass) {
+        this.targetBeanName = targetBeanName;
+        this.targetClass = targetClass;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public synchronized Object getObject() {
+        if (proxy == null) {
+            SimpleBeanTargetSource targetSource = new SimpleBeanTargetSource();
+            targetSource.setTargetBeanName(targetBeanName);
+            targetSource.setTargetClass(targetClass);
+            targetSource.setBeanFactory(beanFactory);
+
+            ProxyFactory proxyFactory = new ProxyFactory();
+            proxyFactory.setTargetSource(targetSource);
+            proxyFactory.setProxyTargetClass(true);
+            proxy = proxyFactory.getProxy(classLoader);
+        }
+        return proxy;
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return targetClass;
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the Micrometer meters and the actuator endpoint of the library, each only when its
+ * dependency is on the classpath.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MultiBeanActuatorConfig {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class MetricsConfig {
+        @Bean
+        MultiBeanMeterBinder multiBeanMeterBinder(BeanFactory beanFactory) {
+            return new MultiBeanMeterBinder(beanFactory);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint")
+    static class EndpointConfig {
+        @Bean
+        @ConditionalOnAvailableEndpoint
+        MultiBeanEndpoint multiBeanEndpoint(BeanFactory beanFactory) {
+            return new MultiBeanEndpoint(beanFactory);
+        }
+    }
+}
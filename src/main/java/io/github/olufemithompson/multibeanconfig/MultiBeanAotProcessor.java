@@ -0,0 +1,222 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.generate.GeneratedClass;
+import org.springframework.aot.generate.GeneratedMethod;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.javapoet.CodeBlock;
+import org.springframework.util.ClassUtils;
+
+import javax.lang.model.element.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.CACHE_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.CORES_CONFIG_VALUE;
+import static io.github.olufemithompson.multibeanconfig.Constants.GROUP_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.LAZY_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.METRICS_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_SUPPLIED_ATTRIBUTE;
+import static io.github.olufemithompson.multibeanconfig.Constants.REPLICAS_CONFIG_PARAM;
+
+/**
+ * Ahead-of-time support for {@link MultiBean} definitions, registered through {@code META-INF/spring/aot.factories}.
+ * <br>
+ * <br>
+ * During AOT processing {@link MultiBeanDefinitionPostProcessor} runs once at build time, so the
+ * per-instance bean definitions it registers end up in the generated bean factory registrations.
+ * This processor then:
+ * <ul>
+ *  <li>
+ *      Excludes {@link MultiBeanDefinitionPostProcessor} itself from the generated code, so no
+ *      classpath scan or index lookup happens at runtime. {@link MultiBeanConfigRegistry} and the
+ *      {@link MultiBeans} handles and the per-instance config beans are excluded as well, since they are
+ *      registered by the generated initializer.
+ *  </li>
+ *  <li>
+ *      Generates an initializer that hands the resolved {@link MultiBeanMetadata} of every declared bean to
+ *      {@link MultiBeanDefinitionPostProcessor#registerResolvedMultiBeans}, which binds the per-instance
+ *      configuration against the runtime environment.
+ *  </li>
+ *  <li>
+ *      Registers the reflection hints needed for field injection by {@link BeanPropertyPostProcessor},
+ *      for binding the {@code @ConfigurationProperties} classes and {@code executor} blocks, and for
+ *      creating virtual thread executors, and the JDK proxy hints of {@code lazy: proxy} instances.
+ *  </li>
+ * </ul>
+ * Entries declared with {@code replicas: cores}, and instances and groups called through proxy classes
+ * generated at runtime, which a native image cannot define, fail the processing. So do {@code lazy: proxy}
+ * instances of a class, which are proxied by a generated subclass.
+ */
+class MultiBeanAotProcessor implements BeanFactoryInitializationAotProcessor, BeanRegistrationExcludeFilter {
+
+    @Override
+    public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+        if (registeredBean.getMergedBeanDefinition().hasAttribute(MULTIBEAN_SUPPLIED_ATTRIBUTE)) {
+            return true;
+        }
+        Class<?> beanType = registeredBean.getBeanFactory().getType(registeredBean.getBeanName(), false);
+        return beanType != null && (MultiBeanDefinitionPostProcessor.class.isAssignableFrom(beanType)
+                || MultiBeanConfigRegistry.class.isAssignableFrom(beanType)
+                || MultiBeans.class.isAssignableFrom(beanType));
+    }
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        Map<String, MultiBeanMetadata> multiBeans = new LinkedHashMap<>();
+        Set<Class<?>> proxyInterfaces = new LinkedHashSet<>();
+        for (MultiBeanDefinitionPostProcessor postProcessor
+                : beanFactory.getBeansOfType(MultiBeanDefinitionPostProcessor.class, false, false).values()) {
+            // the generated code lists the replicas, which would not follow the processors of the runtime host
+            Set<String> coreReplicaGroups = postProcessor.getCoreReplicaGroups();
+            if (!coreReplicaGroups.isEmpty()) {
+                throw new RuntimeException(String.format(
+                        "Declared beans %s use %s: %s, which cannot be resolved ahead of time, declare a fixed number of replicas",
+                        coreReplicaGroups, REPLICAS_CONFIG_PARAM, CORES_CONFIG_VALUE));
+            }
+            // the proxy classes are generated when the beans are created, which a native image cannot do
+            Set<String> proxiedNames = postProcessor.getProxiedNames();
+            if (!proxiedNames.isEmpty()) {
+                throw new RuntimeException(String.format(
+                        "Declared beans and groups %s are called through proxy classes generated at runtime, which cannot be processed ahead of time, remove their %s, %s or %s settings",
+                        proxiedNames, METRICS_CONFIG_PARAM, CACHE_CONFIG_PARAM, GROUP_CONFIG_PARAM));
+            }
+            // a proxy of a class is a class generated at runtime as well, one of an interface a JDK proxy
+            postProcessor.getLazyProxyTypes().forEach((beanName, proxyType) -> {
+                if (!proxyType.isInterface()) {
+                    throw new RuntimeException(String.format(
+                            "Declared bean %s uses %s: proxy with class %s, which cannot be proxied ahead of time, declare it with an interface type or without %s: proxy",
+                            beanName, LAZY_CONFIG_PARAM, proxyType.getName(), LAZY_CONFIG_PARAM));
+                }
+                proxyInterfaces.add(proxyType);
+            });
+            multiBeans.putAll(postProcessor.getResolvedMultiBeans());
+        }
+        if (multiBeans.isEmpty()) {
+            return null;
+        }
+        return (generationContext, beanFactoryInitializationCode) -> {
+            registerHints(generationContext.getRuntimeHints(), multiBeans.values());
+            for (Class<?> proxyInterface : proxyInterfaces) {
+                generationContext.getRuntimeHints().proxies()
+                        .registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(proxyInterface));
+            }
+
+            GeneratedClass generatedClass = generationContext.getGeneratedClasses()
+                    .addForFeatureComponent("MultiBeans", MultiBeanConfig.class,
+                            type -> type.addModifiers(Modifier.PUBLIC));
+            GeneratedMethod generatedMethod = generatedClass.getMethods().add("registerMultiBeans", method -> method
+                    .addJavadoc("Bind the configuration of the multibean instances resolved at build time.")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addParameter(DefaultListableBeanFactory.class, "beanFactory")
+                    .addParameter(ConfigurableEnvironment.class, "environment")
+                    .addCode(generateRegistrationCode(multiBeans)));
+            beanFactoryInitializationCode.addInitializer(generatedMethod.toMethodReference());
+        };
+    }
+
+    private void registerHints(RuntimeHints hints, Iterable<MultiBeanMetadata> multiBeans) {
+        Set<Class<?>> configClasses = new LinkedHashSet<>();
+        for (MultiBeanMetadata multiBean : multiBeans) {
+            hints.reflection().registerType(multiBean.getBeanClass(),
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            for (MultiBeanMetadata.ConfigDependency configDependency : multiBean.getConfigDependencies()) {
+                configClasses.add(configDependency.configClass());
+            }
+        }
+        configClasses.add(MultiBeanExecutor.Settings.class);
+        configClasses.add(MultiBeanCache.Settings.class);
+        configClasses.add(MultiBeanGroup.Settings.class);
+        configClasses.add(MultiBeanWarmer.Settings.class);
+        configClasses.add(MultiBeanDrainer.Settings.class);
+        configClasses.add(MultiBeanDrainer.InstanceSettings.class);
+        BindableRuntimeHintsRegistrar.forTypes(configClasses.toArray(Class<?>[]::new)).registerHints(hints);
+        hints.reflection().registerType(Executors.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+    }
+
+    private CodeBlock generateRegistrationCode(Map<String, MultiBeanMetadata> multiBeans) {
+        CodeBlock.Builder code = CodeBlock.builder();
+        code.addStatement("$T classLoader = beanFactory.getBeanClassLoader()", ClassLoader.class);
+
+        Map<MultiBeanMetadata, String> variables = new IdentityHashMap<>();
+        for (MultiBeanMetadata multiBean : multiBeans.values()) {
+            if (!variables.containsKey(multiBean)) {
+                String variable = "multiBean" + variables.size();
+                variables.put(multiBean, variable);
+                code.addStatement("$T $L = $L", MultiBeanMetadata.class, variable, generateMetadata(multiBean));
+            }
+        }
+
+        code.addStatement("$T<$T, $T> multiBeans = new $T<>()",
+                Map.class, String.class, MultiBeanMetadata.class, LinkedHashMap.class);
+        multiBeans.forEach((beanName, multiBean) ->
+                code.addStatement("multiBeans.put($S, $L)", beanName, variables.get(multiBean)));
+        code.addStatement("new $T(environment, classLoader).registerResolvedMultiBeans(beanFactory, multiBeans)",
+                MultiBeanDefinitionPostProcessor.class);
+        return code.build();
+    }
+
+    private CodeBlock generateMetadata(MultiBeanMetadata multiBean) {
+        List<CodeBlock> configDependencies = new ArrayList<>();
+        for (MultiBeanMetadata.ConfigDependency configDependency : multiBean.getConfigDependencies()) {
+            configDependencies.add(CodeBlock.of("new $T($S, $L, $S)",
+                    MultiBeanMetadata.ConfigDependency.class,
+                    configDependency.fieldName(),
+                    generateClass(configDependency.configClass()),
+                    configDependency.prefix()));
+        }
+        List<CodeBlock> valueDependencies = new ArrayList<>();
+        for (MultiBeanMetadata.ValueDependency valueDependency : multiBean.getValueDependencies()) {
+            valueDependencies.add(CodeBlock.of("new $T($S, $S)",
+                    MultiBeanMetadata.ValueDependency.class,
+                    valueDependency.fieldName(),
+                    valueDependency.propertyKey()));
+        }
+        List<CodeBlock> constructors = new ArrayList<>();
+        for (List<MultiBeanMetadata.ConstructorParameter> constructor : multiBean.getConstructors()) {
+            List<CodeBlock> parameters = new ArrayList<>();
+            for (MultiBeanMetadata.ConstructorParameter parameter : constructor) {
+                parameters.add(CodeBlock.of("new $T($S, $L, $S)",
+                        MultiBeanMetadata.ConstructorParameter.class,
+                        parameter.name(),
+                        generateClass(parameter.type()),
+                        parameter.propertyKey()));
+            }
+            constructors.add(generateList(parameters));
+        }
+        return CodeBlock.of("new $T($L, $L, $L, $L)",
+                MultiBeanMetadata.class,
+                generateClass(multiBean.getBeanClass()),
+                generateList(configDependencies),
+                generateList(valueDependencies),
+                generateList(constructors));
+    }
+
+    /**
+     * Classes are resolved by name because {@link MultiBean} classes are not necessarily
+     * visible from the package of the generated code.
+     */
+    private CodeBlock generateClass(Class<?> type) {
+        return CodeBlock.of("$T.resolveClassName($S, classLoader)", ClassUtils.class, type.getName());
+    }
+
+    private CodeBlock generateList(List<CodeBlock> elements) {
+        return CodeBlock.of("$T.of($L)", List.class, CodeBlock.join(elements, ", "));
+    }
+}
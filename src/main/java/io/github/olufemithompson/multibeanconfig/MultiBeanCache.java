@@ -0,0 +1,636 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.cglib.proxy.MethodInterceptor;
+import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The result cache of one instance declared with a {@code cache} block, holding the results of its
+ * {@link MultiBeanCacheable} methods.
+ * <br>
+ * <br>
+ * The cache holds at most {@code max-entries} results, evicted with a W-TinyLFU policy: a new result enters a
+ * small LRU window, and once it leaves the window it only stays if a count-min sketch of recent calls says it is
+ * asked for more often than the result it would evict. The results kept are split into a probation and a
+ * protected LRU segment, the latter holding the results asked for again since they were kept. A burst of
+ * one-off calls therefore does not flush the results asked for all the time.
+ * <br>
+ * <br>
+ * A hit takes no lock: the eviction policy is only updated when its lock is free, and is otherwise left as it
+ * is. Results expire {@code ttl} after they were loaded. Past {@code refresh-after}, a hit still returns the
+ * cached result, and reloads it once in the background. Concurrent misses of the same result wait for a single
+ * call to the instance, and share its result or its exception. A call that asks its own instance for the result
+ * it is loading goes straight to the instance instead of waiting for itself. Exceptions are not cached,
+ * {@code null} results are.
+ */
+final class MultiBeanCache {
+
+    private static final Log logger = LogFactory.getLog(MultiBeanCache.class);
+
+    private static final Object NULL = new Object();
+
+    private static final byte WINDOW = 0;
+
+    private static final byte PROBATION = 1;
+
+    private static final byte PROTECTED = 2;
+
+    private static final byte REMOVED = 3;
+
+    /**
+     * The {@code cache} block of an instance.
+     *
+     * @param maxEntries    the results held at most
+     * @param ttl           how long a result is used after it was loaded, for ever by default
+     * @param refreshAfter  how long after it was loaded a result is reloaded in the background when asked for,
+     *                      never by default
+     */
+    record Settings(@DefaultValue("10000") int maxEntries,
+                    Duration ttl,
+                    Duration refreshAfter) {
+    }
+
+    private final String name;
+
+    private final String beanName;
+
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final long refreshAfterNanos;
+
+    private final Map<Key, Node> data = new ConcurrentHashMap<>();
+
+    private final Map<Key, Pending> loading = new ConcurrentHashMap<>();
+
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock policyLock = new ReentrantLock();
+
+    private final FrequencySketch sketch;
+
+    private final Node window = new Node(null, null, 0);
+
+    private final Node probation = new Node(null, null, 0);
+
+    private final Node protectedSegment = new Node(null, null, 0);
+
+    private final int windowMax;
+
+    private final int protectedMax;
+
+    private int windowSize;
+
+    private int probationSize;
+
+    private int protectedSize;
+
+    /**
+     * Advanced by {@link #invalidateAll()}, so that a load started before is not cached after it.
+     * Written under the policy lock.
+     */
+    private volatile long generation;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final Map<Class<?>, Caching> cachings = new HashMap<>();
+
+    private ExecutorService refresher;
+
+    private boolean closed;
+
+    /**
+     * @param name      the name declared under {@code multibean}
+     * @param beanName  the bean name the {@link MultiBean} class is instantiated under
+     */
+    MultiBeanCache(String name, String beanName, Settings settings) {
+        if (settings.maxEntries() < 1) {
+            throw new RuntimeException(String.format(
+                    "Invalid cache max-entries %d for declared bean %s", settings.maxEntries(), name));
+        }
+        this.name = name;
+        this.beanName = beanName;
+        this.maxEntries = settings.maxEntries();
+        this.ttlNanos = settings.ttl() != null ? settings.ttl().toNanos() : Long.MAX_VALUE;
+        this.refreshAfterNanos = settings.refreshAfter() != null ? settings.refreshAfter().toNanos() : Long.MAX_VALUE;
+        this.windowMax = Math.max(1, maxEntries / 100);
+        this.protectedMax = (maxEntries - windowMax) * 4 / 5;
+        this.sketch = new FrequencySketch(maxEntries);
+        for (Node head : List.of(window, probation, protectedSegment)) {
+            head.prev = head;
+            head.next = head;
+        }
+    }
+
+    /**
+     * Returns the public methods of a class marked with {@link MultiBeanCacheable}.
+     */
+    static List<Method> getCacheableMethods(Class<?> beanClass) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : beanClass.getMethods()) {
+            if (AnnotatedElementUtils.hasAnnotation(method, MultiBeanCacheable.class)
+                    && MultiBeanProxyClass.isInterceptable(method)) {
+                if (method.getReturnType() == void.class) {
+                    throw new RuntimeException(String.format(
+                            "Method %s of %s is marked with @%s but returns nothing",
+                            method.getName(), beanClass.getName(), MultiBeanCacheable.class.getSimpleName()));
+                }
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getBeanName() {
+        return beanName;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * The share of the calls answered from the cache, {@code 0} before the first call.
+     */
+    double getHitRatio() {
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum();
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    int getSize() {
+        return data.size();
+    }
+
+    /**
+     * Returns a proxy answering the {@link MultiBeanCacheable} methods of the given instance from this cache.
+     */
+    Object instrument(Object bean) {
+        Caching caching = getCaching(ClassUtils.getUserClass(bean));
+        Loader[] interceptors = new Loader[caching.methods()];
+        for (int index = 0; index < interceptors.length; index++) {
+            interceptors[index] = new Loader(bean, index);
+        }
+        return caching.proxyClass().wrap(bean, interceptors);
+    }
+
+    private synchronized Caching getCaching(Class<?> beanClass) {
+        Caching caching = cachings.get(beanClass);
+        if (caching == null) {
+            List<Method> methods = getCacheableMethods(beanClass);
+            if (methods.isEmpty()) {
+                throw new RuntimeException(String.format("Declared bean %s has a cache, but class %s has no @%s method",
+                        name, beanClass.getName(), MultiBeanCacheable.class.getSimpleName()));
+            }
+            caching = new Caching(MultiBeanProxyClass.generate(beanClass, methods, name), methods.size());
+            cachings.put(beanClass, caching);
+        }
+        return caching;
+    }
+
+    private Object get(Key key, Load load) throws Throwable {
+        long now = System.nanoTime();
+        Node node = data.get(key);
+        if (node != null && now - node.loadedAt < ttlNanos) {
+            hits.increment();
+            afterRead(node);
+            if (now - node.loadedAt >= refreshAfterNanos) {
+                refreshAhead(node, load);
+            }
+            return unmask(node.value);
+        }
+        misses.increment();
+        return load(key, load);
+    }
+
+    private Object load(Key key, Load load) throws Throwable {
+        Pending future = new Pending(Thread.currentThread());
+        Pending pending = loading.putIfAbsent(key, future);
+        if (pending != null) {
+            if (pending.owner == Thread.currentThread()) {
+                // the load calls back into the instance with the same arguments, waiting would never end
+                return load.load();
+            }
+            try {
+                return unmask(pending.join());
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+        try {
+            long loadGeneration = generation;
+            Node node = data.get(key);
+            Object value;
+            if (node != null && System.nanoTime() - node.loadedAt < ttlNanos) {
+                // loaded by a call that completed since this one missed
+                value = node.value;
+            } else {
+                value = mask(load.load());
+                put(key, value, loadGeneration);
+            }
+            future.complete(value);
+            return unmask(value);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private void refreshAhead(Node node, Load load) {
+        if (!refreshing.add(node.key)) {
+            return;
+        }
+        try {
+            getRefresher().execute(() -> {
+                try {
+                    Object value = mask(load.load());
+                    if (data.get(node.key) == node) {
+                        node.value = value;
+                        node.loadedAt = System.nanoTime();
+                    }
+                } catch (Throwable e) {
+                    logger.debug(String.format("Failed to refresh a cached result of multibean instance %s", name), e);
+                } finally {
+                    refreshing.remove(node.key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(node.key);
+        }
+    }
+
+    private synchronized ExecutorService getRefresher() {
+        if (closed) {
+            throw new RejectedExecutionException();
+        }
+        if (refresher == null) {
+            refresher = MultiBeanThreads.newThreadPerTaskExecutor("multibean-cache-" + name + "-");
+        }
+        return refresher;
+    }
+
+    /**
+     * Caches a loaded result, unless the cache was invalidated since the load started.
+     */
+    private void put(Key key, Object value, long loadGeneration) {
+        Node node = new Node(key, value, System.nanoTime());
+        policyLock.lock();
+        try {
+            if (loadGeneration != generation) {
+                return;
+            }
+            Node previous = data.put(key, node);
+            if (previous != null) {
+                unlink(previous);
+            }
+            sketch.increment(key.hash);
+            node.queue = WINDOW;
+            linkLast(window, node);
+            windowSize++;
+            evict();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Counts a hit and moves its result up its segment, promoting it to the protected segment when it was
+     * on probation. Skipped while the policy is busy, so that hits never wait.
+     */
+    private void afterRead(Node node) {
+        if (!policyLock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(node.key.hash);
+            switch (node.queue) {
+                case WINDOW -> moveToLast(window, node);
+                case PROBATION -> {
+                    unlink(node);
+                    node.queue = PROTECTED;
+                    linkLast(protectedSegment, node);
+                    protectedSize++;
+                    while (protectedSize > protectedMax) {
+                        Node demoted = protectedSegment.next;
+                        unlink(demoted);
+                        demoted.queue = PROBATION;
+                        linkLast(probation, demoted);
+                        probationSize++;
+                    }
+                }
+                case PROTECTED -> moveToLast(protectedSegment, node);
+                default -> {
+                    // evicted meanwhile
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the results overflowing the window to probation, then evicts until the cache fits, each time
+     * keeping the more frequently asked for of the newest result on probation and the oldest one.
+     */
+    private void evict() {
+        while (windowSize > windowMax) {
+            Node node = window.next;
+            unlink(node);
+            node.queue = PROBATION;
+            linkLast(probation, node);
+            probationSize++;
+        }
+        while (windowSize + probationSize + protectedSize > maxEntries) {
+            Node victim = first(probation);
+            if (victim == null) {
+                victim = first(protectedSegment) != null ? first(protectedSegment) : first(window);
+            } else {
+                Node candidate = probation.prev;
+                if (candidate != victim && sketch.frequency(candidate.key.hash) <= sketch.frequency(victim.key.hash)) {
+                    victim = candidate;
+                }
+            }
+            unlink(victim);
+            data.remove(victim.key, victim);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Drops every result, e.g. once the configuration of the instance changed. Hits racing with it find their
+     * result removed and leave the policy alone, and loads started before it return their result uncached.
+     */
+    void invalidateAll() {
+        policyLock.lock();
+        try {
+            generation++;
+            data.clear();
+            loading.clear();
+            for (Node head : List.of(window, probation, protectedSegment)) {
+                for (Node node = head.next; node != head; node = node.next) {
+                    node.queue = REMOVED;
+                }
+                head.prev = head;
+                head.next = head;
+            }
+            windowSize = 0;
+            probationSize = 0;
+            protectedSize = 0;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Drops every result and stops the background refreshes.
+     */
+    void close() {
+        invalidateAll();
+        synchronized (this) {
+            closed = true;
+            if (refresher != null) {
+                refresher.shutdown();
+            }
+        }
+    }
+
+    private void unlink(Node node) {
+        switch (node.queue) {
+            case WINDOW -> windowSize--;
+            case PROBATION -> probationSize--;
+            case PROTECTED -> protectedSize--;
+            default -> {
+                return;
+            }
+        }
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.queue = REMOVED;
+    }
+
+    private static void linkLast(Node head, Node node) {
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+    }
+
+    private static void moveToLast(Node head, Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        linkLast(head, node);
+    }
+
+    private static Node first(Node head) {
+        return head.next != head ? head.next : null;
+    }
+
+    private static Object mask(Object value) {
+        return value != null ? value : NULL;
+    }
+
+    private static Object unmask(Object value) {
+        return value != NULL ? value : null;
+    }
+
+    /**
+     * The generated subclass of a class, with the number of its cached methods.
+     */
+    private record Caching(MultiBeanProxyClass proxyClass, int methods) {
+    }
+
+    /**
+     * A call to the instance.
+     */
+    @FunctionalInterface
+    private interface Load {
+        Object load() throws Throwable;
+    }
+
+    /**
+     * Answers the calls of one cached method from the cache.
+     */
+    private final class Loader implements MethodInterceptor {
+
+        private final Object bean;
+
+        private final int method;
+
+        private Loader(Object bean, int method) {
+            this.bean = bean;
+            this.method = method;
+        }
+
+        @Override
+        public Object intercept(Object proxy, Method invoked, Object[] args, MethodProxy methodProxy) throws Throwable {
+            return get(new Key(method, args), () -> methodProxy.invoke(bean, args));
+        }
+    }
+
+    /**
+     * A cached method and its arguments.
+     */
+    private static final class Key {
+
+        private final int method;
+
+        private final Object[] args;
+
+        private final int hash;
+
+        private Key(int method, Object[] args) {
+            this.method = method;
+            this.args = args;
+            this.hash = 31 * method + Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && method == key.method && Arrays.deepEquals(args, key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The result of a call to the instance still in progress, with the thread making it.
+     */
+    private static final class Pending extends CompletableFuture<Object> {
+
+        private final Thread owner;
+
+        private Pending(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * A cached result, linked into the segment of the eviction policy it is in. The links and the segment
+     * are guarded by the policy lock.
+     */
+    private static final class Node {
+
+        private final Key key;
+
+        private volatile Object value;
+
+        private volatile long loadedAt;
+
+        private Node prev;
+
+        private Node next;
+
+        private byte queue = REMOVED;
+
+        private Node(Key key, Object value, long loadedAt) {
+            this.key = key;
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * A count-min sketch of how often each result was asked for recently, with four 4-bit counters per
+     * result, all halved once the cache saw ten times as many calls as it holds results, so that old
+     * popularity fades. Guarded by the policy lock.
+     */
+    private static final class FrequencySketch {
+
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+
+        private final int sampleSize;
+
+        private int additions;
+
+        private FrequencySketch(int maxEntries) {
+            int size = Math.min(1 << 22, Integer.highestOneBit(Math.max(16, maxEntries) - 1) << 1);
+            this.table = new long[size];
+            this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * maxEntries);
+        }
+
+        int frequency(int hash) {
+            int frequency = 15;
+            for (int depth = 0; depth < 4; depth++) {
+                long h = spread(hash, depth);
+                frequency = Math.min(frequency, (int) (table[slot(h)] >>> shift(h)) & 0xF);
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean incremented = false;
+            for (int depth = 0; depth < 4; depth++) {
+                long h = spread(hash, depth);
+                int slot = slot(h);
+                int shift = shift(h);
+                if (((table[slot] >>> shift) & 0xF) < 15) {
+                    table[slot] += 1L << shift;
+                    incremented = true;
+                }
+            }
+            if (incremented && ++additions >= sampleSize) {
+                for (int slot = 0; slot < table.length; slot++) {
+                    table[slot] = (table[slot] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        private static long spread(int hash, int depth) {
+            long h = (hash + depth * 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+            return h ^ (h >>> 31);
+        }
+
+        private int slot(long h) {
+            return (int) (h >>> 32) & (table.length - 1);
+        }
+
+        private static int shift(long h) {
+            return ((int) h & 0xF) << 2;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a public method of a {@link MultiBean} class whose results are cached per instance.
+ * <br>
+ * <br>
+ * The results are only cached for the instances declaring a {@code cache} block, each in a bounded cache
+ * of its own, so the same call made to two instances never shares a result:
+ * <pre>{@code
+ * multibean:
+ *   tenant-a-client:
+ *     class: PartnerClient
+ *     cache:
+ *       max-entries: 1000
+ *       ttl: 10m
+ *       refresh-after: 8m
+ * }</pre>
+ * A result is cached under the method and its arguments, which must implement {@code equals} and
+ * {@code hashCode}. Concurrent calls missing the same result wait for a single call to the instance.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MultiBeanCacheable {
+
+}
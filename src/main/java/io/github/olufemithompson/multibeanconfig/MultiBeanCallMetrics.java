@@ -0,0 +1,142 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.cglib.proxy.MethodInterceptor;
+import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The calls made to one instance declared with {@code metrics: true}, counted per method.
+ * <br>
+ * <br>
+ * {@link #instrument(Object)} wraps the instance in a {@link MultiBeanProxyClass} in which every recorded method
+ * has a callback of its own bound to the {@link MultiBeanLatencyRecorder} of that method. A call therefore looks
+ * nothing up: it reads the clock, invokes the instance through a {@link MethodProxy}, without reflection, reads
+ * the clock again and records.
+ * <br>
+ * <br>
+ * Overloads share the recorder of their name. A call is timed until it returns or throws, so a call returning a
+ * future is timed until the future is returned. Final methods and the methods of {@link Object} are not recorded.
+ * The recorders outlive the instance, so a {@code lazy: proxy} instance replaced by a refresh keeps counting into
+ * the same ones.
+ */
+final class MultiBeanCallMetrics {
+
+    private final String name;
+
+    private final String beanName;
+
+    private final MultiBeanStatistics.CallListener listener;
+
+    private final Map<String, MultiBeanLatencyRecorder> recorders = new ConcurrentSkipListMap<>();
+
+    private final Map<Class<?>, Instrumentation> instrumentations = new HashMap<>();
+
+    /**
+     * @param name      the name declared under {@code multibean}
+     * @param beanName  the bean name the {@link MultiBean} class is instantiated under
+     * @param listener  notified of every recorder created
+     */
+    MultiBeanCallMetrics(String name, String beanName, MultiBeanStatistics.CallListener listener) {
+        this.name = name;
+        this.beanName = beanName;
+        this.listener = listener;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getBeanName() {
+        return beanName;
+    }
+
+    /**
+     * The recorder of each method called so far or about to be, by method name.
+     */
+    Map<String, MultiBeanLatencyRecorder> getRecorders() {
+        return recorders;
+    }
+
+    /**
+     * Returns a proxy recording the calls made to the given instance.
+     */
+    Object instrument(Object bean) {
+        Instrumentation instrumentation = getInstrumentation(ClassUtils.getUserClass(bean));
+        MultiBeanLatencyRecorder[] methodRecorders = instrumentation.recorders();
+        Recorder[] interceptors = new Recorder[methodRecorders.length];
+        for (int index = 0; index < interceptors.length; index++) {
+            interceptors[index] = new Recorder(bean, methodRecorders[index]);
+        }
+        return instrumentation.proxyClass().wrap(bean, interceptors);
+    }
+
+    private synchronized Instrumentation getInstrumentation(Class<?> beanClass) {
+        Instrumentation instrumentation = instrumentations.get(beanClass);
+        if (instrumentation == null) {
+            List<Method> methods = new ArrayList<>();
+            List<MultiBeanLatencyRecorder> methodRecorders = new ArrayList<>();
+            for (Method method : beanClass.getMethods()) {
+                if (MultiBeanProxyClass.isInterceptable(method)) {
+                    methods.add(method);
+                    methodRecorders.add(getRecorder(method.getName()));
+                }
+            }
+            instrumentation = new Instrumentation(
+                    MultiBeanProxyClass.generate(beanClass, methods, name),
+                    methodRecorders.toArray(MultiBeanLatencyRecorder[]::new));
+            instrumentations.put(beanClass, instrumentation);
+        }
+        return instrumentation;
+    }
+
+    private MultiBeanLatencyRecorder getRecorder(String method) {
+        MultiBeanLatencyRecorder recorder = recorders.get(method);
+        if (recorder == null) {
+            recorder = new MultiBeanLatencyRecorder();
+            recorders.put(method, recorder);
+            listener.added(this, method, recorder);
+        }
+        return recorder;
+    }
+
+    /**
+     * The generated subclass of a class, with the recorder of each of its intercepted methods.
+     */
+    private record Instrumentation(MultiBeanProxyClass proxyClass, MultiBeanLatencyRecorder[] recorders) {
+    }
+
+    /**
+     * Times the calls of one method.
+     */
+    private static final class Recorder implements MethodInterceptor {
+
+        private final Object bean;
+
+        private final MultiBeanLatencyRecorder recorder;
+
+        private Recorder(Object bean, MultiBeanLatencyRecorder recorder) {
+            this.bean = bean;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = methodProxy.invoke(bean, args);
+                failed = false;
+                return result;
+            } finally {
+                recorder.record(System.nanoTime() - start, failed);
+            }
+        }
+    }
+}
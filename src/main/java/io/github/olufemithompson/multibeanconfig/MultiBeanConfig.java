@@ -3,7 +3,6 @@ package io.github.olufemithompson.multibeanconfig;
 
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
-import org.springframework.boot.context.properties.ConfigurationPropertiesBindingPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,8 +17,4 @@ public class MultiBeanConfig {
     public BeanPostProcessor beanPropertyPostProcessor() {
         return new BeanPropertyPostProcessor();
     }
-    @Bean
-    public ConfigurationPropertiesBindingPostProcessor configurationPropertyPostProcessor() {
-        return new ConfigurationPropertyPostProcessor();
-    }
 }
@@ -1,35 +1,223 @@
 package io.github.olufemithompson.multibeanconfig;
 
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_CONFIG_REGISTRY_BEAN_NAME;
+
+/**
+ * Holds the bound configuration objects, {@code @Value} field values and config bean references
+ * of the multibean instances of one application context.
+ * <br>
+ * <br>
+ * The registry is itself a bean of the context it serves, so several contexts booting in the same
+ * JVM never share entries. It is filled concurrently while the context starts, frozen into compact
+ * immutable maps once all singletons are instantiated, and cleared when the context is closed.
+ * Reads never lock. Entries written after the registry is frozen, by a refresh or a runtime registration,
+ * go to a concurrent overlay, so a write costs the same however many entries are frozen.
+ * <br>
+ * <br>
+ * The configuration of lazy instances is registered as a {@link DeferredConfig}, bound the first time
+ * it is requested.
+ */
+final class MultiBeanConfigRegistry implements SmartInitializingSingleton, DisposableBean {
+
+    private final Entries<String, Object> configRegistry = new Entries<>();
+    private final Entries<BeanField, Object> valueRegistry = new Entries<>();
+    private final Entries<BeanField, String> beanConfigReferenceRegistry = new Entries<>();
 
-final class MultiBeanConfigRegistry {
-    private static Map<String, Object> configRegistry = new HashMap<>();
-    private static Map<String, Object> valueRegistry = new HashMap<>();
-    private static Map<String, String> beanConfigReferenceRegistry = new HashMap<>();
+    /**
+     * The {@link BeanField} keys of the injected fields of each instance, by bean name, so that
+     * injecting a prototype or request scoped instance does not allocate them again.
+     */
+    private final Map<String, BeanField[]> beanFields = new ConcurrentHashMap<>();
 
+    /**
+     * Registers the registry bean in the given registry, if needed, and returns its instance.
+     */
+    static MultiBeanConfigRegistry register(BeanDefinitionRegistry registry) {
+        if (!registry.containsBeanDefinition(MULTIBEAN_CONFIG_REGISTRY_BEAN_NAME)) {
+            RootBeanDefinition beanDefinition = new RootBeanDefinition(MultiBeanConfigRegistry.class);
+            beanDefinition.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+            registry.registerBeanDefinition(MULTIBEAN_CONFIG_REGISTRY_BEAN_NAME, beanDefinition);
+        }
+        return ((BeanFactory) registry).getBean(MULTIBEAN_CONFIG_REGISTRY_BEAN_NAME, MultiBeanConfigRegistry.class);
+    }
+
+    /**
+     * Returns the registry of the given bean factory, or {@code null} when no multibean was declared.
+     */
+    static MultiBeanConfigRegistry get(BeanFactory beanFactory) {
+        if (!beanFactory.containsBean(MULTIBEAN_CONFIG_REGISTRY_BEAN_NAME)) {
+            return null;
+        }
+        return beanFactory.getBean(MULTIBEAN_CONFIG_REGISTRY_BEAN_NAME, MultiBeanConfigRegistry.class);
+    }
 
-    public static void registerConfig(String name, Object config){
+    public void registerConfig(String name, Object config){
         configRegistry.put(name, config);
     }
-    public static Object getConfig(String name){
-        return configRegistry.get(name);
+
+    public Object getConfig(String name){
+        Object config = configRegistry.get(name);
+        return config instanceof DeferredConfig deferredConfig ? deferredConfig.get() : config;
+    }
+
+    public void registerValue(BeanField field, Object value){
+        valueRegistry.put(field, value);
+    }
+
+    public Object getValue(BeanField field){
+        return valueRegistry.get(field);
+    }
+
+    public void registerBeanConfigReference(BeanField field, String reference){
+        beanConfigReferenceRegistry.put(field, reference);
+    }
+
+    public String getBeanConfigReference(BeanField field){
+        return beanConfigReferenceRegistry.get(field);
+    }
+
+    /**
+     * Returns the key of each of the given fields of an instance, created once per bean name.
+     */
+    BeanField[] getBeanFields(String beanName, List<String> fieldNames){
+        return beanFields.computeIfAbsent(beanName, name -> {
+            BeanField[] keys = new BeanField[fieldNames.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = new BeanField(name, fieldNames.get(i));
+            }
+            return keys;
+        });
+    }
+
+    /**
+     * Removes the entries of a multibean instance and of its config beans.
+     *
+     * @param beanName         the name the instance is registered under
+     * @param configBeanNames  the names of its config beans
+     * @param fieldNames       the names of its injected fields
+     */
+    public void unregister(String beanName, Collection<String> configBeanNames, Collection<String> fieldNames){
+        for (String configBeanName : configBeanNames) {
+            configRegistry.remove(configBeanName);
+        }
+        for (String fieldName : fieldNames) {
+            BeanField field = new BeanField(beanName, fieldName);
+            valueRegistry.remove(field);
+            beanConfigReferenceRegistry.remove(field);
+        }
+        beanFields.remove(beanName);
+    }
+
+    /**
+     * Freezes the registry once the context has instantiated its singletons.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        configRegistry.freeze();
+        valueRegistry.freeze();
+        beanConfigReferenceRegistry.freeze();
     }
 
-    public static void registerValue(String name, Object config){
-        valueRegistry.put(name, config);
+    /**
+     * Releases every entry when the context is closed.
+     */
+    @Override
+    public void destroy() {
+        configRegistry.clear();
+        valueRegistry.clear();
+        beanConfigReferenceRegistry.clear();
+        beanFields.clear();
     }
 
-    public static Object getValue(String name){
-        return valueRegistry.get(name);
+    /**
+     * An immutable map of the entries frozen at startup, under a concurrent map of the entries written since.
+     */
+    private static final class Entries<K, V> {
+
+        private volatile Map<K, V> frozen = Map.of();
+
+        private final Map<K, V> live = new ConcurrentHashMap<>();
+
+        V get(K key) {
+            V value = live.get(key);
+            return value != null ? value : frozen.get(key);
+        }
+
+        synchronized void put(K key, V value) {
+            live.put(key, value);
+        }
+
+        synchronized void remove(K key) {
+            live.remove(key);
+            if (frozen.containsKey(key)) {
+                Map<K, V> copy = new HashMap<>(frozen);
+                copy.remove(key);
+                frozen = Map.copyOf(copy);
+            }
+        }
+
+        synchronized void freeze() {
+            Map<K, V> copy = new HashMap<>(frozen);
+            copy.putAll(live);
+            frozen = Map.copyOf(copy);
+            live.clear();
+        }
+
+        synchronized void clear() {
+            frozen = Map.of();
+            live.clear();
+        }
     }
 
+    /**
+     * A configuration bound on first access. Concurrent first accesses bind it only once.
+     */
+    static final class DeferredConfig {
+
+        private Supplier<Object> binder;
+
+        private volatile Object config;
+
+        DeferredConfig(Supplier<Object> binder) {
+            this.binder = binder;
+        }
 
-    public static void registerBeanConfigReference(String name, String reference){
-        beanConfigReferenceRegistry.put(name, reference);
+        Object get() {
+            Object result = config;
+            if (result == null) {
+                synchronized (this) {
+                    result = config;
+                    if (result == null) {
+                        result = binder.get();
+                        config = result;
+                        binder = null;
+                    }
+                }
+            }
+            return result;
+        }
     }
 
-    public static String getBeanConfigReference(String name){
-        return beanConfigReferenceRegistry.get(name);
+    /**
+     * Identifies a field of a multibean instance.
+     *
+     * @param beanName   the name the instance is registered under
+     * @param fieldName  the name of the field
+     */
+    record BeanField(String beanName, String fieldName) {
     }
 }
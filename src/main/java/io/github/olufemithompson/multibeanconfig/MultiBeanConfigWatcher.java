@@ -0,0 +1,231 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.env.OriginTrackedMapPropertySource;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.origin.Origin;
+import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.boot.origin.TextResourceOrigin;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches the configuration files an environment was loaded from, used by {@link MultiBeanRefresher}
+ * when {@code multibean.watch} is {@code true}.
+ * <br>
+ * <br>
+ * When a file changes, it is parsed again with the {@link PropertySourceLoader} matching its extension
+ * and the property sources it had contributed are replaced in place, keeping their precedence. The
+ * refresh callback then runs on the watcher thread. A file that cannot be parsed, e.g. while it is being
+ * written, leaves the environment untouched until its next change.
+ * <br>
+ * <br>
+ * The files of {@code multibean.import-dir} are not part of the environment; a change to one of them
+ * only runs the refresh callback, which reads them again through {@link MultiBeanImports}.
+ */
+final class MultiBeanConfigWatcher implements Runnable {
+
+    private static final Log logger = LogFactory.getLog(MultiBeanConfigWatcher.class);
+
+    private static final String DOCUMENT_SUFFIX = " (document #";
+
+    private final ConfigurableEnvironment environment;
+
+    private final Runnable refresh;
+
+    private final Map<Path, Set<String>> propertySourceNames;
+
+    private final Path importDirectory;
+
+    private final List<PropertySourceLoader> loaders;
+
+    private final WatchService watchService;
+
+    private final Thread thread;
+
+    private MultiBeanConfigWatcher(ConfigurableEnvironment environment,
+                                   Runnable refresh,
+                                   Map<Path, Set<String>> propertySourceNames,
+                                   Path importDirectory) throws IOException {
+        this.environment = environment;
+        this.refresh = refresh;
+        this.propertySourceNames = propertySourceNames;
+        this.importDirectory = importDirectory;
+        this.loaders = SpringFactoriesLoader.loadFactories(PropertySourceLoader.class, getClass().getClassLoader());
+        this.watchService = FileSystems.getDefault().newWatchService();
+        Set<Path> directories = new HashSet<>();
+        for (Path file : propertySourceNames.keySet()) {
+            if (directories.add(file.getParent())) {
+                file.getParent().register(watchService,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_CREATE);
+            }
+        }
+        if (importDirectory != null && directories.add(importDirectory)) {
+            importDirectory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_CREATE);
+        }
+        this.thread = new Thread(this, "multibean-config-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching the files of the given environment and of the given import directory, or returns
+     * {@code null} when none of its property sources was loaded from a file and there is no import directory.
+     */
+    static MultiBeanConfigWatcher start(ConfigurableEnvironment environment, Runnable refresh, Path importDirectory) {
+        Map<Path, Set<String>> propertySourceNames = findConfigFiles(environment);
+        if (propertySourceNames.isEmpty() && importDirectory == null) {
+            return null;
+        }
+        try {
+            MultiBeanConfigWatcher watcher =
+                    new MultiBeanConfigWatcher(environment, refresh, propertySourceNames, importDirectory);
+            watcher.thread.start();
+            return watcher;
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to watch multibean configuration files", e);
+        }
+    }
+
+    void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close multibean configuration watcher", e);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean imported = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path name) {
+                        Path file = directory.resolve(name);
+                        if (propertySourceNames.containsKey(file)) {
+                            changed.add(file);
+                        } else if (directory.equals(importDirectory) && MultiBeanImports.isImport(file)) {
+                            imported = true;
+                        }
+                    }
+                }
+                key.reset();
+                boolean reloaded = !changed.isEmpty() && reload(changed);
+                if (reloaded || imported) {
+                    try {
+                        refresh.run();
+                    } catch (RuntimeException e) {
+                        logger.error("Failed to refresh multibean configuration", e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed by the refresher
+        }
+    }
+
+    private boolean reload(Set<Path> files) {
+        boolean reloaded = false;
+        MutablePropertySources propertySources = environment.getPropertySources();
+        for (Path file : files) {
+            PropertySourceLoader loader = getLoader(file);
+            if (loader == null) {
+                continue;
+            }
+            try {
+                for (String name : propertySourceNames.get(file)) {
+                    for (PropertySource<?> propertySource : loader.load(name, new FileSystemResource(file))) {
+                        if (propertySources.contains(propertySource.getName())) {
+                            propertySources.replace(propertySource.getName(), propertySource);
+                            reloaded = true;
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to reload multibean configuration file " + file, e);
+            }
+        }
+        return reloaded;
+    }
+
+    private PropertySourceLoader getLoader(Path file) {
+        String fileName = file.getFileName().toString();
+        for (PropertySourceLoader loader : loaders) {
+            for (String extension : loader.getFileExtensions()) {
+                if (fileName.endsWith("." + extension)) {
+                    return loader;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps each configuration file to the names its property sources were loaded under, without the
+     * {@code (document #n)} suffix of multi-document files.
+     */
+    private static Map<Path, Set<String>> findConfigFiles(ConfigurableEnvironment environment) {
+        Map<Path, Set<String>> propertySourceNames = new LinkedHashMap<>();
+        for (PropertySource<?> propertySource : environment.getPropertySources()) {
+            if (propertySource instanceof OriginTrackedMapPropertySource mapPropertySource) {
+                Path file = getFile(mapPropertySource);
+                if (file != null) {
+                    String name = propertySource.getName();
+                    int documentIndex = name.lastIndexOf(DOCUMENT_SUFFIX);
+                    propertySourceNames.computeIfAbsent(file, path -> new LinkedHashSet<>())
+                            .add(documentIndex < 0 ? name : name.substring(0, documentIndex));
+                }
+            }
+        }
+        return propertySourceNames;
+    }
+
+    private static Path getFile(OriginTrackedMapPropertySource propertySource) {
+        for (Object value : propertySource.getSource().values()) {
+            if (value instanceof OriginTrackedValue originTrackedValue) {
+                Origin origin = originTrackedValue.getOrigin();
+                while (origin != null && !(origin instanceof TextResourceOrigin)) {
+                    origin = origin.getParent();
+                }
+                Resource resource = origin != null ? ((TextResourceOrigin) origin).getResource() : null;
+                try {
+                    return resource != null && resource.isFile()
+                            ? resource.getFile().toPath().toAbsolutePath()
+                            : null;
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -3,41 +3,90 @@ package io.github.olufemithompson.multibeanconfig;
 import org.reflections.Reflections;
 import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBindingPostProcessor;
+import org.springframework.boot.context.properties.bind.BindMethod;
+import org.springframework.boot.context.properties.bind.BindConstructorProvider;
 import org.springframework.boot.context.properties.bind.Bindable;
 import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.boot.origin.OriginTrackedValue;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.ConfigurableEnvironment;
-import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.env.MutablePropertySources;
-import org.springframework.core.env.PropertySource;
+import org.springframework.core.metrics.ApplicationStartup;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.Parameter;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 import static io.github.olufemithompson.multibeanconfig.Constants.CLASS_CONFIG_PARAM;
-import static io.github.olufemithompson.multibeanconfig.Constants.CUSTOM_CONFIG_PROPERTY_SOURCE;
+import static io.github.olufemithompson.multibeanconfig.Constants.CORES_CONFIG_VALUE;
+import static io.github.olufemithompson.multibeanconfig.Constants.EXECUTOR_BEAN_NAME_SUFFIX;
+import static io.github.olufemithompson.multibeanconfig.Constants.EXECUTOR_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.IMPORT_DIR_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.LAZY_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.LAZY_TARGET_BEAN_NAME_PREFIX;
+import static io.github.olufemithompson.multibeanconfig.Constants.METRICS_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.CACHE_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.GROUP_BEAN_NAME_PREFIX;
+import static io.github.olufemithompson.multibeanconfig.Constants.GROUP_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEANS_BEAN_NAME_PREFIX;
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_SUPPLIED_ATTRIBUTE;
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_PROPERTY_SOURCE;
+import static io.github.olufemithompson.multibeanconfig.Constants.PARALLELISM_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.MAX_REPLICAS;
 import static io.github.olufemithompson.multibeanconfig.Constants.PARENT_CONFIG_NAME;
+import static io.github.olufemithompson.multibeanconfig.Constants.REPLICAS_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.SHUTDOWN_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.WARMUP_TIMEOUT_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.Constants.RESERVED_CONFIG_PARAMS;
+import static io.github.olufemithompson.multibeanconfig.MultiBeanStatistics.Phase.BIND;
+import static io.github.olufemithompson.multibeanconfig.MultiBeanStatistics.Phase.PROPERTIES;
+import static io.github.olufemithompson.multibeanconfig.MultiBeanStatistics.Phase.SCAN;
 import static io.github.olufemithompson.multibeanconfig.Utils.extractDataFromMap;
 import static io.github.olufemithompson.multibeanconfig.Utils.flatten;
-import static io.github.olufemithompson.multibeanconfig.Utils.formatConfigProperties;
 import static io.github.olufemithompson.multibeanconfig.Utils.generateNestedMap;
 import static io.github.olufemithompson.multibeanconfig.Utils.getFirstKey;
+import static io.github.olufemithompson.multibeanconfig.Utils.getNestedValue;
 import static io.github.olufemithompson.multibeanconfig.Utils.kebabToCamelCase;
-import static io.github.olufemithompson.multibeanconfig.Utils.mergeMissingKeys;
 
 /**
  * A {@link BeanDefinitionRegistryPostProcessor} that enables the registration of multiple beans
@@ -45,11 +94,13 @@ import static io.github.olufemithompson.multibeanconfig.Utils.mergeMissingKeys;
  * <br>
  * <br>
  * This class provides a flexible approach to managing multiple instances of the same
- * bean type by allowing unique configurations for each bean instance. It leverages
- * reflection to locate classes annotated with the custom {@link MultiBean} annotation and
- * processes configuration dependencies marked by {@link ConfigurationProperties} and {@link Value}
- * annotations. This allows each bean to be configured with its own specific settings
- * based on property values specified in the application properties.
+ * bean type by allowing unique configurations for each bean instance. It reads the
+ * {@link MultiBeanIndex} written at compile time by {@link MultiBeanIndexProcessor} to locate
+ * classes annotated with the custom {@link MultiBean} annotation, falling back to a scan of the
+ * application packages when no index is present, and processes configuration dependencies
+ * marked by {@link ConfigurationProperties} and {@link Value} annotations. This allows each
+ * bean to be configured with its own specific settings based on property values specified
+ * in the application properties.
  *
  * <br>
  * <br>
@@ -66,6 +117,29 @@ import static io.github.olufemithompson.multibeanconfig.Utils.mergeMissingKeys;
  *  <li>
  *      Ensuring that each configuration dependency is bound to the corresponding properties.
  *  </li>
+ *  <li>
+ *      Deferring the binding and creation of instances declared with {@code lazy: true} or {@code lazy: proxy}
+ *      until they are first used.
+ *  </li>
+ *  <li>
+ *      Rebinding, through {@link MultiBeanRefresher}, only the instances whose configuration changed at runtime.
+ *  </li>
+ *  <li>
+ *      Registering and removing instances at runtime through {@link MultiBeanRegistrar}.
+ *  </li>
+ *  <li>
+ *      Expanding entries declared with {@code replicas} into identical instances, picked through a {@link MultiBeanSelector}.
+ *  </li>
+ *  <li>
+ *      Registering the instances created by a {@link MultiBeanFactory} under the name of their entry and by their own type.
+ *  </li>
+ *  <li>
+ *      Adding the entries of the files in {@code multibean.import-dir}, one file per instance, see {@link MultiBeanImports}.
+ *  </li>
+ *  <li>
+ *      Registering a bean per group declared under {@code multibean.group}, hedging and failing over its calls
+ *      across the members, see {@link MultiBeanGroup}.
+ *  </li>
  * </ul>
  *
  * Ideal for scenarios requiring simultaneous use of multiple beans with different configurations,
@@ -74,36 +148,81 @@ import static io.github.olufemithompson.multibeanconfig.Utils.mergeMissingKeys;
  */
 @Configuration
 class MultiBeanDefinitionPostProcessor implements BeanDefinitionRegistryPostProcessor, ApplicationContextAware{
-    private Map<String, Object> applicationProperties = new HashMap<>();
-
-    Map<String, Object> flattenedProperties = new HashMap<>();
+    private MultiBeanPropertyTree applicationProperties;
 
     private  ConfigurableEnvironment environment;
 
+    private ClassLoader classLoader;
+
+    private MultiBeanPropertySource propertySource;
+
+    private MultiBeanConfigRegistry configRegistry;
+
+    private MultiBeanStatistics statistics = new MultiBeanStatistics(ApplicationStartup.DEFAULT);
+
+    private MultiBeanInstance.Initialization defaultInitialization = MultiBeanInstance.Initialization.EAGER;
+
+    private final Map<String, MultiBeanMetadata> resolvedMultiBeans = new LinkedHashMap<>();
+
+    private Map<String, MultiBeanMetadata> boundMultiBeans = Map.of();
+
+    private Map<String, List<Object>> configSnapshots = Map.of();
+
+    private final Map<String, Map<String, Object>> runtimeConfigs = new ConcurrentHashMap<>();
+
+    private final Map<String, MultiBeanInstance> runtimeInstances = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, MultiBeanMetadata> runtimeMetadata = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, MultiBeans<?>> handles = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Object> multiBeanProperties;
+
+    private Path importDirectory;
+
+    private final MultiBeanImports imports = new MultiBeanImports();
+
+    private Map<String, Object> importedProperties = Map.of();
+
+    private Map<String, List<String>> replicaGroups = Map.of();
+
+    private Set<String> coreReplicaGroups = Set.of();
+
+    /**
+     * Runtime registrations share the read lock, a refresh takes the write lock.
+     */
+    private final ReadWriteLock runtimeLock = new ReentrantReadWriteLock();
+
+    MultiBeanDefinitionPostProcessor() {
+    }
+
+    MultiBeanDefinitionPostProcessor(ConfigurableEnvironment environment, ClassLoader classLoader) {
+        this.environment = environment;
+        this.classLoader = classLoader;
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.environment = (ConfigurableEnvironment) applicationContext.getEnvironment();
+        this.classLoader = applicationContext.getClassLoader();
     }
 
     @Override
     public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
 
-        parseProperties();
-
+        ConfigurationPropertiesBindingPostProcessor.register(registry);
+        statistics = MultiBeanStatistics.register(registry);
+        statistics.run(PROPERTIES, null, null, this::parseProperties);
+        configRegistry = MultiBeanConfigRegistry.register(registry);
 
-
-        Reflections reflections = new Reflections( new ConfigurationBuilder()
-                .setUrls(ClasspathHelper.forJavaClassPath()));
-
-        Set<Class<?>> multipleBeans = reflections.getTypesAnnotatedWith(MultiBean.class);
+        Map<String, MultiBeanMetadata> multipleBeans = statistics.record(SCAN, null, null, () -> findMultiBeans(registry));
         if(multipleBeans.size() > 0){
-            Map<String, Object>  multipleBeanProperties = extractDataFromMap(
-                    "no 'multibean' section defined in your application properties",
-                    PARENT_CONFIG_NAME,
-                    applicationProperties);
-            Set<String> beanNames  = multipleBeanProperties.keySet();
+            Map<String, Object>  multipleBeanProperties = getMultiBeanProperties();
 
-            for(String beanName: beanNames){
+            for(String beanName: multipleBeanProperties.keySet()){
+                if(RESERVED_CONFIG_PARAMS.contains(beanName)){
+                    continue;
+                }
                 Map<String, Object> beanConfig = extractDataFromMap(
                         null,
                         beanName,
@@ -114,156 +233,1215 @@ class MultiBeanDefinitionPostProcessor implements BeanDefinitionRegistryPostProc
                     throw new RuntimeException(String.format("Declared bean : %s should have a %s property", CLASS_CONFIG_PARAM, beanName));
                 }
                 String configuredBeanClassName = beanConfig.get(CLASS_CONFIG_PARAM).toString();
-                boolean foundClass = false;
-                for (Class<?> multipleBeanClass : multipleBeans) {
-                    String beanClassName = multipleBeanClass.getSimpleName();
-                    if(configuredBeanClassName.equals(beanClassName)){
-                        foundClass = true;
-
-                        // Get dependencies annotated with @ConfigurationProperties
-                        Map<String, String> configDependencies = registerConfigDependencies(
-                                beanName,
-                                multipleBeanClass,
-                                beanConfig,
-                                registry
-                        );
+                MultiBeanMetadata multipleBean = multipleBeans.get(configuredBeanClassName);
+                if(multipleBean == null){
+                    throw new RuntimeException(String.format("Cannot find Class %s for declared bean %s",configuredBeanClassName, beanName));
+                }
+                resolvedMultiBeans.put(beanName, multipleBean);
+            }
+
+            List<MultiBeanInstance> instances = statistics.record(BIND, "beans", resolvedMultiBeans.size(),
+                    () -> prepareMultiBeans(resolvedMultiBeans, true));
+            for(MultiBeanInstance instance: instances){
+                registerMultiBean(registry, instance);
+            }
+            registerHandles(registry, resolvedMultiBeans);
+            registerSelectors(registry, resolvedMultiBeans);
+            registerGroups(registry, resolvedMultiBeans);
+            MultiBeanRefresher.register(registry, this, environment);
+            MultiBeanRegistrar.register(registry, this);
+            MultiBeanWarmer.register(registry, this, environment);
+            MultiBeanDrainer.register(registry, this, environment);
+        }
 
-                        //Register properties annotation with @Value
-                        registerValueAnnotatedFieldDependencies(beanName, multipleBeanClass);
+    }
 
-                        // Register the main bean
-                        registerBeanDefinition(
-                                registry,
-                                multipleBeanClass,
-                                beanName,
-                                configDependencies
-                        );
+    /**
+     * The {@link MultiBean} class resolved for each declared bean, in declaration order.
+     * Used by {@link MultiBeanAotProcessor} to generate {@link #registerResolvedMultiBeans(BeanDefinitionRegistry, Map)} calls.
+     */
+    Map<String, MultiBeanMetadata> getResolvedMultiBeans() {
+        return resolvedMultiBeans;
+    }
 
+    /**
+     * Binds the configuration of beans whose definitions were generated ahead of time.
+     * <br>
+     * <br>
+     * Runs the same config and {@link Value} registration as {@link #postProcessBeanDefinitionRegistry(BeanDefinitionRegistry)},
+     * without locating classes. Only the config beans and executors are registered, since their instances
+     * are supplied at runtime and cannot be generated ahead of time.
+     */
+    void registerResolvedMultiBeans(BeanDefinitionRegistry registry, Map<String, MultiBeanMetadata> multiBeans) {
+        statistics = MultiBeanStatistics.register(registry);
+        statistics.run(PROPERTIES, null, null, this::parseProperties);
+        configRegistry = MultiBeanConfigRegistry.register(registry);
+        List<MultiBeanInstance> instances = statistics.record(BIND, "beans", multiBeans.size(),
+                () -> prepareMultiBeans(multiBeans, false));
+        for(MultiBeanInstance instance: instances){
+            boolean lazy = instance.initialization() != MultiBeanInstance.Initialization.EAGER;
+            for(MultiBeanInstance.BoundConfig config: instance.configs()){
+                registry.registerBeanDefinition(
+                        config.beanName(),
+                        buildConfigBeanDefinition(config.configClass(), config.beanName(), lazy));
+            }
+            if(instance.executor() != null){
+                registry.registerBeanDefinition(instance.executorBeanName(), buildExecutorBeanDefinition(instance));
+            }
+            registerMultiBean(null, instance);
+        }
+        registerHandles(registry, multiBeans);
+        registerSelectors(registry, multiBeans);
+        registerGroups(registry, multiBeans);
+        MultiBeanRefresher.register(registry, this, environment);
+        MultiBeanRegistrar.register(registry, this);
+        MultiBeanWarmer.register(registry, this, environment);
+        MultiBeanDrainer.register(registry, this, environment);
+    }
+
+    /**
+     * Rebinds the declared beans whose configuration changed in the environment, and returns their names.
+     * <br>
+     * <br>
+     * The environment is read again, and the {@code multibean.<bean>} entry and default sections of every
+     * bean are compared with the ones it was last bound from. The per-bean configs of every bean are collected
+     * into a new {@link MultiBeanPropertySource}, which replaces the previous one in the environment in a single
+     * step, so a lazy config bound meanwhile sees either the previous or the new configuration of its bean,
+     * never the defaults alone. Only the beans that differ are bound again, and their new configs and
+     * {@link Value} values are published in {@link MultiBeanConfigRegistry} before any instance is touched. Then each
+     * refreshed instance is dropped together with its config beans, so its proxy creates a new one on the next
+     * call. Calls already running keep the previous instance.
+     * <br>
+     * <br>
+     * Only {@code lazy: proxy} instances can be swapped whole while other threads call them, so the refresh is
+     * rejected, and the previous configuration kept, when any other instance changed. It is rejected as well
+     * when the {@code lazy} setting of a bean changed, when a changed bean takes a {@link Value} constructor
+     * argument, or when another bean was created with one of its config beans. Applying those changes needs
+     * a restart.
+     * <br>
+     * <br>
+     * Entries added to or removed from the {@code multibean} section or {@code multibean.import-dir} are ignored,
+     * and so are instances registered through {@link MultiBeanRegistrar}.
+     */
+    Set<String> refresh(DefaultListableBeanFactory beanFactory){
+        runtimeLock.writeLock().lock();
+        try {
+            return refreshMultiBeans(beanFactory);
+        } finally {
+            runtimeLock.writeLock().unlock();
+        }
+    }
+
+    private Set<String> refreshMultiBeans(DefaultListableBeanFactory beanFactory){
+        Map<String, List<Object>> previousSnapshots = configSnapshots;
+        Map<String, MultiBeanInstance.Initialization> previousInitializations = new HashMap<>();
+        for(String beanName: boundMultiBeans.keySet()){
+            previousInitializations.put(beanName, getInitialization(beanName));
+        }
+        MultiBeanPropertyTree previousProperties = applicationProperties;
+        Map<String, Object> previousMultiBeanProperties = getMultiBeanProperties();
+        MultiBeanInstance.Initialization previousDefaultInitialization = defaultInitialization;
+        Path previousImportDirectory = importDirectory;
+        Map<String, Object> previousImportedProperties = importedProperties;
+        Map<String, List<String>> previousReplicaGroups = replicaGroups;
+
+        MultiBeanPropertySource nextPropertySource;
+        Map<String, Map<String, Object>> changed = new LinkedHashMap<>();
+        Map<String, List<Object>> snapshots = new HashMap<>(previousSnapshots);
+        try {
+            statistics.run(PROPERTIES, null, null, this::parseProperties);
+            Map<String, Object>  multipleBeanProperties = getMultiBeanProperties();
+            nextPropertySource = new MultiBeanPropertySource(applicationProperties);
+            for(Map.Entry<String, MultiBeanMetadata> entry: boundMultiBeans.entrySet()){
+                String beanName = entry.getKey();
+                MultiBeanMetadata multipleBean = entry.getValue();
+                if(!multipleBeanProperties.containsKey(beanName)){
+                    continue;
+                }
+                MultiBeanInstance.Initialization initialization = getInitialization(beanName);
+                if(initialization != previousInitializations.get(beanName)){
+                    throw new RuntimeException(String.format(
+                            "Cannot refresh declared bean %s, its %s setting changed from %s to %s",
+                            beanName, LAZY_CONFIG_PARAM, previousInitializations.get(beanName), initialization));
+                }
+                Map<String, Object> beanConfig = extractDataFromMap(null, beanName, multipleBeanProperties);
+                registerBeanConfigs(nextPropertySource, beanName, multipleBean, beanConfig);
+                List<Object> snapshot = getConfigSnapshot(beanName, multipleBean);
+                if(!snapshot.equals(previousSnapshots.get(beanName))){
+                    if(initialization != MultiBeanInstance.Initialization.PROXY){
+                        throw new RuntimeException(String.format(
+                                "Cannot refresh declared bean %s, only beans declared with %s: proxy can be refreshed",
+                                beanName, LAZY_CONFIG_PARAM));
                     }
-                    if(!foundClass){
-                        throw new RuntimeException(String.format("Cannot find Class %s for declared bean %s",configuredBeanClassName, beanName));
+                    String parameter = getFixedConstructorParameter(multipleBean);
+                    if(parameter != null){
+                        throw new RuntimeException(String.format(
+                                "Cannot refresh declared bean %s, its constructor parameter %s keeps the configuration it was created with",
+                                beanName, parameter));
                     }
+                    String dependentBean = getConfigDependentBean(beanFactory, beanName, multipleBean);
+                    if(dependentBean != null){
+                        throw new RuntimeException(String.format(
+                                "Cannot refresh declared bean %s, bean %s injects one of its configs and would keep the previous one",
+                                beanName, dependentBean));
+                    }
+                    changed.put(beanName, beanConfig);
+                    snapshots.put(beanName, snapshot);
                 }
             }
+        } catch (RuntimeException e) {
+            applicationProperties = previousProperties;
+            multiBeanProperties = previousMultiBeanProperties;
+            defaultInitialization = previousDefaultInitialization;
+            importDirectory = previousImportDirectory;
+            importedProperties = previousImportedProperties;
+            replicaGroups = previousReplicaGroups;
+            throw e;
         }
+        runtimeInstances.forEach((beanName, instance) -> {
+            nextPropertySource.registerRuntimeBean(beanName);
+            registerBeanConfigs(nextPropertySource, beanName, instance.metadata(), runtimeConfigs.get(beanName));
+        });
+        publishPropertySource(nextPropertySource);
 
+        Set<String> refreshed = new LinkedHashSet<>();
+        Map<ConfigKey, Object> boundConfigs = new HashMap<>();
+        changed.forEach((beanName, beanConfig) -> {
+            MultiBeanInstance instance = prepareMultiBean(
+                    beanName, getInitialization(beanName), boundMultiBeans.get(beanName), beanConfig, false, boundConfigs);
+            registerMultiBean(null, instance);
+            swapMultiBean(beanFactory, instance);
+            refreshed.add(beanName);
+        });
+        configSnapshots = snapshots;
+        return refreshed;
     }
 
-    private Map<String, String> registerConfigDependencies(
+    /**
+     * Returns the first {@link Value} constructor parameter of a bean, which is fixed in its bean definition
+     * and keeps its previous value after a refresh, or {@code null}.
+     */
+    private static String getFixedConstructorParameter(MultiBeanMetadata multipleBean){
+        for(List<MultiBeanMetadata.ConstructorParameter> constructor: multipleBean.getConstructors()){
+            for(MultiBeanMetadata.ConstructorParameter parameter: constructor){
+                if(parameter.propertyKey() != null){
+                    return parameter.name();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a bean, other than the instance itself, that was created with one of the config beans of
+     * the given instance, or {@code null}. Such a bean would keep the previous config after a refresh.
+     */
+    private static String getConfigDependentBean(DefaultListableBeanFactory beanFactory,
+                                                 String beanName,
+                                                 MultiBeanMetadata multipleBean){
+        String formattedBeanName = kebabToCamelCase(beanName);
+        for(MultiBeanMetadata.ConfigDependency configDependency: multipleBean.getConfigDependencies()){
+            String configBeanName = formattedBeanName + configDependency.configClass().getSimpleName();
+            for(String dependentBean: beanFactory.getDependentBeans(configBeanName)){
+                if(!dependentBean.equals(LAZY_TARGET_BEAN_NAME_PREFIX + formattedBeanName)){
+                    return dependentBean;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Binds and registers a {@link MultiBean} instance declared at runtime, and unless it is lazy,
+     * creates it. On failure, whatever was registered is removed again.
+     */
+    void registerRuntimeMultiBean(DefaultListableBeanFactory beanFactory,
+                                  String beanName,
+                                  Class<?> beanClass,
+                                  Map<String, ?> config){
+        if(!beanClass.isAnnotationPresent(MultiBean.class)){
+            throw new RuntimeException(String.format("Class %s for declared bean %s is not annotated with @MultiBean", beanClass.getName(), beanName));
+        }
+        Map<String, Object> beanConfig = generateNestedMap(flatten(new LinkedHashMap<String, Object>(config), ""));
+        runtimeLock.readLock().lock();
+        try {
+            if(boundMultiBeans.containsKey(beanName)
+                    || beanFactory.containsBeanDefinition(kebabToCamelCase(beanName))
+                    || runtimeConfigs.putIfAbsent(beanName, beanConfig) != null){
+                throw new RuntimeException(String.format("A bean named %s is already registered", beanName));
+            }
+            MultiBeanMetadata multipleBean = runtimeMetadata.computeIfAbsent(beanClass, MultiBeanMetadata::introspect);
+            MultiBeanInstance instance = null;
+            try {
+                getPropertySource().registerRuntimeBean(beanName);
+                registerBeanConfigs(getPropertySource(), beanName, multipleBean, beanConfig);
+                instance = prepareMultiBean(beanName, getInitialization(beanName), multipleBean, beanConfig, true, null);
+                registerMultiBean(beanFactory, instance);
+                runtimeInstances.put(beanName, instance);
+                getHandle(beanFactory, multipleBean.getInstanceType()).add(beanName);
+                if(instance.initialization() == MultiBeanInstance.Initialization.EAGER){
+                    beanFactory.getBean(instance.beanName());
+                }
+            } catch (RuntimeException e) {
+                runtimeInstances.remove(beanName);
+                getHandle(beanFactory, multipleBean.getInstanceType()).remove(beanName);
+                statistics.removeInstance(beanName);
+                if(instance != null){
+                    removeMultiBean(beanFactory, instance);
+                }
+                getPropertySource().removeBeanConfigs(beanName);
+                runtimeConfigs.remove(beanName);
+                throw e;
+            }
+        } finally {
+            runtimeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Destroys and removes an instance registered through {@link #registerRuntimeMultiBean}.
+     *
+     * @return {@code false} when no such instance was registered at runtime
+     */
+    boolean removeRuntimeMultiBean(DefaultListableBeanFactory beanFactory, String beanName){
+        runtimeLock.readLock().lock();
+        try {
+            MultiBeanInstance instance = runtimeInstances.remove(beanName);
+            if(instance == null){
+                return false;
+            }
+            getHandle(beanFactory, instance.metadata().getInstanceType()).remove(beanName);
+            statistics.removeInstance(beanName);
+            removeMultiBean(beanFactory, instance);
+            getPropertySource().removeBeanConfigs(beanName);
+            runtimeConfigs.remove(beanName);
+            return true;
+        } finally {
+            runtimeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the bean definitions of an instance, which destroys the created singletons, and its registry entries.
+     */
+    private void removeMultiBean(DefaultListableBeanFactory beanFactory, MultiBeanInstance instance){
+        List<String> beanNames = new ArrayList<>();
+        beanNames.add(instance.beanName());
+        beanNames.add(instance.targetBeanName());
+        List<String> configBeanNames = new ArrayList<>();
+        Set<String> fieldNames = new LinkedHashSet<>(instance.values().keySet());
+        for(MultiBeanInstance.BoundConfig config: instance.configs()){
+            configBeanNames.add(config.beanName());
+            fieldNames.add(config.fieldName());
+        }
+        beanNames.addAll(configBeanNames);
+        if(instance.executor() != null){
+            beanNames.add(instance.executorBeanName());
+            fieldNames.addAll(instance.metadata().getExecutorFields());
+        }
+        for(String name: beanNames){
+            if(beanFactory.containsBeanDefinition(name)){
+                beanFactory.removeBeanDefinition(name);
+            }
+        }
+        configRegistry.unregister(instance.targetBeanName(), configBeanNames, fieldNames);
+    }
+
+    /**
+     * Drops a refreshed {@code lazy: proxy} instance and its config beans, so they are created again,
+     * from the new configs, on the next call through the proxy.
+     */
+    private void swapMultiBean(DefaultListableBeanFactory beanFactory, MultiBeanInstance instance){
+        for(MultiBeanInstance.BoundConfig config: instance.configs()){
+            beanFactory.destroySingleton(config.beanName());
+        }
+        beanFactory.destroySingleton(instance.targetBeanName());
+    }
+
+    /**
+     * The sections a bean is bound from: its own {@code multibean.<bean>} entry and the default section
+     * of each of its configs. Property values compare by value, regardless of their origin.
+     */
+    private List<Object> getConfigSnapshot(String beanName, MultiBeanMetadata multipleBean){
+        List<Object> snapshot = new ArrayList<>();
+        snapshot.add(getMultiBeanProperties().get(beanName));
+        for (MultiBeanMetadata.ConfigDependency configDependency : multipleBean.getConfigDependencies()) {
+            snapshot.add(applicationProperties.getSubtree(getFirstKey(configDependency.prefix())));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Resolves the {@link MultiBean} classes, keyed by both their simple and fully qualified names.
+     * <br>
+     * <br>
+     * The compile-time index is used when present. The classpath is only scanned when no index exists,
+     * or when a configured {@code class} is missing from every index found, which happens when an index
+     * shipped in a dependency is on the classpath but the application itself was compiled without the
+     * annotation processor. The packages registered through {@link AutoConfigurationPackages} are scanned,
+     * and only when none are known is the whole classpath scanned.
+     */
+    private Map<String, MultiBeanMetadata> findMultiBeans(BeanDefinitionRegistry registry){
+        Collection<MultiBeanMetadata> multiBeans = MultiBeanIndex.load(classLoader);
+        if(multiBeans == null){
+            multiBeans = scanMultiBeans(registry);
+        }else if(!indexes(multiBeans, getConfiguredClassNames())){
+            Map<Class<?>, MultiBeanMetadata> merged = new LinkedHashMap<>();
+            for(MultiBeanMetadata multiBean: multiBeans){
+                merged.put(multiBean.getBeanClass(), multiBean);
+            }
+            for(MultiBeanMetadata multiBean: scanMultiBeans(registry)){
+                merged.putIfAbsent(multiBean.getBeanClass(), multiBean);
+            }
+            multiBeans = merged.values();
+        }
+        Map<String, MultiBeanMetadata> multiBeansByName = new HashMap<>();
+        for(MultiBeanMetadata multiBean: multiBeans){
+            multiBeansByName.put(multiBean.getBeanClass().getSimpleName(), multiBean);
+            multiBeansByName.put(multiBean.getBeanClass().getName(), multiBean);
+        }
+        return multiBeansByName;
+    }
+
+    private Collection<MultiBeanMetadata> scanMultiBeans(BeanDefinitionRegistry registry){
+        ConfigurationBuilder configuration = new ConfigurationBuilder();
+        if(registry instanceof BeanFactory beanFactory && AutoConfigurationPackages.has(beanFactory)){
+            FilterBuilder packageFilter = new FilterBuilder();
+            for(String basePackage: AutoConfigurationPackages.get(beanFactory)){
+                configuration.addUrls(ClasspathHelper.forPackage(basePackage, classLoader));
+                packageFilter.includePackage(basePackage);
+            }
+            configuration.filterInputsBy(packageFilter);
+        }else{
+            configuration.setUrls(ClasspathHelper.forJavaClassPath());
+        }
+        Reflections reflections = new Reflections(configuration);
+        List<MultiBeanMetadata> multiBeans = new ArrayList<>();
+        for(Class<?> multipleBeanClass : reflections.getTypesAnnotatedWith(MultiBean.class)){
+            multiBeans.add(MultiBeanMetadata.introspect(multipleBeanClass));
+        }
+        return multiBeans;
+    }
+
+    /**
+     * Whether every configured class name is listed, by simple or fully qualified name, in the given metadata.
+     */
+    private static boolean indexes(Collection<MultiBeanMetadata> multiBeans, Set<String> classNames){
+        Set<String> indexed = new HashSet<>();
+        for(MultiBeanMetadata multiBean: multiBeans){
+            indexed.add(multiBean.getBeanClass().getSimpleName());
+            indexed.add(multiBean.getBeanClass().getName());
+        }
+        return indexed.containsAll(classNames);
+    }
+
+    /**
+     * The {@code class} declared by every entry of the {@code multibean} section.
+     */
+    private Set<String> getConfiguredClassNames(){
+        Map<String, Object> multipleBeanProperties = getMultiBeanProperties();
+        Set<String> classNames = new HashSet<>();
+        for(String beanName: multipleBeanProperties.keySet()){
+            if(RESERVED_CONFIG_PARAMS.contains(beanName)){
+                continue;
+            }
+            Map<String, Object> beanConfig = extractDataFromMap(null, beanName, multipleBeanProperties);
+            Object className = beanConfig.get(CLASS_CONFIG_PARAM);
+            if(className != null){
+                classNames.add(className.toString());
+            }
+        }
+        return classNames;
+    }
+
+
+    /**
+     * Binds the configuration of every declared bean.
+     * <br>
+     * <br>
+     * The per-bean configs are first registered in the {@link MultiBeanPropertySource}, one bean at a time.
+     * Binding and building the bean definitions only reads the environment, so when {@code multibean.parallelism}
+     * is greater than one it runs concurrently on a dedicated {@link ForkJoinPool}. The returned list keeps the
+     * declaration order, so registration stays deterministic.
+     * <br>
+     * <br>
+     * Beans declaring the same section for a config share one bound object, see {@link ConfigKey}.
+     */
+    private List<MultiBeanInstance> prepareMultiBeans(Map<String, MultiBeanMetadata> multiBeans,
+                                                     boolean buildDefinitions){
+        Map<String, Object>  multipleBeanProperties = getMultiBeanProperties();
+        List<Callable<MultiBeanInstance>> tasks = new ArrayList<>();
+        Map<String, List<Object>> snapshots = new HashMap<>();
+        Map<ConfigKey, Object> boundConfigs = new ConcurrentHashMap<>();
+        multiBeans.forEach((beanName, multipleBean) -> {
+            Map<String, Object> beanConfig = extractDataFromMap(
+                    null,
+                    beanName,
+                    multipleBeanProperties
+            );
+            registerBeanConfigs(getPropertySource(), beanName, multipleBean, beanConfig);
+            snapshots.put(beanName, getConfigSnapshot(beanName, multipleBean));
+            MultiBeanInstance.Initialization initialization = getInitialization(beanName);
+            tasks.add(() -> prepareMultiBean(
+                    beanName, initialization, multipleBean, beanConfig, buildDefinitions, boundConfigs));
+        });
+        boundMultiBeans = multiBeans;
+        configSnapshots = snapshots;
+
+        int parallelism = getParallelism();
+        if(parallelism <= 1 || tasks.size() <= 1){
+            List<MultiBeanInstance> instances = new ArrayList<>();
+            for(Callable<MultiBeanInstance> task: tasks){
+                instances.add(call(task));
+            }
+            return instances;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(
+                Math.min(parallelism, tasks.size()),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                    thread.setContextClassLoader(classLoader);
+                    return thread;
+                },
+                null,
+                false);
+        try {
+            return pool.submit(() -> tasks.parallelStream().map(this::call).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while binding multibean configurations", e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException runtimeException){
+                throw runtimeException;
+            }
+            throw new RuntimeException("Unable to bind multibean configurations", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private MultiBeanInstance call(Callable<MultiBeanInstance> task){
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the {@code warmup-timeout} declared for a bean, or {@code null}.
+     */
+    Duration getWarmupTimeout(String beanName){
+        Object timeout = getBeanProperty(beanName, WARMUP_TIMEOUT_CONFIG_PARAM);
+        if(timeout == null){
+            return null;
+        }
+        try {
+            return DurationStyle.detectAndParse(timeout.toString());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(String.format(
+                    "Invalid %s value '%s' for declared bean %s", WARMUP_TIMEOUT_CONFIG_PARAM, timeout, beanName), e);
+        }
+    }
+
+    /**
+     * Reads {@code multibean.<bean>.metrics}, {@code false} by default.
+     */
+    private boolean isMetricsEnabled(String beanName){
+        Object metrics = getBeanProperty(beanName, METRICS_CONFIG_PARAM);
+        if(metrics == null){
+            return false;
+        }
+        String value = metrics.toString().trim();
+        if(!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)){
+            throw new RuntimeException(String.format(
+                    "Invalid %s value '%s' for declared bean %s", METRICS_CONFIG_PARAM, metrics, beanName));
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Reads {@code multibean.<bean>.lazy}, falling back to the global {@code multibean.lazy}.
+     */
+    private MultiBeanInstance.Initialization getInitialization(String beanName){
+        Object lazy = getBeanProperty(beanName, LAZY_CONFIG_PARAM);
+        return lazy == null
+                ? defaultInitialization
+                : MultiBeanInstance.Initialization.of(lazy.toString());
+    }
+
+    private int getParallelism(){
+        String parallelism = environment.getProperty(PARENT_CONFIG_NAME+"."+PARALLELISM_CONFIG_PARAM);
+        if(parallelism == null || parallelism.isBlank()){
+            return 1;
+        }
+        if(CORES_CONFIG_VALUE.equals(parallelism.trim())){
+            return Runtime.getRuntime().availableProcessors();
+        }
+        return Integer.parseInt(parallelism.trim());
+    }
+
+    /**
+     * Registers the per-bean configuration of every {@link ConfigurationProperties} dependency in the
+     * {@link MultiBeanPropertySource}, so that it can be bound under {@code multibean.<bean>.<prefix>}.
+     */
+    private void registerBeanConfigs(MultiBeanPropertySource target,
+                                     String beanName,
+                                     MultiBeanMetadata multipleBean,
+                                     Map<String, Object> beanConfig){
+        for (MultiBeanMetadata.ConfigDependency configDependency : multipleBean.getConfigDependencies()) {
+            String key = getFirstKey(configDependency.prefix());
+            // every per-bean configuration falls back to a default one
+            if(applicationProperties.getSubtree(key) == null){
+                throw new RuntimeException(String.format("Could not load data. Expecting key : %s", key));
+            }
+            if(beanConfig.containsKey(key)){
+                Map<String, Object> beanAppConfig = extractDataFromMap(null,key, beanConfig);
+                target.registerBeanConfig(beanName, key, beanAppConfig);
+            }
+        }
+    }
+
+    private MultiBeanInstance prepareMultiBean(String beanName,
+                                               MultiBeanInstance.Initialization initialization,
+                                               MultiBeanMetadata multipleBean,
+                                               Map<String, Object> beanConfig,
+                                               boolean buildDefinition,
+                                               Map<ConfigKey, Object> boundConfigs){
+        long start = System.nanoTime();
+        List<MultiBeanInstance.BoundConfig> configs = bindConfigDependencies(
+                beanName, initialization, multipleBean, beanConfig, buildDefinition, boundConfigs);
+        Map<String, Object> values = resolveValueAnnotatedFieldDependencies(beanName, multipleBean);
+        MultiBeanExecutor.Settings executor = bindSection(beanName, beanConfig, EXECUTOR_CONFIG_PARAM, MultiBeanExecutor.Settings.class);
+        BeanDefinition beanDefinition = null;
+        if(buildDefinition){
+            Map<String, String> configBeanReference = new HashMap<>();
+            for(MultiBeanInstance.BoundConfig config: configs){
+                configBeanReference.put(config.configClass().getSimpleName(), config.beanName());
+            }
+            beanDefinition = buildBeanDefinition(
+                    multipleBean.getBeanClass(),
+                    multipleBean.getConstructors(),
+                    beanName,
+                    configBeanReference,
+                    executor != null ? kebabToCamelCase(beanName) + EXECUTOR_BEAN_NAME_SUFFIX : null
+            );
+            beanDefinition.setLazyInit(initialization != MultiBeanInstance.Initialization.EAGER);
+            if(multipleBean.isFactory()){
+                // lets the created type be matched without instantiating the factory
+                beanDefinition.setAttribute(FactoryBean.OBJECT_TYPE_ATTRIBUTE, multipleBean.getInstanceType());
+            }
+        }
+        MultiBeanInstance instance = new MultiBeanInstance(
+                beanName, initialization, multipleBean, configs, values, executor, beanDefinition);
+        statistics.recordInstance(instance, System.nanoTime() - start, getConfigSource(beanName));
+        if(isMetricsEnabled(beanName)){
+            statistics.addCallMetrics(beanName, instance.targetBeanName());
+        }else{
+            statistics.removeCallMetrics(beanName);
+        }
+        MultiBeanCache.Settings cache = bindSection(beanName, beanConfig, CACHE_CONFIG_PARAM, MultiBeanCache.Settings.class);
+        if(cache != null){
+            if(MultiBeanCache.getCacheableMethods(multipleBean.getInstanceType()).isEmpty()){
+                throw new RuntimeException(String.format(
+                        "Declared bean %s has a %s block, but class %s has no @%s method", beanName, CACHE_CONFIG_PARAM,
+                        multipleBean.getInstanceType().getName(), MultiBeanCacheable.class.getSimpleName()));
+            }
+            statistics.addCache(beanName, instance.targetBeanName(), cache);
+        }else{
+            statistics.removeCache(beanName);
+        }
+        return instance;
+    }
+
+    /**
+     * Describes where a bean was declared: the origin of its {@code class} entry, e.g.
+     * {@code class path resource [application.yml] - 9:12}, or {@link MultiBeanRegistrar}.
+     */
+    private String getConfigSource(String beanName){
+        if(runtimeConfigs.containsKey(beanName)){
+            return MultiBeanRegistrar.class.getSimpleName();
+        }
+        Object value = getNestedValue(getBeanConfig(beanName), CLASS_CONFIG_PARAM);
+        return value instanceof OriginTrackedValue originTrackedValue && originTrackedValue.getOrigin() != null
+                ? originTrackedValue.getOrigin().toString()
+                : null;
+    }
+
+    /**
+     * Binds the {@link ConfigurationProperties} dependencies of a bean. The configs of a lazy bean are
+     * returned as {@link MultiBeanConfigRegistry.DeferredConfig}s, bound when the config bean is created.
+     *
+     * @param boundConfigs  the configs already bound in the same pass, reused by beans declaring the same
+     *                      section for an immutable config class, or {@code null} to bind every config on its own
+     */
+    private List<MultiBeanInstance.BoundConfig> bindConfigDependencies(
             String beanName,
-            Class<?> multipleBeanClass,
+            MultiBeanInstance.Initialization initialization,
+            MultiBeanMetadata multipleBean,
             Map<String, Object> beanConfig,
-            BeanDefinitionRegistry registry){
-        Map<String, String> customConfigBeans = new HashMap<>();
-        for (Field field : multipleBeanClass.getDeclaredFields()) {
-            Class<?> configClass = field.getType();
-            ConfigurationProperties annotation = configClass.getAnnotation(ConfigurationProperties.class);
-            if (annotation != null) {
-                String originalPrefix = annotation.value();
-                String key = getFirstKey(originalPrefix);
-                Map<String, Object> defaultConfig = extractDataFromMap(null,key, applicationProperties);
-                if(beanConfig.containsKey(key)){
-
-                    Map<String, Object> beanAppConfig = extractDataFromMap(null,key, beanConfig);
-                    mergeMissingKeys(defaultConfig, beanAppConfig);
-                    beanConfig.put(key, beanAppConfig);
-
-                    Map<String, Object> propertySourceMap  = flatten(Map.of(beanName, beanConfig),PARENT_CONFIG_NAME);
-                    MapPropertySource propertySource = new MapPropertySource(CUSTOM_CONFIG_PROPERTY_SOURCE, propertySourceMap);
-                    environment.getPropertySources().addFirst(propertySource);
-
-                    String customPrefix = PARENT_CONFIG_NAME+"."+beanName+"."+originalPrefix;
-                    Object customConfigInstance = Binder.get(environment)
+            boolean buildDefinition,
+            Map<ConfigKey, Object> boundConfigs){
+        List<MultiBeanInstance.BoundConfig> configs = new ArrayList<>();
+        String formattedBeanName = kebabToCamelCase(beanName);
+        boolean lazy = initialization != MultiBeanInstance.Initialization.EAGER;
+        Binder binder = lazy ? null : createBinder(beanName);
+        for (MultiBeanMetadata.ConfigDependency configDependency : multipleBean.getConfigDependencies()) {
+            Class<?> configClass = configDependency.configClass();
+            String originalPrefix = configDependency.prefix();
+            String key = getFirstKey(originalPrefix);
+            if(beanConfig.containsKey(key)){
+                String customPrefix = PARENT_CONFIG_NAME+"."+beanName+"."+originalPrefix;
+                // a config bound through setters can be changed by its bean, so it is never shared
+                ConfigKey configKey = boundConfigs != null && isConstructorBound(configClass)
+                        ? new ConfigKey(configClass, originalPrefix, beanConfig.get(key), lazy)
+                        : null;
+                Object customConfigInstance = configKey != null ? boundConfigs.get(configKey) : null;
+                if(customConfigInstance == null){
+                    Supplier<Object> configBinder = () -> (binder != null ? binder : createBinder(beanName))
                             .bind(customPrefix, Bindable.of(configClass))
-                            .orElseThrow(() -> new RuntimeException(String.format("Unable to bind properties for %s config", CUSTOM_CONFIG_PROPERTY_SOURCE)));
+                            .orElseThrow(() -> new RuntimeException(String.format("Unable to bind properties for %s config", customPrefix)));
+                    customConfigInstance = lazy
+                            ? new MultiBeanConfigRegistry.DeferredConfig(configBinder)
+                            : configBinder.get();
+                    if(configKey != null){
+                        Object previous = boundConfigs.putIfAbsent(configKey, customConfigInstance);
+                        customConfigInstance = previous != null ? previous : customConfigInstance;
+                    }
+                }
+
+                String customBeanName = formattedBeanName + configClass.getSimpleName();
+                BeanDefinition configBeanDefinition = buildDefinition
+                        ? buildConfigBeanDefinition(configClass, customBeanName, lazy)
+                        : null;
+                configs.add(new MultiBeanInstance.BoundConfig(
+                        configDependency.fieldName(),
+                        configClass,
+                        customBeanName,
+                        customConfigInstance,
+                        configBeanDefinition
+                ));
+            }
+        }
+        return configs;
+    }
 
-                    String formattedBeanName = kebabToCamelCase(beanName);
+    /**
+     * Builds the definition of a config bean. The bean is the config already bound here, taken from
+     * {@link MultiBeanConfigRegistry}, so the bean factory never creates an instance of the config class
+     * itself and immutable configs, such as records or {@code @ConstructorBinding} classes, work as well.
+     * It is marked as a value object, so {@link ConfigurationPropertiesBindingPostProcessor} does not bind
+     * it a second time.
+     */
+    private BeanDefinition buildConfigBeanDefinition(Class<?> configClass, String configBeanName, boolean lazy){
+        MultiBeanConfigRegistry registry = configRegistry;
+        RootBeanDefinition configBeanDefinition = new RootBeanDefinition(configClass);
+        configBeanDefinition.setInstanceSupplier(() -> registry.getConfig(configBeanName));
+        configBeanDefinition.setLazyInit(lazy);
+        configBeanDefinition.setAttribute(BindMethod.class.getName(), BindMethod.VALUE_OBJECT);
+        configBeanDefinition.setAttribute(MULTIBEAN_SUPPLIED_ATTRIBUTE, Boolean.TRUE);
+        return configBeanDefinition;
+    }
 
-                    String customBeanName = formattedBeanName + configClass.getSimpleName();
-                    registerBeanDefinition(registry, configClass, customBeanName, Map.of());
+    /**
+     * Builds the definition of the {@link MultiBeanExecutor} of an instance, created with the instance.
+     * It is not an autowiring candidate, so it is only injected into its own instance.
+     */
+    private BeanDefinition buildExecutorBeanDefinition(MultiBeanInstance instance){
+        MultiBeanStatistics executorStatistics = statistics;
+        String name = instance.name();
+        MultiBeanExecutor.Settings settings = instance.executor();
+        RootBeanDefinition executorDefinition = new RootBeanDefinition(ExecutorService.class);
+        executorDefinition.setInstanceSupplier(() -> MultiBeanExecutor.create(name, settings, executorStatistics));
+        executorDefinition.setLazyInit(true);
+        executorDefinition.setAutowireCandidate(false);
+        executorDefinition.setAttribute(MULTIBEAN_SUPPLIED_ATTRIBUTE, Boolean.TRUE);
+        return executorDefinition;
+    }
 
-                    MultiBeanConfigRegistry.registerConfig(customBeanName, customConfigInstance);
-                    MultiBeanConfigRegistry.registerBeanConfigReference(formattedBeanName+field.getName(), customBeanName);
-                    customConfigBeans.put(configClass.getSimpleName(), customBeanName);
-                }
+    /**
+     * Binds the block a bean declares under the given key, e.g. its {@code executor} block, applying the
+     * {@code @DefaultValue}s of the given type. Returns {@code null} when the bean declares no such block.
+     */
+    private <T> T bindSection(String beanName, Map<String, Object> beanConfig, String prefix, Class<T> type){
+        if(!(beanConfig.get(prefix) instanceof Map<?, ?> section)){
+            return null;
+        }
+        try {
+            return new Binder(
+                    List.of(new MapConfigurationPropertySource(flatten(section, prefix))),
+                    new PropertySourcesPlaceholdersResolver(environment)
+            ).bindOrCreate(prefix, type);
+        } catch (RuntimeException e) {
+            throw new RuntimeException(String.format("Unable to bind the %s of %s", prefix, beanName), e);
+        }
+    }
+
+    /**
+     * Binds the {@code shutdown} block of a bean, with every entry declared with {@code replicas} in its
+     * {@code depends-on} replaced by the replicas.
+     */
+    MultiBeanDrainer.InstanceSettings getShutdownSettings(String beanName){
+        MultiBeanDrainer.InstanceSettings settings = bindSection(
+                beanName, getBeanConfig(beanName), SHUTDOWN_CONFIG_PARAM, MultiBeanDrainer.InstanceSettings.class);
+        if(settings == null){
+            return new MultiBeanDrainer.InstanceSettings(null, List.of());
+        }
+        List<String> dependsOn = new ArrayList<>();
+        for(String dependency: settings.dependsOn() != null ? settings.dependsOn() : List.<String>of()){
+            List<String> replicas = replicaGroups.get(dependency);
+            if(replicas != null){
+                dependsOn.addAll(replicas);
+            }else if(runtimeConfigs.containsKey(dependency)
+                    || (!RESERVED_CONFIG_PARAMS.contains(dependency) && getMultiBeanProperties().containsKey(dependency))){
+                dependsOn.add(dependency);
+            }else{
+                throw new RuntimeException(String.format(
+                        "Declared bean %s depends on %s, which is not declared", beanName, dependency));
             }
         }
-        return customConfigBeans;
+        return new MultiBeanDrainer.InstanceSettings(settings.timeout(), List.copyOf(dependsOn));
     }
 
-    private void registerValueAnnotatedFieldDependencies(
+    /**
+     * Whether a config class is bound through its constructor, as records are, and so cannot be changed
+     * through setters once bound.
+     */
+    private static boolean isConstructorBound(Class<?> configClass){
+        return BindConstructorProvider.DEFAULT.getBindConstructor(configClass, false) != null;
+    }
+
+    /**
+     * What a config is bound from. Two beans declaring the same section for the same constructor bound
+     * config class bind equal immutable objects, so within one pass they share a single instance instead
+     * of holding one copy each. Sections compare by value, regardless of their origin.
+     *
+     * @param configClass  the {@link ConfigurationProperties} class
+     * @param prefix       its prefix, relative to {@code multibean.<bean>}
+     * @param section      the bean's own section under the first key of the prefix
+     * @param lazy         whether the config is bound on first access
+     */
+    private record ConfigKey(Class<?> configClass, String prefix, Object section, boolean lazy) {
+    }
+
+    private Binder createBinder(String beanName){
+        return new Binder(
+                ConfigurationPropertySources.from(getPropertySource().forBean(beanName)),
+                new PropertySourcesPlaceholdersResolver(environment)
+        );
+    }
+
+    /**
+     * Returns the {@link MultiBeanPropertySource} of the environment, adding it in front of the
+     * other property sources on first use.
+     */
+    private synchronized MultiBeanPropertySource getPropertySource(){
+        if(propertySource == null){
+            publishPropertySource(new MultiBeanPropertySource(applicationProperties));
+        }
+        return propertySource;
+    }
+
+    /**
+     * Puts the given source in the environment, in place of the previous {@link MultiBeanPropertySource}.
+     */
+    private synchronized void publishPropertySource(MultiBeanPropertySource source){
+        MutablePropertySources propertySources = environment.getPropertySources();
+        if(propertySources.contains(MULTIBEAN_PROPERTY_SOURCE)){
+            propertySources.replace(MULTIBEAN_PROPERTY_SOURCE, source);
+        }else{
+            propertySources.addFirst(source);
+        }
+        propertySource = source;
+    }
+
+    private Map<String, Object> resolveValueAnnotatedFieldDependencies(
             String beanName,
-            Class<?> multipleBeanClass){
-        String formattedBeanName = kebabToCamelCase(beanName);
-        for (Field field : multipleBeanClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Value.class)) {
-                field.setAccessible(true);
-                String propertyKey = formatConfigProperties(field.getAnnotation(Value.class).value());
-                String multipleBeanPropertyKey = PARENT_CONFIG_NAME+"."+beanName+"."+propertyKey;
-                if(flattenedProperties.containsKey(multipleBeanPropertyKey)){
-                    MultiBeanConfigRegistry.registerValue(
-                            formattedBeanName+field.getName(),
-                            flattenedProperties.get(multipleBeanPropertyKey)
-                    );
-                }
+            MultiBeanMetadata multipleBean){
+        Map<String, Object> values = new HashMap<>();
+        for (MultiBeanMetadata.ValueDependency valueDependency : multipleBean.getValueDependencies()) {
+            Object value = getBeanProperty(beanName, valueDependency.propertyKey());
+            if(value != null){
+                values.put(valueDependency.fieldName(), value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Registers a prepared instance. The registry is {@code null} when the bean definitions
+     * were generated ahead of time.
+     */
+    private void registerMultiBean(BeanDefinitionRegistry registry, MultiBeanInstance instance){
+        String formattedBeanName = instance.targetBeanName();
+        for(MultiBeanInstance.BoundConfig config: instance.configs()){
+            if(registry != null){
+                registry.registerBeanDefinition(config.beanName(), config.beanDefinition());
+            }
+            configRegistry.registerConfig(config.beanName(), config.instance());
+            configRegistry.registerBeanConfigReference(
+                    new MultiBeanConfigRegistry.BeanField(formattedBeanName, config.fieldName()),
+                    config.beanName()
+            );
+        }
+        instance.values().forEach((fieldName, value) -> configRegistry.registerValue(
+                new MultiBeanConfigRegistry.BeanField(formattedBeanName, fieldName),
+                value
+        ));
+        if(instance.executor() != null){
+            if(registry != null){
+                registry.registerBeanDefinition(instance.executorBeanName(), buildExecutorBeanDefinition(instance));
+            }
+            for(String fieldName: instance.metadata().getExecutorFields()){
+                configRegistry.registerBeanConfigReference(
+                        new MultiBeanConfigRegistry.BeanField(formattedBeanName, fieldName),
+                        instance.executorBeanName()
+                );
+            }
+        }
+        if(registry != null){
+            if(instance.initialization() == MultiBeanInstance.Initialization.PROXY){
+                // only the proxy is injected by type
+                instance.beanDefinition().setAutowireCandidate(false);
+            }
+            registry.registerBeanDefinition(formattedBeanName, instance.beanDefinition());
+            if(instance.initialization() == MultiBeanInstance.Initialization.PROXY){
+                registry.registerBeanDefinition(
+                        instance.beanName(),
+                        buildLazyProxyDefinition(instance.metadata().getInstanceType(), formattedBeanName)
+                );
             }
         }
     }
 
-    private void registerBeanDefinition(BeanDefinitionRegistry registry,
-                                        Class<?> multipleBeanClass,
-                                        String beanName,
-                                        Map<String, String> configBeanReference
-                                        ) {
+    /**
+     * Adds the given beans, in order, to the {@link MultiBeans} handle of their class.
+     */
+    private void registerHandles(BeanDefinitionRegistry registry, Map<String, MultiBeanMetadata> multiBeans){
+        Map<Class<?>, List<String>> beanNames = new LinkedHashMap<>();
+        multiBeans.forEach((beanName, multipleBean) ->
+                beanNames.computeIfAbsent(multipleBean.getInstanceType(), beanClass -> new ArrayList<>()).add(beanName));
+        beanNames.forEach((beanClass, names) -> getHandle(registry, beanClass).addAll(names));
+    }
+
+    /**
+     * Returns the {@link MultiBeans} handle of a class, registering it under its generic type on first use.
+     */
+    private MultiBeans<?> getHandle(BeanDefinitionRegistry registry, Class<?> multipleBeanClass){
+        return handles.computeIfAbsent(multipleBeanClass, beanClass -> {
+            MultiBeans<?> handle = new MultiBeans<>(beanClass, (BeanFactory) registry);
+            RootBeanDefinition definition = new RootBeanDefinition(MultiBeans.class);
+            definition.setTargetType(ResolvableType.forClassWithGenerics(MultiBeans.class, beanClass));
+            definition.setInstanceSupplier(() -> handle);
+            registry.registerBeanDefinition(MULTIBEANS_BEAN_NAME_PREFIX + beanClass.getName(), definition);
+            return handle;
+        });
+    }
+
+    /**
+     * Builds the definition of the {@link LazyMultiBeanFactoryBean} exposing a {@code lazy: proxy} instance.
+     */
+    private BeanDefinition buildLazyProxyDefinition(Class<?> multipleBeanClass, String targetBeanName){
+        AbstractBeanDefinition proxyDefinition = BeanDefinitionBuilder.genericBeanDefinition(LazyMultiBeanFactoryBean.class)
+                .addConstructorArgValue(targetBeanName)
+                .addConstructorArgValue(multipleBeanClass)
+                .getBeanDefinition();
+        proxyDefinition.setAttribute(FactoryBean.OBJECT_TYPE_ATTRIBUTE, multipleBeanClass);
+        return proxyDefinition;
+    }
+
+    private BeanDefinition buildBeanDefinition(Class<?> multipleBeanClass,
+                                               List<List<MultiBeanMetadata.ConstructorParameter>> constructors,
+                                               String beanName,
+                                               Map<String, String> configBeanReference,
+                                               String executorBeanName
+                                               ) {
 
         BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(multipleBeanClass);
-        Constructor<?>[] constructors = multipleBeanClass.getDeclaredConstructors();
-        if (constructors.length > 0) {
-            for(int i = 0; i < constructors.length; i++){
-                Constructor<?> constructor = constructors[i];
-                for (int j = 0; j < constructor.getParameterCount(); j++) {
-                    Parameter parameter = constructor.getParameters()[j];
-                    Class<?> paramType = parameter.getType();
-                    Value valueAnnotation = parameter.getAnnotation(Value.class);
-                    if (valueAnnotation != null) {
-                        String propertyKey = formatConfigProperties(valueAnnotation.value());
-                        String multipleBeanPropertyKey = PARENT_CONFIG_NAME+"."+beanName+"."+propertyKey;
-                        Object value = flattenedProperties.get(multipleBeanPropertyKey);
-                        if(value != null){
-                            Object convertedValue = ((OriginTrackedValue)value).getValue();
-                            builder.addConstructorArgValue(convertedValue);
-                        }
-                    } else {
-                        Set<String> classNames = configBeanReference.keySet();
-                        if(classNames.contains(paramType.getSimpleName())){
-                            String paramBeanName = configBeanReference.get(paramType.getSimpleName());
-                            RuntimeBeanReference runtimeBeanReference = new RuntimeBeanReference(
-                                    paramBeanName
-                            );
-                            builder.addConstructorArgValue(runtimeBeanReference);
-                        }else{
-                            builder.addConstructorArgReference(parameter.getName());
-                        }
+        if(executorBeanName != null){
+            // destroyed before its executor, also when the executor is only injected into a field
+            builder.addDependsOn(executorBeanName);
+        }
+        // created after and destroyed before the beans it uses, also when the drainer does not run
+        for (String dependency : getShutdownSettings(beanName).dependsOn()) {
+            builder.addDependsOn(kebabToCamelCase(dependency));
+        }
+        for (List<MultiBeanMetadata.ConstructorParameter> constructor : constructors) {
+            for (MultiBeanMetadata.ConstructorParameter parameter : constructor) {
+                Class<?> paramType = parameter.type();
+                if (parameter.propertyKey() != null) {
+                    Object value = getBeanProperty(beanName, parameter.propertyKey());
+                    if(value != null){
+                        builder.addConstructorArgValue(value);
+                    }
+                } else {
+                    Set<String> classNames = configBeanReference.keySet();
+                    if(executorBeanName != null && MultiBeanMetadata.isExecutorType(paramType)){
+                        builder.addConstructorArgValue(new RuntimeBeanReference(executorBeanName));
+                    }else if(classNames.contains(paramType.getSimpleName())){
+                        String paramBeanName = configBeanReference.get(paramType.getSimpleName());
+                        RuntimeBeanReference runtimeBeanReference = new RuntimeBeanReference(
+                                paramBeanName
+                        );
+                        builder.addConstructorArgValue(runtimeBeanReference);
+                    }else{
+                        builder.addConstructorArgReference(parameter.name());
                     }
-
                 }
+
             }
         }
-        registry.registerBeanDefinition(kebabToCamelCase(beanName), builder.getBeanDefinition());
+        return builder.getBeanDefinition();
     }
 
+    /**
+     * Snapshots the environment and builds the {@code multibean} section. The global settings are read
+     * once here, since a lookup in the environment goes through every property source, including all the
+     * registered bean configs.
+     */
     private void parseProperties(){
-        MutablePropertySources propertySources = environment.getPropertySources();
-        for (PropertySource<?> propertySource : propertySources) {
-            if (propertySource instanceof MapPropertySource) {
-                Map<String, Object> properties = ((MapPropertySource) propertySource).getSource();
+        applicationProperties = new MultiBeanPropertyTree(environment.getPropertySources());
+        applicationProperties.getSubtree(PARENT_CONFIG_NAME);
+        multiBeanProperties = null;
+        String lazy = environment.getProperty(PARENT_CONFIG_NAME+"."+LAZY_CONFIG_PARAM);
+        defaultInitialization = lazy == null
+                ? MultiBeanInstance.Initialization.EAGER
+                : MultiBeanInstance.Initialization.of(lazy);
+        String importDir = environment.getProperty(PARENT_CONFIG_NAME+"."+IMPORT_DIR_CONFIG_PARAM);
+        importDirectory = importDir == null || importDir.isBlank() ? null : Path.of(importDir.trim()).toAbsolutePath().normalize();
+        importedProperties = importDirectory != null ? imports.load(importDirectory) : Map.of();
+    }
 
-                properties.forEach((key, value) ->  {
-                    flattenedProperties.put(key, value);
-                });
+    /**
+     * The directory set by {@code multibean.import-dir}, or {@code null}. Watched by {@link MultiBeanRefresher}.
+     */
+    Path getImportDirectory(){
+        return importDirectory;
+    }
+
+    /**
+     * Returns the entries of the {@code multibean} section followed by the ones imported from
+     * {@code multibean.import-dir}, with the entries declaring {@code replicas} expanded into their replicas.
+     * Computed once per {@link #parseProperties()}.
+     */
+    private Map<String, Object> getMultiBeanProperties(){
+        Map<String, Object> expanded = multiBeanProperties;
+        if(expanded == null){
+            Map<String, Object> multipleBeanProperties = applicationProperties.getSubtree(PARENT_CONFIG_NAME);
+            if(multipleBeanProperties == null){
+                throw new RuntimeException("no 'multibean' section defined in your application properties");
+            }
+            if(!importedProperties.isEmpty()){
+                Map<String, Object> declared = new LinkedHashMap<>(multipleBeanProperties);
+                importedProperties.forEach((beanName, beanConfig) -> putBeanEntry(declared, beanName, beanConfig));
+                multipleBeanProperties = declared;
+            }
+            for(String reserved: RESERVED_CONFIG_PARAMS){
+                // an entry declared before the setting existed would silently stop being a bean
+                if(multipleBeanProperties.get(reserved) instanceof Map<?, ?> section && section.containsKey(CLASS_CONFIG_PARAM)){
+                    throw new RuntimeException(String.format(
+                            "Declared bean %s has the name of the %s.%s setting, rename the bean", reserved, PARENT_CONFIG_NAME, reserved));
+                }
             }
+            expanded = expandReplicas(multipleBeanProperties);
+            multiBeanProperties = expanded;
         }
-        applicationProperties = generateNestedMap(flattenedProperties);
+        return expanded;
+    }
+
+    /**
+     * Replaces every entry declaring {@code replicas: n} with the entries {@code <name>-0} to {@code <name>-<n-1>},
+     * all sharing the section of the declared entry, and records them in {@link #replicaGroups}.
+     */
+    private Map<String, Object> expandReplicas(Map<String, Object> multipleBeanProperties){
+        Map<String, Object> expanded = new LinkedHashMap<>();
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        Set<String> coreGroups = new LinkedHashSet<>();
+        multipleBeanProperties.forEach((beanName, beanConfig) -> {
+            Object replicas = beanConfig instanceof Map<?, ?> entry && !RESERVED_CONFIG_PARAMS.contains(beanName)
+                    ? entry.get(REPLICAS_CONFIG_PARAM)
+                    : null;
+            if(replicas == null){
+                putBeanEntry(expanded, beanName, beanConfig);
+                return;
+            }
+            int count = getReplicaCount(beanName, replicas);
+            List<String> replicaNames = new ArrayList<>(count);
+            for(int replica = 0; replica < count; replica++){
+                String replicaName = beanName + "-" + replica;
+                putBeanEntry(expanded, replicaName, beanConfig);
+                replicaNames.add(replicaName);
+            }
+            groups.put(beanName, List.copyOf(replicaNames));
+            if(CORES_CONFIG_VALUE.equals(getReplicaValue(replicas))){
+                coreGroups.add(beanName);
+            }
+        });
+        replicaGroups = groups;
+        coreReplicaGroups = coreGroups;
+        return expanded;
+    }
+
+    /**
+     * The entries declared with {@code replicas: cores}, whose replicas depend on the processors of the machine
+     * the environment was read on. Checked by {@link MultiBeanAotProcessor}.
+     */
+    Set<String> getCoreReplicaGroups(){
+        return coreReplicaGroups;
+    }
+
+    /**
+     * The entries and groups whose proxies are classes generated at runtime. Checked by {@link MultiBeanAotProcessor}.
+     */
+    Set<String> getProxiedNames(){
+        return statistics.getProxiedNames();
+    }
+
+    /**
+     * The type of the proxy of every entry declared with {@code lazy: proxy}. Checked by {@link MultiBeanAotProcessor}.
+     */
+    Map<String, Class<?>> getLazyProxyTypes(){
+        Map<String, Class<?>> proxyTypes = new LinkedHashMap<>();
+        resolvedMultiBeans.forEach((beanName, multipleBean) -> {
+            if(getInitialization(beanName) == MultiBeanInstance.Initialization.PROXY){
+                proxyTypes.put(beanName, multipleBean.getInstanceType());
+            }
+        });
+        return proxyTypes;
+    }
+
+    private void putBeanEntry(Map<String, Object> multipleBeanProperties, String beanName, Object beanConfig){
+        if(multipleBeanProperties.putIfAbsent(beanName, beanConfig) != null){
+            throw new RuntimeException(String.format("A bean named %s is declared more than once", beanName));
+        }
+    }
+
+    private int getReplicaCount(String beanName, Object replicas){
+        String value = getReplicaValue(replicas);
+        int count;
+        try {
+            count = CORES_CONFIG_VALUE.equals(value) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            count = -1;
+        }
+        if(count < 1 || count > MAX_REPLICAS){
+            throw new RuntimeException(String.format(
+                    "Invalid %s value '%s' for declared bean %s, expecting 1 to %d or %s",
+                    REPLICAS_CONFIG_PARAM, value, beanName, MAX_REPLICAS, CORES_CONFIG_VALUE));
+        }
+        return count;
     }
-}
 
+    private static String getReplicaValue(Object replicas){
+        return (replicas instanceof OriginTrackedValue originTrackedValue
+                ? originTrackedValue.getValue()
+                : replicas).toString().trim();
+    }
+
+    /**
+     * Registers a {@link MultiBeanSelector} under the name of every entry expanded into replicas.
+     */
+    private void registerSelectors(BeanDefinitionRegistry registry, Map<String, MultiBeanMetadata> multiBeans){
+        replicaGroups.forEach((beanName, replicaNames) -> {
+            MultiBeanMetadata multipleBean = multiBeans.get(replicaNames.get(0));
+            if(multipleBean == null){
+                return;
+            }
+            Class<?> beanClass = multipleBean.getInstanceType();
+            MultiBeanSelector<?> selector = new MultiBeanSelector<>(beanClass, replicaNames, (BeanFactory) registry);
+            RootBeanDefinition definition = new RootBeanDefinition(MultiBeanSelector.class);
+            definition.setTargetType(ResolvableType.forClassWithGenerics(MultiBeanSelector.class, beanClass));
+            definition.setInstanceSupplier(() -> selector);
+            definition.setAttribute(MULTIBEAN_SUPPLIED_ATTRIBUTE, Boolean.TRUE);
+            registry.registerBeanDefinition(kebabToCamelCase(beanName), definition);
+        });
+    }
+
+    /**
+     * Registers the proxy of every {@link MultiBeanGroup} declared under {@code multibean.group} under the name
+     * of the group, along with the group itself, which shuts its executor down with the context.
+     */
+    private void registerGroups(BeanDefinitionRegistry registry, Map<String, MultiBeanMetadata> multiBeans){
+        Map<String, MultiBeanGroup.Settings> groups = Binder.get(environment)
+                .bind(PARENT_CONFIG_NAME + "." + GROUP_CONFIG_PARAM, Bindable.mapOf(String.class, MultiBeanGroup.Settings.class))
+                .orElse(Map.of());
+        groups.forEach((groupName, settings) -> {
+            if(settings.members() == null || settings.members().isEmpty()){
+                throw new RuntimeException(String.format("Group %s should have members", groupName));
+            }
+            List<String> members = new ArrayList<>();
+            for(String member: settings.members()){
+                members.addAll(replicaGroups.getOrDefault(member, List.of(member)));
+            }
+            Set<Class<?>> memberTypes = new LinkedHashSet<>();
+            for(String member: members){
+                MultiBeanMetadata multipleBean = multiBeans.get(member);
+                if(multipleBean == null){
+                    throw new RuntimeException(String.format("Group %s has member %s, which is not declared", groupName, member));
+                }
+                memberTypes.add(multipleBean.getInstanceType());
+            }
+            Class<?> type = settings.type();
+            if(type == null){
+                if(memberTypes.size() > 1){
+                    throw new RuntimeException(String.format(
+                            "Members of group %s have different classes %s, declare the type they share", groupName, memberTypes));
+                }
+                type = memberTypes.iterator().next();
+            }
+            for(Class<?> memberType: memberTypes){
+                if(!type.isAssignableFrom(memberType)){
+                    throw new RuntimeException(String.format(
+                            "Class %s of a member of group %s is not a %s", memberType.getName(), groupName, type.getName()));
+                }
+            }
+            String beanName = kebabToCamelCase(groupName);
+            if(registry.containsBeanDefinition(beanName)){
+                throw new RuntimeException(String.format("A bean named %s is declared more than once", groupName));
+            }
+            MultiBeanGroup group = new MultiBeanGroup(groupName, type, members, settings, (BeanFactory) registry);
+            statistics.addGroup(group);
+
+            RootBeanDefinition groupDefinition = new RootBeanDefinition(MultiBeanGroup.class);
+            groupDefinition.setInstanceSupplier(() -> group);
+            groupDefinition.setAutowireCandidate(false);
+            groupDefinition.setAttribute(MULTIBEAN_SUPPLIED_ATTRIBUTE, Boolean.TRUE);
+            registry.registerBeanDefinition(GROUP_BEAN_NAME_PREFIX + beanName, groupDefinition);
+
+            RootBeanDefinition definition = new RootBeanDefinition(type);
+            definition.setInstanceSupplier(group::getProxy);
+            definition.setDependsOn(GROUP_BEAN_NAME_PREFIX + beanName);
+            definition.setAttribute(MULTIBEAN_SUPPLIED_ATTRIBUTE, Boolean.TRUE);
+            registry.registerBeanDefinition(beanName, definition);
+        });
+    }
+
+    /**
+     * Returns the entry of a bean in the {@code multibean} section, or the config of a bean registered at runtime.
+     */
+    private Map<String, Object> getBeanConfig(String beanName){
+        Map<String, Object> runtimeConfig = runtimeConfigs.get(beanName);
+        if(runtimeConfig != null){
+            return runtimeConfig;
+        }
+        Map<String, Object> multipleBeanProperties = getMultiBeanProperties();
+        return multipleBeanProperties.get(beanName) instanceof Map<?, ?>
+                ? extractDataFromMap(null, beanName, multipleBeanProperties)
+                : Map.of();
+    }
+
+    /**
+     * Returns the value of {@code multibean.<bean>.<propertyKey>}, or of the config of a bean registered at
+     * runtime, unwrapped from its origin, or {@code null}.
+     */
+    private Object getBeanProperty(String beanName, String propertyKey){
+        Object value = getNestedValue(getBeanConfig(beanName), propertyKey);
+        if(value instanceof Map<?, ?>){
+            return null;
+        }
+        return value instanceof OriginTrackedValue originTrackedValue ? originTrackedValue.getValue() : value;
+    }
+}
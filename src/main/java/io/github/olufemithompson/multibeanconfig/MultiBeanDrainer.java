@@ -0,0 +1,359 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_DRAINER_BEAN_NAME;
+import static io.github.olufemithompson.multibeanconfig.Constants.PARENT_CONFIG_NAME;
+import static io.github.olufemithompson.multibeanconfig.Constants.SHUTDOWN_CONFIG_PARAM;
+
+/**
+ * Drains the live multibean instances when the context stops, then destroys them in parallel when the context
+ * closes, instead of leaving them to the bean factory, which destroys singletons one at a time. Shutdown then
+ * takes as long as the slowest instance rather than the sum of all of them.
+ * <br>
+ * <br>
+ * Draining runs as the last {@link SmartLifecycle} phase to stop, after the web server has stopped taking and
+ * finished serving requests. The {@link MultiBeanExecutor} of every instance is shut down, so it takes no further
+ * tasks, and the tasks it already took are awaited. Nothing is destroyed while the context still runs, so a bean
+ * looked up later, e.g. by a {@code Lifecycle} stopping after this one, is never created again.
+ * <br>
+ * <br>
+ * Destruction runs as part of the normal context close, once the bean factory refuses to create beans. Each
+ * instance is destroyed, together with its executor, on its own thread, once the instances declaring it in their
+ * {@code shutdown.depends-on} are destroyed. Whoever waits on an instance stops waiting after its
+ * {@code shutdown.timeout}, or {@code multibean.shutdown.instance-timeout}, and the whole drain, like the whole
+ * destruction, returns after {@code multibean.shutdown.timeout}. Instances still being destroyed are logged and left
+ * to finish on their own threads; the ones not yet started are then destroyed by the bean factory as usual.
+ * <br>
+ * <br>
+ * The threads call {@link DefaultListableBeanFactory#destroySingleton} while the bean factory is inside
+ * {@code destroySingletons()}. Each call removes the singleton and its disposable adapter under the locks of the
+ * registry before running it, so every bean is destroyed once, by whichever thread reaches it first. An instance
+ * left running past its timeout may however still use beans that the bean factory destroys meanwhile.
+ */
+final class MultiBeanDrainer implements SmartLifecycle {
+
+    private static final Log logger = LogFactory.getLog(MultiBeanDrainer.class);
+
+    /**
+     * Stops after the web server, whose graceful shutdown runs at {@code DEFAULT_PHASE - 1024}
+     * and which stops at {@code DEFAULT_PHASE - 2048}.
+     */
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    /**
+     * The {@code multibean.shutdown} section.
+     *
+     * @param timeout          how long draining all instances may take
+     * @param instanceTimeout  how long destroying one instance may take, {@code timeout} by default
+     */
+    record Settings(@DefaultValue("30s") Duration timeout,
+                    Duration instanceTimeout) {
+    }
+
+    /**
+     * The {@code shutdown} block of an instance.
+     *
+     * @param timeout    how long destroying this instance may take, overriding {@code multibean.shutdown.instance-timeout}
+     * @param dependsOn  the instances this one uses, destroyed only once this one is. Naming an entry declared with
+     *                   {@code replicas} names all its replicas
+     */
+    record InstanceSettings(Duration timeout,
+                            @DefaultValue List<String> dependsOn) {
+    }
+
+    private enum Status {
+        DESTROYED,
+        FAILED,
+        TIMED_OUT
+    }
+
+    private final MultiBeanDefinitionPostProcessor postProcessor;
+
+    private final DefaultListableBeanFactory beanFactory;
+
+    private final ConfigurableEnvironment environment;
+
+    private volatile boolean running;
+
+    private MultiBeanStatistics statistics;
+
+    private MultiBeanDrainer(MultiBeanDefinitionPostProcessor postProcessor,
+                             DefaultListableBeanFactory beanFactory,
+                             ConfigurableEnvironment environment) {
+        this.postProcessor = postProcessor;
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+    }
+
+    /**
+     * Registers the drainer of the given registry as a singleton, once per context.
+     */
+    static void register(BeanDefinitionRegistry registry,
+                         MultiBeanDefinitionPostProcessor postProcessor,
+                         ConfigurableEnvironment environment) {
+        if (registry instanceof DefaultListableBeanFactory beanFactory
+                && !beanFactory.containsSingleton(MULTIBEAN_DRAINER_BEAN_NAME)) {
+            beanFactory.registerSingleton(MULTIBEAN_DRAINER_BEAN_NAME,
+                    new MultiBeanDrainer(postProcessor, beanFactory, environment));
+        }
+    }
+
+    /**
+     * Registers the parallel destruction of the instances, the first time the context starts. Eager singletons
+     * are created by then, so it runs before the bean factory destroys them.
+     */
+    @Override
+    public synchronized void start() {
+        if (statistics == null) {
+            statistics = MultiBeanStatistics.get(beanFactory);
+            if (statistics != null) {
+                beanFactory.registerDisposableBean(MULTIBEAN_DRAINER_BEAN_NAME, this::destroyInstances);
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (statistics == null) {
+            return;
+        }
+        Settings settings = getSettings();
+        Map<String, Drain> drains = findDrains(statistics, settings);
+        if (!drains.isEmpty()) {
+            awaitExecutors(drains, settings);
+        }
+    }
+
+    private void destroyInstances() {
+        Settings settings = getSettings();
+        Map<String, Drain> drains = findDrains(statistics, settings);
+        if (!drains.isEmpty()) {
+            destroy(drains, settings);
+        }
+    }
+
+    private Settings getSettings() {
+        return Binder.get(environment).bindOrCreate(PARENT_CONFIG_NAME + "." + SHUTDOWN_CONFIG_PARAM, Settings.class);
+    }
+
+    private Map<String, Drain> findDrains(MultiBeanStatistics statistics, Settings settings) {
+        Duration defaultTimeout = settings.instanceTimeout() != null ? settings.instanceTimeout() : settings.timeout();
+        Map<String, Drain> drains = new LinkedHashMap<>();
+        for (MultiBeanStatistics.InstanceStatistics instance : statistics.getInstances()) {
+            String targetBeanName = instance.initialization() == MultiBeanInstance.Initialization.PROXY
+                    ? Constants.LAZY_TARGET_BEAN_NAME_PREFIX + instance.beanName()
+                    : instance.beanName();
+            String executorBeanName = instance.beanName() + Constants.EXECUTOR_BEAN_NAME_SUFFIX;
+            if (!beanFactory.containsSingleton(targetBeanName) && !beanFactory.containsSingleton(executorBeanName)) {
+                continue;
+            }
+            InstanceSettings instanceSettings = postProcessor.getShutdownSettings(instance.name());
+            drains.put(instance.name(), new Drain(
+                    instance.name(),
+                    targetBeanName,
+                    executorBeanName,
+                    instanceSettings.timeout() != null ? instanceSettings.timeout() : defaultTimeout,
+                    instanceSettings.dependsOn()));
+        }
+        // an instance is destroyed once every instance depending on it is
+        for (Drain drain : drains.values()) {
+            for (String dependency : drain.dependsOn) {
+                Drain used = drains.get(dependency);
+                if (used != null) {
+                    used.dependents.add(drain);
+                }
+            }
+        }
+        return drains;
+    }
+
+    /**
+     * Shuts down the executors created for the given instances and waits for the tasks they already took.
+     * The executors are shut down at once, so the waits overlap and each is bounded by its own deadline.
+     */
+    private void awaitExecutors(Map<String, Drain> drains, Settings settings) {
+        long start = System.nanoTime();
+        Map<Drain, ExecutorService> executors = new LinkedHashMap<>();
+        for (Drain drain : drains.values()) {
+            if (beanFactory.getSingleton(drain.executorBeanName) instanceof ExecutorService executor) {
+                executor.shutdown();
+                executors.put(drain, executor);
+            }
+        }
+        List<String> timedOut = new ArrayList<>();
+        try {
+            for (Map.Entry<Drain, ExecutorService> entry : executors.entrySet()) {
+                long timeout = Math.min(entry.getKey().timeout.toNanos(), settings.timeout().toNanos());
+                if (!entry.getValue().awaitTermination(timeout - (System.nanoTime() - start), TimeUnit.NANOSECONDS)) {
+                    timedOut.add(entry.getKey().name);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!timedOut.isEmpty()) {
+            logger.warn(String.format("Stopped waiting for the tasks of multibean instances %s after their shutdown timeout", timedOut));
+        }
+    }
+
+    private void destroy(Map<String, Drain> drains, Settings settings) {
+        ExecutorService executor = MultiBeanThreads.newThreadPerTaskExecutor("multibean-shutdown-");
+        long start = System.nanoTime();
+        Map<Drain, CompletableFuture<Void>> futures = new HashMap<>();
+        for (Drain drain : drains.values()) {
+            schedule(drain, executor, futures, new HashSet<>());
+        }
+        try {
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .get(settings.timeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // reported below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // never thrown, failures are recorded by each drain
+        } finally {
+            executor.shutdown();
+        }
+
+        List<String> pending = new ArrayList<>();
+        List<String> timedOut = new ArrayList<>();
+        for (Drain drain : drains.values()) {
+            if (drain.status == null) {
+                pending.add(drain.name);
+            } else if (drain.status == Status.TIMED_OUT) {
+                timedOut.add(drain.name);
+            } else if (drain.status == Status.FAILED) {
+                logger.warn(String.format("Failed to destroy multibean instance %s", drain.name), drain.cause);
+            }
+        }
+        if (!timedOut.isEmpty()) {
+            logger.warn(String.format("Stopped waiting for multibean instances %s after their shutdown timeout", timedOut));
+        }
+        if (!pending.isEmpty()) {
+            logger.warn(String.format("Stopped waiting for multibean instances %s after %s", pending, settings.timeout()));
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(String.format("Destroyed %d multibean instances in %d ms",
+                    drains.size() - pending.size() - timedOut.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        }
+    }
+
+    /**
+     * Schedules an instance to be destroyed once its dependents are, scheduling those first.
+     *
+     * @param visiting the instances being scheduled, to break dependency cycles
+     */
+    private CompletableFuture<Void> schedule(Drain drain,
+                                             ExecutorService executor,
+                                             Map<Drain, CompletableFuture<Void>> futures,
+                                             Set<Drain> visiting) {
+        CompletableFuture<Void> future = futures.get(drain);
+        if (future != null) {
+            return future;
+        }
+        visiting.add(drain);
+        List<CompletableFuture<Void>> dependents = new ArrayList<>();
+        for (Drain dependent : drain.dependents) {
+            if (!visiting.contains(dependent)) {
+                dependents.add(schedule(dependent, executor, futures, visiting));
+            }
+        }
+        visiting.remove(drain);
+        future = CompletableFuture.allOf(dependents.toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> drain.destroy(executor));
+        futures.put(drain, future);
+        return future;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * The destruction of one instance.
+     */
+    private final class Drain {
+
+        private final String name;
+
+        private final String targetBeanName;
+
+        private final String executorBeanName;
+
+        private final Duration timeout;
+
+        private final List<String> dependsOn;
+
+        private final List<Drain> dependents = new ArrayList<>();
+
+        private volatile Status status;
+
+        private volatile Throwable cause;
+
+        private Drain(String name, String targetBeanName, String executorBeanName, Duration timeout, List<String> dependsOn) {
+            this.name = name;
+            this.targetBeanName = targetBeanName;
+            this.executorBeanName = executorBeanName;
+            this.timeout = timeout;
+            this.dependsOn = dependsOn;
+        }
+
+        /**
+         * Destroys the instance, then its executor, completing normally once done or timed out.
+         */
+        private CompletableFuture<Void> destroy(ExecutorService executor) {
+            return CompletableFuture.runAsync(() -> {
+                        beanFactory.destroySingleton(targetBeanName);
+                        beanFactory.destroySingleton(executorBeanName);
+                    }, executor)
+                    .orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+                    .handle((ignored, failure) -> {
+                        Throwable error = failure instanceof CompletionException ? failure.getCause() : failure;
+                        if (error == null) {
+                            status = Status.DESTROYED;
+                        } else if (error instanceof TimeoutException) {
+                            status = Status.TIMED_OUT;
+                        } else {
+                            status = Status.FAILED;
+                            cause = error;
+                        }
+                        return null;
+                    });
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code multibeans} actuator endpoint, listing the time spent in each {@link MultiBeanStatistics.Phase}
+ * and, for every instance, its bind time, where it was declared, the fields injected into it and how its
+ * {@link MultiBeanWarmup} went, and for the instances declared with {@code metrics: true}, the count, errors and
+ * latency percentiles of the calls made to each of their methods, and for the instances declaring a {@code cache}
+ * block, the size and hit ratio of their {@link MultiBeanCache}.
+ * <br>
+ * <br>
+ * Only field names are listed, never configuration values. Registered by {@link MultiBeanActuatorConfig}
+ * when the actuator is on the classpath, and exposed like any other endpoint, e.g. with
+ * {@code management.endpoints.web.exposure.include=multibeans}.
+ */
+@Endpoint(id = "multibeans")
+public final class MultiBeanEndpoint {
+
+    private final BeanFactory beanFactory;
+
+    MultiBeanEndpoint(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @ReadOperation
+    public MultiBeansDescriptor multiBeans() {
+        MultiBeanStatistics statistics = MultiBeanStatistics.get(beanFactory);
+        if (statistics == null) {
+            return new MultiBeansDescriptor(Map.of(), List.of());
+        }
+        Map<String, PhaseDescriptor> phases = new LinkedHashMap<>();
+        for (MultiBeanStatistics.Phase phase : MultiBeanStatistics.Phase.values()) {
+            phases.put(phase.name().toLowerCase(Locale.ROOT), new PhaseDescriptor(
+                    statistics.getCount(phase),
+                    toMillis(statistics.getTotalNanos(phase))));
+        }
+        List<InstanceDescriptor> instances = new ArrayList<>();
+        for (MultiBeanStatistics.InstanceStatistics instance : statistics.getInstances()) {
+            instances.add(describe(statistics, instance));
+        }
+        instances.sort(Comparator.comparing(InstanceDescriptor::name));
+        return new MultiBeansDescriptor(phases, instances);
+    }
+
+    @ReadOperation
+    public InstanceDescriptor multiBean(@Selector String name) {
+        MultiBeanStatistics statistics = MultiBeanStatistics.get(beanFactory);
+        MultiBeanStatistics.InstanceStatistics instance = statistics != null ? statistics.getInstance(name) : null;
+        return instance != null ? describe(statistics, instance) : null;
+    }
+
+    private static InstanceDescriptor describe(MultiBeanStatistics statistics,
+                                               MultiBeanStatistics.InstanceStatistics instance) {
+        MultiBeanStatistics.WarmupStatistics warmup = statistics.getWarmup(instance.name());
+        return new InstanceDescriptor(
+                instance.name(),
+                instance.beanName(),
+                instance.beanClass().getName(),
+                instance.initialization().name().toLowerCase(Locale.ROOT),
+                toMillis(instance.bindNanos()),
+                instance.source(),
+                instance.configFields(),
+                instance.valueFields(),
+                warmup != null
+                        ? new WarmupDescriptor(warmup.status().name().toLowerCase(Locale.ROOT), toMillis(warmup.nanos()), warmup.error())
+                        : null,
+                describeCalls(statistics.getCallMetrics(instance.name())),
+                describeCache(statistics.getCache(instance.name())));
+    }
+
+    private static Map<String, CallDescriptor> describeCalls(MultiBeanCallMetrics metrics) {
+        if (metrics == null) {
+            return null;
+        }
+        Map<String, CallDescriptor> calls = new LinkedHashMap<>();
+        metrics.getRecorders().forEach((method, recorder) -> {
+            MultiBeanLatencyRecorder.Snapshot snapshot = recorder.snapshot();
+            calls.put(method, new CallDescriptor(
+                    snapshot.count(),
+                    snapshot.errors(),
+                    snapshot.meanNanos() / 1_000_000.0,
+                    toMillis(snapshot.valueAt(0.5)),
+                    toMillis(snapshot.valueAt(0.95)),
+                    toMillis(snapshot.valueAt(0.99)),
+                    toMillis(snapshot.maxNanos())));
+        });
+        return calls;
+    }
+
+    private static CacheDescriptor describeCache(MultiBeanCache cache) {
+        if (cache == null) {
+            return null;
+        }
+        return new CacheDescriptor(
+                cache.getSize(),
+                cache.getHits(),
+                cache.getMisses(),
+                cache.getHitRatio(),
+                cache.getEvictions());
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public record MultiBeansDescriptor(Map<String, PhaseDescriptor> phases, List<InstanceDescriptor> instances) {
+    }
+
+    public record PhaseDescriptor(long count, double totalMillis) {
+    }
+
+    public record InstanceDescriptor(String name,
+                                     String beanName,
+                                     String className,
+                                     String initialization,
+                                     double bindMillis,
+                                     String source,
+                                     List<String> configFields,
+                                     List<String> valueFields,
+                                     WarmupDescriptor warmup,
+                                     Map<String, CallDescriptor> calls,
+                                     CacheDescriptor cache) {
+    }
+
+    public record WarmupDescriptor(String status, double millis, String error) {
+    }
+
+    public record CallDescriptor(long count,
+                                 long errors,
+                                 double meanMillis,
+                                 double p50Millis,
+                                 double p95Millis,
+                                 double p99Millis,
+                                 double maxMillis) {
+    }
+
+    public record CacheDescriptor(int size, long hits, long misses, double hitRatio, long evictions) {
+    }
+}
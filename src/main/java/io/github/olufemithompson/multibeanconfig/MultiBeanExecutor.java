@@ -0,0 +1,229 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The dedicated executor of one multibean instance, declared by an {@code executor} block:
+ * <pre>{@code
+ * multibean:
+ *   partner-client:
+ *     class: PartnerClient
+ *     executor:
+ *       core-size: 4
+ *       max-size: 16
+ *       queue-capacity: 100
+ * }</pre>
+ * A slow instance then only exhausts its own threads and queue. Once both are full, further tasks are
+ * rejected with a {@link RejectedExecutionException} instead of waiting behind the calls of other instances.
+ * With {@code virtual-threads: true} every task runs on a new virtual thread instead, on Java 21 or later.
+ * <br>
+ * <br>
+ * The executor is registered as the bean {@code <bean>Executor} and injected into the {@link Executor} and
+ * {@link ExecutorService} constructor parameters and {@code @Autowired} fields of its instance. It is not an
+ * autowiring candidate, so it never replaces the executors of the application. It is shut down after its
+ * instance is destroyed.
+ */
+final class MultiBeanExecutor extends AbstractExecutorService implements DisposableBean {
+
+    /**
+     * The {@code executor} block of an instance.
+     *
+     * @param coreSize          threads kept when idle, {@code maxSize} by default, or 8 when neither is set
+     * @param maxSize           threads at most, started once the queue is full, {@code coreSize} by default
+     * @param queueCapacity     tasks waiting for a thread at most
+     * @param keepAlive         how long threads above {@code coreSize} are kept when idle
+     * @param virtualThreads    whether each task runs on a new virtual thread, ignoring the sizes above
+     * @param awaitTermination  how long shutdown waits for queued and running tasks before interrupting them
+     */
+    record Settings(Integer coreSize,
+                    Integer maxSize,
+                    @DefaultValue("100") int queueCapacity,
+                    @DefaultValue("60s") Duration keepAlive,
+                    @DefaultValue("false") boolean virtualThreads,
+                    @DefaultValue("30s") Duration awaitTermination) {
+
+        private static final int DEFAULT_SIZE = 8;
+
+        /**
+         * The threads kept when idle, once the defaults are applied.
+         */
+        int resolvedCoreSize() {
+            return coreSize != null ? coreSize : maxSize != null ? maxSize : DEFAULT_SIZE;
+        }
+
+        /**
+         * The threads at most, once the defaults are applied.
+         */
+        int resolvedMaxSize() {
+            return maxSize != null ? maxSize : resolvedCoreSize();
+        }
+    }
+
+    private final String name;
+
+    private final ExecutorService delegate;
+
+    private final ThreadPoolExecutor pool;
+
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private final Duration awaitTermination;
+
+    private final MultiBeanStatistics statistics;
+
+    private MultiBeanExecutor(String name,
+                              ExecutorService delegate,
+                              ThreadPoolExecutor pool,
+                              Duration awaitTermination,
+                              MultiBeanStatistics statistics) {
+        this.name = name;
+        this.delegate = delegate;
+        this.pool = pool;
+        this.awaitTermination = awaitTermination;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Creates the executor of an instance and publishes it in the given statistics.
+     *
+     * @param name the name of the instance under {@code multibean}
+     */
+    static MultiBeanExecutor create(String name, Settings settings, MultiBeanStatistics statistics) {
+        MultiBeanExecutor executor;
+        if (settings.virtualThreads()) {
+            executor = new MultiBeanExecutor(name, MultiBeanThreads.newVirtualThreadPerTaskExecutor(name), null,
+                    settings.awaitTermination(), statistics);
+        } else {
+            int coreSize = settings.resolvedCoreSize();
+            int maxSize = settings.resolvedMaxSize();
+            if (coreSize < 0 || maxSize <= 0 || maxSize < coreSize || settings.queueCapacity() < 0) {
+                throw new RuntimeException(String.format(
+                        "Invalid executor of %s: core-size %d, max-size %d, queue-capacity %d",
+                        name, coreSize, maxSize, settings.queueCapacity()));
+            }
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    coreSize,
+                    maxSize,
+                    settings.keepAlive().toMillis(),
+                    TimeUnit.MILLISECONDS,
+                    newQueue(settings.queueCapacity()),
+                    new CustomizableThreadFactory(name + "-"));
+            executor = new MultiBeanExecutor(name, pool, pool, settings.awaitTermination(), statistics);
+        }
+        statistics.addExecutor(executor);
+        return executor;
+    }
+
+    private static BlockingQueue<Runnable> newQueue(int capacity) {
+        if (capacity == 0) {
+            return new SynchronousQueue<>();
+        }
+        return capacity == Integer.MAX_VALUE ? new LinkedBlockingQueue<>() : new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * The name of the instance under {@code multibean}.
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * The number of tasks waiting for a thread, always {@code 0} with virtual threads.
+     */
+    int getQueueSize() {
+        return pool != null ? pool.getQueue().size() : 0;
+    }
+
+    /**
+     * The approximate number of tasks running.
+     */
+    int getActiveCount() {
+        return pool != null ? pool.getActiveCount() : activeTasks.get();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (pool != null) {
+            pool.execute(command);
+            return;
+        }
+        activeTasks.incrementAndGet();
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    activeTasks.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            activeTasks.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Stops accepting tasks, waits up to {@code await-termination} for the queued and running ones,
+     * then interrupts whatever is left.
+     */
+    @Override
+    public void destroy() {
+        statistics.removeExecutor(this);
+        delegate.shutdown();
+        try {
+            if (delegate.awaitTermination(awaitTermination.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "MultiBeanExecutor[" + name + "]";
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.core.ResolvableType;
+
+/**
+ * Implemented by a {@link MultiBean} class that creates the instances of another type, typically a class
+ * the application does not own and cannot annotate, such as a connection pool or an HTTP client:
+ * <pre>{@code
+ * @MultiBean
+ * public class PoolFactory implements MultiBeanFactory<HikariDataSource> {
+ *     private final PoolConfig poolConfig;
+ *
+ *     public PoolFactory(PoolConfig poolConfig) {
+ *         this.poolConfig = poolConfig;
+ *     }
+ *
+ *     @Override
+ *     public HikariDataSource create() {
+ *         HikariDataSource dataSource = new HikariDataSource();
+ *         dataSource.setJdbcUrl(poolConfig.getUrl());
+ *         dataSource.setMaximumPoolSize(poolConfig.getMaxSize());
+ *         return dataSource;
+ *     }
+ * }
+ * }</pre>
+ * The {@code class} of an entry then names the factory:
+ * <pre>{@code
+ * multibean:
+ *   tenant-a-pool:
+ *     class: PoolFactory
+ *     pool:
+ *       max-size: 20
+ * }</pre>
+ * The factory is created like any other {@link MultiBean} class, with the configs of its entry injected into its
+ * constructor and fields, and {@link #create()} is called once. The created instance is registered under the
+ * name of the entry, {@code tenantAPool}, and injected, looked up through {@link MultiBeans} and selected through
+ * {@link MultiBeanSelector} by its own type. The factory itself is available as {@code &tenantAPool}.
+ * <br>
+ * <br>
+ * The created instance is passed to {@link #destroy(Object)} when the factory is destroyed, which closes it
+ * by default.
+ *
+ * @param <T> the type of the created instances
+ */
+public interface MultiBeanFactory<T> extends FactoryBean<T> {
+
+    /**
+     * Creates the instance of this factory's entry.
+     *
+     * @throws Exception if the instance cannot be created
+     */
+    T create() throws Exception;
+
+    /**
+     * Releases an instance created by {@link #create()}, closing it when it is {@link AutoCloseable}.
+     *
+     * @throws Exception if the instance cannot be released
+     */
+    default void destroy(T instance) throws Exception {
+        if (instance instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Override
+    default T getObject() throws Exception {
+        return create();
+    }
+
+    @Override
+    default Class<?> getObjectType() {
+        return ResolvableType.forClass(getClass()).as(MultiBeanFactory.class).resolveGeneric(0);
+    }
+}
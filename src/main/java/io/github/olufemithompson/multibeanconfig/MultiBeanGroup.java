@@ -0,0 +1,529 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cglib.proxy.MethodInterceptor;
+import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads the calls of a group of instances over its members, hedging slow calls and failing over from failed ones:
+ * <pre>{@code
+ * multibean:
+ *   group:
+ *     partner-client:
+ *       members: [default-client, fail-over-client]
+ * }</pre>
+ * A bean of the type the members share is registered under the name of the group. Each call to one of its public
+ * methods is made to the first healthy member. When it has not returned after the hedge delay, the same call is
+ * also made to the next healthy member, and so on; when it fails, the next healthy member is called straight away.
+ * The first result returned wins, and the calls still running are cancelled by interrupting them.
+ * <br>
+ * <br>
+ * The hedge delay is by default the 95th percentile latency of the member being waited for, per method, over the
+ * last 10 to 20 seconds, so about one call in twenty is hedged whatever the latency of the member. It is computed
+ * from the difference of two {@link MultiBeanLatencyRecorder} snapshots once a second, so a call only reads it.
+ * Cancelled calls are recorded with the time they ran for, so that the tail of a member that keeps losing stays
+ * visible. A member failing {@code unhealthy-after} calls in a row is skipped for {@code unhealthy-for}, and so is
+ * a member whose warm-up failed; when no member is healthy, all are tried.
+ * <br>
+ * <br>
+ * Members that may still be hedged are called on a pool of at most {@code max-threads} threads of the group, while
+ * the caller waits for the first result, so a member that does not respond to interrupts, e.g. in blocking socket
+ * I/O, holds its pool thread but not the caller. Those calls run without the thread-local context of the caller,
+ * such as its transaction, security context or logging context. The last member left to try is called on the
+ * caller's thread, and so is a group of one member, since nothing could hedge it; so is the next member while the
+ * pool is busy, and it is then not hedged. The members must be safe to call concurrently, and since a call may be
+ * made to several members, only idempotent methods should be called through a group.
+ */
+final class MultiBeanGroup implements DisposableBean {
+
+    /**
+     * How often the hedge delays are recomputed.
+     */
+    private static final long UPDATE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * How long the latencies a hedge delay is computed from are kept, at least.
+     */
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * The calls a window needs before its percentile replaces the hedge delay.
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * The {@code multibean.group.<name>} block of a group.
+     *
+     * @param members             the names of the members, in the order they are tried; an entry declared with
+     *                            {@code replicas} stands for its replicas
+     * @param type                the type the group bean implements, by default the class the members share
+     * @param hedgeDelay          how long a call waits before it is hedged: a percentile of the latency of the
+     *                            member being waited for, e.g. {@code p95} or {@code p99.9}, or a duration
+     * @param initialHedgeDelay   the hedge delay of a percentile until the member has enough calls
+     * @param minHedgeDelay       the shortest hedge delay of a percentile
+     * @param unhealthyAfter      the failures in a row after which a member is skipped
+     * @param unhealthyFor        how long an unhealthy member is skipped
+     * @param maxThreads          the calls of the group running on its pool at the same time
+     */
+    record Settings(List<String> members,
+                    Class<?> type,
+                    @DefaultValue("p95") String hedgeDelay,
+                    @DefaultValue("100ms") Duration initialHedgeDelay,
+                    @DefaultValue("1ms") Duration minHedgeDelay,
+                    @DefaultValue("3") int unhealthyAfter,
+                    @DefaultValue("30s") Duration unhealthyFor,
+                    @DefaultValue("64") int maxThreads) {
+    }
+
+    private final String name;
+
+    private final Class<?> type;
+
+    private final List<String> members;
+
+    private final MultiBeanSelector<?> selector;
+
+    private final double hedgeQuantile;
+
+    private final long fixedHedgeDelayNanos;
+
+    private final long initialHedgeDelayNanos;
+
+    private final long minHedgeDelayNanos;
+
+    private final int unhealthyAfter;
+
+    private final long unhealthyForNanos;
+
+    private final AtomicIntegerArray failures;
+
+    private final AtomicLongArray unhealthyUntil;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder failovers = new LongAdder();
+
+    private final ExecutorService executor;
+
+    private final Object proxy;
+
+    /**
+     * @param name     the name declared under {@code multibean.group}
+     * @param type     the type the members share
+     * @param members  the names of the members, replicas expanded
+     */
+    MultiBeanGroup(String name, Class<?> type, List<String> members, Settings settings,
+                   BeanFactory beanFactory) {
+        this.name = name;
+        this.type = type;
+        this.members = List.copyOf(members);
+        this.selector = new MultiBeanSelector<>(type, members, beanFactory);
+        String hedgeDelay = settings.hedgeDelay().trim();
+        try {
+            if (hedgeDelay.startsWith("p")) {
+                this.hedgeQuantile = Double.parseDouble(hedgeDelay.substring(1)) / 100;
+                this.fixedHedgeDelayNanos = -1;
+                if (!(hedgeQuantile > 0 && hedgeQuantile < 1)) {
+                    throw new IllegalArgumentException(hedgeDelay);
+                }
+            } else {
+                this.hedgeQuantile = 0;
+                this.fixedHedgeDelayNanos = DurationStyle.detectAndParse(hedgeDelay).toNanos();
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(String.format(
+                    "Invalid hedge-delay value '%s' for group %s, expecting a percentile such as p95 or a duration",
+                    hedgeDelay, name), e);
+        }
+        if (settings.unhealthyAfter() < 1) {
+            throw new RuntimeException(String.format(
+                    "Invalid unhealthy-after value %d for group %s", settings.unhealthyAfter(), name));
+        }
+        this.initialHedgeDelayNanos = settings.initialHedgeDelay().toNanos();
+        this.minHedgeDelayNanos = settings.minHedgeDelay().toNanos();
+        this.unhealthyAfter = settings.unhealthyAfter();
+        this.unhealthyForNanos = settings.unhealthyFor().toNanos();
+        this.failures = new AtomicIntegerArray(members.size());
+        this.unhealthyUntil = new AtomicLongArray(members.size());
+        if (settings.maxThreads() < 1) {
+            throw new RuntimeException(String.format(
+                    "Invalid max-threads value %d for group %s", settings.maxThreads(), name));
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("multibean-group-" + name + "-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(0, settings.maxThreads(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory);
+
+        List<Method> methods = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            if (MultiBeanProxyClass.isInterceptable(method)) {
+                methods.add(method);
+            }
+        }
+        MethodInterceptor[] interceptors = new MethodInterceptor[methods.size()];
+        for (int index = 0; index < interceptors.length; index++) {
+            interceptors[index] = new Hedger();
+        }
+        this.proxy = MultiBeanProxyClass.generate(type, methods, name).create(() -> selector.get(0), interceptors);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * The bean registered under the name of the group.
+     */
+    Object getProxy() {
+        return proxy;
+    }
+
+    long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * The calls made to another member because the one waited for was slower than the hedge delay.
+     */
+    long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * The calls made to another member because the one called failed.
+     */
+    long getFailovers() {
+        return failovers.sum();
+    }
+
+    int getUnhealthyCount() {
+        long now = System.nanoTime();
+        int unhealthy = 0;
+        for (int member = 0; member < members.size(); member++) {
+            if (!isHealthy(member, now)) {
+                unhealthy++;
+            }
+        }
+        return unhealthy;
+    }
+
+    private boolean isHealthy(int member, long now) {
+        long until = unhealthyUntil.get(member);
+        return until == 0 || now - until >= 0;
+    }
+
+    /**
+     * The members to try, healthy ones first in their declared order, or all of them when none is healthy.
+     */
+    private int[] order() {
+        long now = System.nanoTime();
+        int[] order = new int[members.size()];
+        int healthy = 0;
+        for (int member = 0; member < order.length; member++) {
+            if (isHealthy(member, now)) {
+                order[healthy++] = member;
+            }
+        }
+        if (healthy == 0) {
+            for (int member = 0; member < order.length; member++) {
+                order[member] = member;
+            }
+            return order;
+        }
+        int[] healthyOrder = new int[healthy];
+        System.arraycopy(order, 0, healthyOrder, 0, healthy);
+        return healthyOrder;
+    }
+
+    /**
+     * Skips the given member for {@code unhealthy-for} when its warm-up did not complete. Called by
+     * {@link MultiBeanStatistics} once the warm-up of an instance ended.
+     */
+    void warmedUp(String name, MultiBeanStatistics.WarmupStatus status) {
+        if (status == MultiBeanStatistics.WarmupStatus.COMPLETED) {
+            return;
+        }
+        for (int member = 0; member < members.size(); member++) {
+            if (members.get(member).equals(name)) {
+                unhealthyUntil.set(member, System.nanoTime() + unhealthyForNanos);
+            }
+        }
+    }
+
+    private void succeeded(int member) {
+        if (failures.get(member) != 0) {
+            failures.set(member, 0);
+        }
+    }
+
+    private void failed(int member) {
+        if (failures.incrementAndGet(member) >= unhealthyAfter) {
+            failures.set(member, 0);
+            unhealthyUntil.set(member, System.nanoTime() + unhealthyForNanos);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hedges the calls of one method.
+     */
+    private final class Hedger implements MethodInterceptor {
+
+        private final HedgeDelay[] delays = new HedgeDelay[members.size()];
+
+        private Hedger() {
+            for (int member = 0; member < delays.length; member++) {
+                delays[member] = new HedgeDelay();
+            }
+        }
+
+        @Override
+        public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+            calls.increment();
+            Call call = new Call(order(), methodProxy, args);
+            try {
+                return call.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(String.format("Interrupted while calling group %s", name), e);
+            } finally {
+                call.cancel();
+            }
+        }
+
+        /**
+         * One call through the group, waiting for the first result of the members called, and hedging to the next
+         * member while the last one called is slower than its hedge delay.
+         */
+        private final class Call {
+
+            private final int[] order;
+
+            private final MethodProxy methodProxy;
+
+            private final Object[] args;
+
+            private final BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+
+            private final List<Attempt> attempts;
+
+            // whether the pool refused a call, so that no more are hedged
+            private boolean saturated;
+
+            private Call(int[] order, MethodProxy methodProxy, Object[] args) {
+                this.order = order;
+                this.methodProxy = methodProxy;
+                this.args = args;
+                this.attempts = new ArrayList<>(order.length);
+            }
+
+            private Object run() throws Throwable {
+                Throwable failure = null;
+                int pending = 0;
+                while (true) {
+                    if (pending == 0) {
+                        if (attempts.size() == order.length) {
+                            throw failure;
+                        }
+                        if (!attempts.isEmpty()) {
+                            failovers.increment();
+                        }
+                        start(true);
+                        pending++;
+                        continue;
+                    }
+                    Attempt attempt;
+                    if (attempts.size() < order.length && !saturated) {
+                        long delay = delays[attempts.get(attempts.size() - 1).member].get();
+                        attempt = completed.poll(delay, TimeUnit.NANOSECONDS);
+                        if (attempt == null) {
+                            if (start(false)) {
+                                hedges.increment();
+                                pending++;
+                            }
+                            continue;
+                        }
+                    } else {
+                        attempt = completed.take();
+                    }
+                    pending--;
+                    if (attempt.failure == null) {
+                        return attempt.result;
+                    }
+                    if (failure == null) {
+                        failure = attempt.failure;
+                    } else {
+                        failure.addSuppressed(attempt.failure);
+                    }
+                }
+            }
+
+            /**
+             * Calls the next member: on the pool while it may still be hedged, otherwise on the caller's thread.
+             *
+             * @param required whether the member must be called, and is called on the caller's thread when the
+             *                 pool is busy, rather than skipped
+             * @return whether the member was called
+             */
+            private boolean start(boolean required) {
+                Attempt attempt = new Attempt(order[attempts.size()]);
+                attempts.add(attempt);
+                if (required && attempts.size() == order.length) {
+                    execute(attempt);
+                    return true;
+                }
+                try {
+                    attempt.future = executor.submit(() -> execute(attempt));
+                    return true;
+                } catch (RejectedExecutionException e) {
+                    saturated = true;
+                    if (required) {
+                        execute(attempt);
+                        return true;
+                    }
+                    attempts.remove(attempts.size() - 1);
+                    return false;
+                }
+            }
+
+            private void execute(Attempt attempt) {
+                int member = attempt.member;
+                long start = System.nanoTime();
+                boolean failed = true;
+                try {
+                    attempt.result = methodProxy.invoke(selector.get(member), args);
+                    failed = false;
+                } catch (Throwable e) {
+                    attempt.failure = e;
+                } finally {
+                    delays[member].recorder.record(System.nanoTime() - start, failed && !attempt.cancelled);
+                    if (!attempt.cancelled) {
+                        if (failed) {
+                            failed(member);
+                        } else {
+                            succeeded(member);
+                        }
+                    }
+                    attempt.done = true;
+                    completed.offer(attempt);
+                }
+            }
+
+            private void cancel() {
+                for (Attempt attempt : attempts) {
+                    attempt.cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * A call made to one member.
+     */
+    private static final class Attempt {
+
+        private final int member;
+
+        private volatile Future<?> future;
+
+        private volatile Object result;
+
+        private volatile Throwable failure;
+
+        private volatile boolean done;
+
+        private volatile boolean cancelled;
+
+        private Attempt(int member) {
+            this.member = member;
+        }
+
+        private void cancel() {
+            if (!done) {
+                cancelled = true;
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * The latencies of one method of one member, and the hedge delay computed from them.
+     */
+    private final class HedgeDelay {
+
+        private final MultiBeanLatencyRecorder recorder = new MultiBeanLatencyRecorder();
+
+        private volatile long delayNanos = fixedHedgeDelayNanos >= 0 ? fixedHedgeDelayNanos : initialHedgeDelayNanos;
+
+        private volatile long nextUpdate = System.nanoTime() + UPDATE_NANOS;
+
+        private MultiBeanLatencyRecorder.Snapshot older;
+
+        private MultiBeanLatencyRecorder.Snapshot previous;
+
+        private long rotatedAt = System.nanoTime();
+
+        long get() {
+            if (fixedHedgeDelayNanos < 0 && System.nanoTime() - nextUpdate >= 0) {
+                update();
+            }
+            return delayNanos;
+        }
+
+        /**
+         * Computes the percentile of the calls made since the older of the last two snapshots, taken
+         * {@link #WINDOW_NANOS} apart, so that it covers between one and two windows.
+         */
+        private synchronized void update() {
+            long now = System.nanoTime();
+            if (now - nextUpdate < 0) {
+                return;
+            }
+            nextUpdate = now + UPDATE_NANOS;
+            MultiBeanLatencyRecorder.Snapshot current = recorder.snapshot();
+            MultiBeanLatencyRecorder.Snapshot recent = older != null ? current.since(older) : current;
+            if (recent.count() >= MIN_SAMPLES) {
+                delayNanos = Math.max(minHedgeDelayNanos, recent.valueAt(hedgeQuantile));
+            }
+            if (now - rotatedAt >= WINDOW_NANOS) {
+                older = previous;
+                previous = current;
+                rotatedAt = now;
+            }
+        }
+    }
+}
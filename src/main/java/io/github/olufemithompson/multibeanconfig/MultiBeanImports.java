@@ -0,0 +1,173 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static io.github.olufemithompson.multibeanconfig.Utils.putNestedValueIfAbsent;
+
+/**
+ * Reads the entries of {@code multibean.import-dir}, a directory holding one file per instance:
+ * <pre>{@code
+ * tenants/
+ *   tenant-a-client.yml
+ *   tenant-b-client.properties
+ * }</pre>
+ * Each file is named after its instance and holds what would otherwise be its {@code multibean.<name>} entry,
+ * {@code class} included, in any format a {@link PropertySourceLoader} reads. Files are parsed in parallel.
+ * <br>
+ * <br>
+ * Each {@link MultiBeanDefinitionPostProcessor} keeps its own instance, which caches the parsed entries of the
+ * files it read by path, modification time and size, so a refresh only parses the files that changed. The cache
+ * only holds the files of the directory last read, and goes with the context.
+ */
+final class MultiBeanImports {
+
+    private static final Log logger = LogFactory.getLog(MultiBeanImports.class);
+
+    private static final List<PropertySourceLoader> LOADERS =
+            SpringFactoriesLoader.loadFactories(PropertySourceLoader.class, MultiBeanImports.class.getClassLoader());
+
+    private final Map<Path, ImportedEntry> cache = new ConcurrentHashMap<>();
+
+    private Path directory;
+
+    private Map<String, Object> entries;
+
+    /**
+     * A parsed file, valid as long as the file keeps its modification time and size.
+     */
+    private record ImportedEntry(FileTime lastModified, long size, Map<String, Object> config) {
+    }
+
+    /**
+     * Returns the entries of the given directory, keyed by instance name in file name order.
+     * <br>
+     * <br>
+     * A missing directory fails the first load. When the directory read before is missing on a later load,
+     * e.g. while a deployment replaces it during a refresh, the entries read before are kept.
+     */
+    synchronized Map<String, Object> load(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            if (entries != null && directory.equals(this.directory)) {
+                logger.warn(String.format("multibean import directory %s does not exist, keeping the entries read before", directory));
+                return entries;
+            }
+            throw new RuntimeException(String.format("multibean import directory %s does not exist", directory));
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(file -> Files.isRegularFile(file) && isImport(file))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to list multibean import directory %s", directory), e);
+        }
+        List<Map.Entry<Path, Map<String, Object>>> parsed = (files.size() > 1 ? files.parallelStream() : files.stream())
+                .map(file -> Map.entry(file, read(file)))
+                .toList();
+        Set<Path> present = new HashSet<>(files);
+        cache.keySet().removeIf(file -> !present.contains(file));
+
+        Map<String, Object> entries = new LinkedHashMap<>();
+        Map<String, Path> declaredIn = new HashMap<>();
+        for (Map.Entry<Path, Map<String, Object>> entry : parsed) {
+            String name = getInstanceName(entry.getKey());
+            Path previous = declaredIn.putIfAbsent(name, entry.getKey());
+            if (previous != null) {
+                throw new RuntimeException(String.format(
+                        "A bean named %s is declared more than once, in %s and %s", name, previous, entry.getKey()));
+            }
+            entries.put(name, entry.getValue());
+        }
+        this.directory = directory;
+        this.entries = entries;
+        return entries;
+    }
+
+    private Map<String, Object> read(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            ImportedEntry cached = cache.get(file);
+            if (cached != null
+                    && cached.lastModified().equals(attributes.lastModifiedTime())
+                    && cached.size() == attributes.size()) {
+                return cached.config();
+            }
+            Map<String, Object> config = parse(file);
+            cache.put(file, new ImportedEntry(attributes.lastModifiedTime(), attributes.size(), config));
+            return config;
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to read multibean import %s", file), e);
+        }
+    }
+
+    /**
+     * Parses a file into a nested map. Of a multi-document file, later documents take precedence.
+     */
+    private static Map<String, Object> parse(Path file) throws IOException {
+        List<PropertySource<?>> documents = new ArrayList<>(
+                getLoader(file).load(file.getFileName().toString(), new FileSystemResource(file)));
+        Map<String, Object> config = new HashMap<>();
+        for (int index = documents.size() - 1; index >= 0; index--) {
+            if (documents.get(index) instanceof EnumerablePropertySource<?> document) {
+                for (String key : document.getPropertyNames()) {
+                    putNestedValueIfAbsent(config, key, 0, getRawValue(document, key));
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Keeps the {@code OriginTrackedValue} of a property, so the file and line an instance was declared at are known.
+     */
+    private static Object getRawValue(EnumerablePropertySource<?> document, String key) {
+        return document.getSource() instanceof Map<?, ?> source && source.containsKey(key)
+                ? source.get(key)
+                : document.getProperty(key);
+    }
+
+    private static String getInstanceName(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.lastIndexOf('.'));
+    }
+
+    /**
+     * Whether a file in the import directory holds an entry.
+     */
+    static boolean isImport(Path file) {
+        return !file.getFileName().toString().startsWith(".") && getLoader(file) != null;
+    }
+
+    private static PropertySourceLoader getLoader(Path file) {
+        String fileName = file.getFileName().toString();
+        for (PropertySourceLoader loader : LOADERS) {
+            for (String extension : loader.getFileExtensions()) {
+                if (fileName.endsWith("." + extension)) {
+                    return loader;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.util.ClassUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_BEAN_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_CONFIG_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_CONSTRUCTOR_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_PARAMETER_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_VALUE_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_INDEX_LOCATION;
+
+/**
+ * Reads the {@code META-INF/multibean.index} files written by {@link MultiBeanIndexProcessor}.
+ * <br>
+ * <br>
+ * Every jar or output directory compiled with the processor contributes its own index file.
+ * The file is line based, with tab separated columns:
+ * <ul>
+ *  <li>{@code bean <class>} starts the description of a {@link MultiBean} class.</li>
+ *  <li>{@code config <field> <config class> <prefix>} declares a {@code @ConfigurationProperties} field.</li>
+ *  <li>{@code value <field> <property key>} declares a {@code @Value} field.</li>
+ *  <li>{@code constructor} starts a new constructor of the current class.</li>
+ *  <li>{@code param <name> <type> <property key>} declares a parameter of the current constructor,
+ *      the property key being empty when the parameter has no {@code @Value}.</li>
+ * </ul>
+ * Backslashes, tabs and line breaks within a column are written as {@code \\}, {@code \t}, {@code \n}
+ * and {@code \r}.
+ */
+final class MultiBeanIndex {
+
+    private MultiBeanIndex() {
+    }
+
+    /**
+     * Loads every index visible to the given class loader.
+     *
+     * @return the indexed classes, or {@code null} when no index is present on the classpath
+     */
+    static List<MultiBeanMetadata> load(ClassLoader classLoader) {
+        Enumeration<URL> resources;
+        try {
+            resources = classLoader.getResources(MULTIBEAN_INDEX_LOCATION);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to look up " + MULTIBEAN_INDEX_LOCATION, e);
+        }
+        if (!resources.hasMoreElements()) {
+            return null;
+        }
+        List<MultiBeanMetadata> metadata = new ArrayList<>();
+        for (URL resource : Collections.list(resources)) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                parse(reader, classLoader, metadata);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to read multibean index " + resource, e);
+            }
+        }
+        return metadata;
+    }
+
+    private static void parse(BufferedReader reader,
+                              ClassLoader classLoader,
+                              List<MultiBeanMetadata> metadata) throws IOException {
+        Class<?> beanClass = null;
+        List<MultiBeanMetadata.ConfigDependency> configDependencies = new ArrayList<>();
+        List<MultiBeanMetadata.ValueDependency> valueDependencies = new ArrayList<>();
+        List<List<MultiBeanMetadata.ConstructorParameter>> constructors = new ArrayList<>();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split("\t", -1);
+            for (int column = 1; column < columns.length; column++) {
+                columns[column] = unescape(columns[column]);
+            }
+            switch (columns[0]) {
+                case INDEX_BEAN_RECORD -> {
+                    if (beanClass != null) {
+                        metadata.add(new MultiBeanMetadata(beanClass, configDependencies, valueDependencies, constructors));
+                    }
+                    beanClass = resolveClass(columns[1], classLoader);
+                    configDependencies = new ArrayList<>();
+                    valueDependencies = new ArrayList<>();
+                    constructors = new ArrayList<>();
+                }
+                case INDEX_CONFIG_RECORD -> configDependencies.add(new MultiBeanMetadata.ConfigDependency(
+                        columns[1],
+                        resolveClass(columns[2], classLoader),
+                        columns[3]
+                ));
+                case INDEX_VALUE_RECORD -> valueDependencies.add(new MultiBeanMetadata.ValueDependency(
+                        columns[1],
+                        columns[2]
+                ));
+                case INDEX_CONSTRUCTOR_RECORD -> constructors.add(new ArrayList<>());
+                case INDEX_PARAMETER_RECORD -> constructors.get(constructors.size() - 1).add(
+                        new MultiBeanMetadata.ConstructorParameter(
+                                columns[1],
+                                resolveClass(columns[2], classLoader),
+                                columns[3].isEmpty() ? null : columns[3]
+                        ));
+                default -> throw new RuntimeException(String.format("Unknown multibean index record : %s", line));
+            }
+        }
+        if (beanClass != null) {
+            metadata.add(new MultiBeanMetadata(beanClass, configDependencies, valueDependencies, constructors));
+        }
+    }
+
+    private static String unescape(String column) {
+        if (column.indexOf('\\') < 0) {
+            return column;
+        }
+        StringBuilder unescaped = new StringBuilder(column.length());
+        for (int index = 0; index < column.length(); index++) {
+            char character = column.charAt(index);
+            if (character == '\\' && index + 1 < column.length()) {
+                char escaped = column.charAt(++index);
+                character = switch (escaped) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> escaped;
+                };
+            }
+            unescaped.append(character);
+        }
+        return unescaped.toString();
+    }
+
+    private static Class<?> resolveClass(String className, ClassLoader classLoader) {
+        try {
+            return ClassUtils.forName(className, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new RuntimeException(String.format("Cannot load class %s listed in %s", className, MULTIBEAN_INDEX_LOCATION), e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_BEAN_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_CONFIG_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_CONSTRUCTOR_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_PARAMETER_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.INDEX_VALUE_RECORD;
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_INDEX_LOCATION;
+
+/**
+ * An annotation processor that writes {@code META-INF/multibean.index} for the classes
+ * annotated with {@link MultiBean} in the current compilation.
+ * <br>
+ * <br>
+ * The index lists each class together with its {@code @ConfigurationProperties} fields,
+ * {@code @Value} fields and constructor parameters, so that {@link MultiBeanDefinitionPostProcessor}
+ * can expand the classes at startup without scanning the classpath. The format is described
+ * in {@link MultiBeanIndex}.
+ * <br>
+ * <br>
+ * The processor is registered through {@code META-INF/services} and runs automatically when the
+ * library is on the compile classpath. Builds declaring explicit annotation processor paths need
+ * to add this artifact to them.
+ */
+@SupportedAnnotationTypes("io.github.olufemithompson.multibeanconfig.MultiBean")
+public class MultiBeanIndexProcessor extends AbstractProcessor {
+
+    private static final String CONFIGURATION_PROPERTIES_ANNOTATION =
+            "org.springframework.boot.context.properties.ConfigurationProperties";
+
+    private static final String VALUE_ANNOTATION = "org.springframework.beans.factory.annotation.Value";
+
+    private final Set<String> multiBeanClasses = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement typeElement) {
+                    multiBeanClasses.add(typeElement.getQualifiedName().toString());
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        readExistingIndex();
+        if (multiBeanClasses.isEmpty()) {
+            return;
+        }
+        StringBuilder index = new StringBuilder("# Generated by ")
+                .append(MultiBeanIndexProcessor.class.getSimpleName())
+                .append('\n');
+        for (String className : multiBeanClasses) {
+            TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(className);
+            if (typeElement != null && isMultiBean(typeElement)) {
+                appendBean(index, typeElement);
+            }
+        }
+        try {
+            FileObject file = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", MULTIBEAN_INDEX_LOCATION);
+            try (Writer writer = file.openWriter()) {
+                writer.write(index.toString());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "Unable to write " + MULTIBEAN_INDEX_LOCATION + ": " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Keeps classes indexed by a previous compilation, so incremental builds that only
+     * recompile some sources do not drop entries.
+     */
+    private void readExistingIndex() {
+        try {
+            FileObject existing = processingEnv.getFiler()
+                    .getResource(StandardLocation.CLASS_OUTPUT, "", MULTIBEAN_INDEX_LOCATION);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(INDEX_BEAN_RECORD + "\t")) {
+                        multiBeanClasses.add(line.substring(INDEX_BEAN_RECORD.length() + 1).replace('$', '.'));
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // no index from a previous compilation
+        }
+    }
+
+    private void appendBean(StringBuilder index, TypeElement typeElement) {
+        appendRecord(index, INDEX_BEAN_RECORD, binaryName(typeElement));
+        for (Element member : typeElement.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.FIELD) {
+                continue;
+            }
+            VariableElement field = (VariableElement) member;
+            if (field.asType() instanceof DeclaredType declaredType) {
+                TypeElement fieldType = (TypeElement) declaredType.asElement();
+                AnnotationMirror configurationProperties = findAnnotation(fieldType, CONFIGURATION_PROPERTIES_ANNOTATION);
+                if (configurationProperties != null) {
+                    String prefix = annotationValue(configurationProperties, "value");
+                    if (prefix.isEmpty()) {
+                        prefix = annotationValue(configurationProperties, "prefix");
+                    }
+                    appendRecord(index, INDEX_CONFIG_RECORD,
+                            field.getSimpleName().toString(), binaryName(fieldType), prefix);
+                }
+            }
+            AnnotationMirror value = findAnnotation(field, VALUE_ANNOTATION);
+            if (value != null) {
+                appendRecord(index, INDEX_VALUE_RECORD,
+                        field.getSimpleName().toString(), formatPropertyKey(annotationValue(value, "value")));
+            }
+        }
+        for (Element member : typeElement.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.CONSTRUCTOR) {
+                continue;
+            }
+            appendRecord(index, INDEX_CONSTRUCTOR_RECORD);
+            for (VariableElement parameter : ((ExecutableElement) member).getParameters()) {
+                AnnotationMirror value = findAnnotation(parameter, VALUE_ANNOTATION);
+                appendRecord(index, INDEX_PARAMETER_RECORD,
+                        parameter.getSimpleName().toString(),
+                        typeName(parameter.asType()),
+                        value != null ? formatPropertyKey(annotationValue(value, "value")) : "");
+            }
+        }
+    }
+
+    private boolean isMultiBean(TypeElement typeElement) {
+        return findAnnotation(typeElement, MultiBean.class.getName()) != null;
+    }
+
+    private static void appendRecord(StringBuilder index, String... columns) {
+        for (int column = 0; column < columns.length; column++) {
+            if (column > 0) {
+                index.append('\t');
+            }
+            index.append(escape(columns[column]));
+        }
+        index.append('\n');
+    }
+
+    /**
+     * Escapes the backslashes, tabs and line breaks of a column, e.g. in a {@code @Value} default,
+     * as read back by {@link MultiBeanIndex}.
+     */
+    private static String escape(String column) {
+        return column.replace("\\", "\\\\")
+                .replace("\t", "\\t")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r");
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private static String annotationValue(AnnotationMirror annotation, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue().getValue().toString();
+            }
+        }
+        return "";
+    }
+
+    private String typeName(TypeMirror type) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        if (erased.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) erased).getComponentType()) + "[]";
+        }
+        if (erased instanceof DeclaredType declaredType) {
+            return binaryName((TypeElement) declaredType.asElement());
+        }
+        return erased.toString();
+    }
+
+    private String binaryName(TypeElement typeElement) {
+        return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+    }
+
+    /**
+     * Same transformation as {@link Utils#formatConfigProperties(String)}, kept local so the
+     * processor does not load Spring classes inside the compiler.
+     */
+    private static String formatPropertyKey(String input) {
+        return input.replaceAll("\\$\\{|\\}", "");
+    }
+}
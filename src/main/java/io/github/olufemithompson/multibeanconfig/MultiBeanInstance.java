@@ -0,0 +1,106 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One declared entry of the {@code multibean} section, with its configuration bound and
+ * ready to be registered.
+ * <br>
+ * <br>
+ * Preparing an instance only reads the environment, so independent instances can be prepared
+ * concurrently. Registering them in the bean definition registry and in {@link MultiBeanConfigRegistry}
+ * is done afterwards, one at a time and in declaration order.
+ *
+ * @param name            the name declared under {@code multibean}, e.g. {@code default-client}
+ * @param initialization  when the instance and its configuration are created
+ * @param metadata        the resolved {@link MultiBean} class
+ * @param configs         the bound {@code @ConfigurationProperties} dependencies
+ * @param values          the {@code @Value} field values declared for this instance, keyed by field name
+ * @param executor        the {@code executor} block of this instance, or {@code null} when it has none
+ * @param beanDefinition  the definition of the main bean, {@code null} when it was generated ahead of time
+ */
+record MultiBeanInstance(String name,
+                         Initialization initialization,
+                         MultiBeanMetadata metadata,
+                         List<BoundConfig> configs,
+                         Map<String, Object> values,
+                         MultiBeanExecutor.Settings executor,
+                         BeanDefinition beanDefinition) {
+
+    /**
+     * The bean name the instance is registered under.
+     */
+    String beanName() {
+        return Utils.kebabToCamelCase(name);
+    }
+
+    /**
+     * The bean name of the {@link MultiBeanExecutor} of the instance, when it declares one.
+     */
+    String executorBeanName() {
+        return beanName() + Constants.EXECUTOR_BEAN_NAME_SUFFIX;
+    }
+
+    /**
+     * The bean name the {@link MultiBean} class itself is instantiated under. It differs from
+     * {@link #beanName()} when the instance is exposed through a lazy proxy.
+     */
+    String targetBeanName() {
+        return initialization == Initialization.PROXY
+                ? Constants.LAZY_TARGET_BEAN_NAME_PREFIX + beanName()
+                : beanName();
+    }
+
+    /**
+     * When an instance is created, set by {@code multibean.<name>.lazy} or globally by {@code multibean.lazy}.
+     */
+    enum Initialization {
+        /**
+         * Bound at startup and created with the other singletons, the default.
+         */
+        EAGER,
+        /**
+         * Bound and created on the first lookup or injection, {@code lazy: true}.
+         */
+        LAZY,
+        /**
+         * Injected as a proxy, bound and created on the first method call, {@code lazy: proxy}.
+         */
+        PROXY;
+
+        static Initialization of(String value) {
+            String lazy = value.trim();
+            if ("true".equalsIgnoreCase(lazy)) {
+                return LAZY;
+            }
+            if ("false".equalsIgnoreCase(lazy)) {
+                return EAGER;
+            }
+            if (Constants.PROXY_CONFIG_VALUE.equalsIgnoreCase(lazy)) {
+                return PROXY;
+            }
+            throw new RuntimeException(String.format(
+                    "Invalid %s value '%s', expecting true, false or %s",
+                    Constants.LAZY_CONFIG_PARAM, value, Constants.PROXY_CONFIG_VALUE));
+        }
+    }
+
+    /**
+     * A {@code @ConfigurationProperties} dependency bound for this instance.
+     *
+     * @param fieldName       the field of the {@link MultiBean} class holding the config
+     * @param configClass     the config class
+     * @param beanName        the name of the config bean registered for this instance
+     * @param instance        the bound config object
+     * @param beanDefinition  the definition of the config bean, {@code null} when it was generated ahead of time
+     */
+    record BoundConfig(String fieldName,
+                       Class<?> configClass,
+                       String beanName,
+                       Object instance,
+                       BeanDefinition beanDefinition) {
+    }
+}
@@ -0,0 +1,167 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the calls, errors and latencies of one method of an instrumented instance, see {@link MultiBeanCallMetrics}.
+ * <br>
+ * <br>
+ * Latencies are counted in log-linear buckets, four per power of two, so a percentile is known within 25%
+ * whatever its magnitude, up to 2^40 ns, about 18 minutes. Recording takes no lock and allocates nothing:
+ * the counters are striped over a few slots of one {@link AtomicLongArray}, each thread adding to the slot
+ * picked by a random number it draws on its first call, so threads of different slots never contend, and
+ * virtual threads spread as evenly as platform ones. Reading sums the slots up.
+ */
+final class MultiBeanLatencyRecorder {
+
+    private static final int SUB_BUCKET_BITS = 2;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 40;
+
+    private static final long MAX_NANOS = (1L << MAX_EXPONENT) - 1;
+
+    static final int BUCKETS = (MAX_EXPONENT - 1) * SUB_BUCKETS;
+
+    private static final int TOTAL = BUCKETS;
+
+    private static final int ERRORS = BUCKETS + 1;
+
+    private static final int MAX = BUCKETS + 2;
+
+    /**
+     * The slots of a stripe, rounded up to whole cache lines, plus one line so that stripes do not share one.
+     */
+    private static final int STRIDE = ((MAX + 1 + 7) & ~7) + 8;
+
+    private static final int STRIPES = Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private static final ThreadLocal<Integer> STRIPE = ThreadLocal.withInitial(
+            () -> ThreadLocalRandom.current().nextInt(STRIPES));
+
+    private final AtomicLongArray counters = new AtomicLongArray(STRIPES * STRIDE);
+
+    /**
+     * Records one call.
+     *
+     * @param nanos   how long it took
+     * @param failed  whether it threw
+     */
+    void record(long nanos, boolean failed) {
+        long value = Math.min(Math.max(nanos, 0), MAX_NANOS);
+        int base = STRIPE.get() * STRIDE;
+        counters.getAndIncrement(base + bucket(value));
+        counters.getAndAdd(base + TOTAL, value);
+        if (failed) {
+            counters.getAndIncrement(base + ERRORS);
+        }
+        if (value > counters.get(base + MAX)) {
+            counters.accumulateAndGet(base + MAX, value, Math::max);
+        }
+    }
+
+    /**
+     * Sums up the stripes. Calls recorded meanwhile may be partly counted.
+     */
+    Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        long errors = 0;
+        long max = 0;
+        for (int base = 0; base < counters.length(); base += STRIDE) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[bucket] += counters.get(base + bucket);
+            }
+            total += counters.get(base + TOTAL);
+            errors += counters.get(base + ERRORS);
+            max = Math.max(max, counters.get(base + MAX));
+        }
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        return new Snapshot(count, errors, total, max, counts);
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        return (exponent - 1) * SUB_BUCKETS + (int) ((nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * The smallest latency counted in the given bucket.
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * The calls recorded up to some point.
+     *
+     * @param count       the number of calls
+     * @param errors      how many of them threw
+     * @param totalNanos  their summed latency
+     * @param maxNanos    the highest latency
+     * @param counts      the number of calls per bucket
+     */
+    record Snapshot(long count, long errors, long totalNanos, long maxNanos, long[] counts) {
+
+        /**
+         * The calls recorded since an earlier snapshot of the same recorder. The highest latency cannot be
+         * told apart, so it stays the highest one of this snapshot.
+         */
+        Snapshot since(Snapshot earlier) {
+            long[] recent = new long[counts.length];
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                recent[bucket] = counts[bucket] - earlier.counts[bucket];
+            }
+            return new Snapshot(count - earlier.count, errors - earlier.errors,
+                    totalNanos - earlier.totalNanos, maxNanos, recent);
+        }
+
+        /**
+         * The number of calls whose whole bucket lies at or below the given latency.
+         */
+        long countAtOrBelow(long nanos) {
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length && lowerBound(bucket + 1) - 1 <= nanos; bucket++) {
+                seen += counts[bucket];
+            }
+            return seen;
+        }
+
+        double meanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        /**
+         * The latency under which the given share of the calls completed, rounded up to its bucket
+         * and never above {@link #maxNanos()}, or 0 without calls.
+         *
+         * @param quantile between 0 and 1, e.g. 0.95
+         */
+        long valueAt(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank) {
+                    return Math.min(lowerBound(bucket + 1) - 1, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
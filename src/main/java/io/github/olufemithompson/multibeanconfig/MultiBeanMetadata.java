@@ -0,0 +1,180 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.ResolvableType;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import static io.github.olufemithompson.multibeanconfig.Utils.formatConfigProperties;
+
+/**
+ * Resolved description of a class annotated with {@link MultiBean}.
+ * <br>
+ * <br>
+ * Holds everything {@link MultiBeanDefinitionPostProcessor} needs to expand the class
+ * into distinct bean instances: the fields whose type carries {@link ConfigurationProperties},
+ * the fields annotated with {@link Value} and the parameters of every declared constructor.
+ * <br>
+ * <br>
+ * Instances are either read from the compile-time index written by {@link MultiBeanIndexProcessor}
+ * (see {@link MultiBeanIndex}) or built reflectively with {@link #introspect(Class)} when no index
+ * is available.
+ */
+final class MultiBeanMetadata {
+
+    private final Class<?> beanClass;
+    private final Class<?> instanceType;
+    private final List<ConfigDependency> configDependencies;
+    private final List<ValueDependency> valueDependencies;
+    private final List<List<ConstructorParameter>> constructors;
+    private volatile List<String> executorFields;
+
+    MultiBeanMetadata(Class<?> beanClass,
+                      List<ConfigDependency> configDependencies,
+                      List<ValueDependency> valueDependencies,
+                      List<List<ConstructorParameter>> constructors) {
+        this.beanClass = beanClass;
+        this.instanceType = resolveInstanceType(beanClass);
+        this.configDependencies = List.copyOf(configDependencies);
+        this.valueDependencies = List.copyOf(valueDependencies);
+        this.constructors = constructors.stream().map(List::copyOf).toList();
+    }
+
+    Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * The type of the instances: the type created by a {@link MultiBeanFactory}, or else the class itself.
+     * Handles and selectors are typed, and lazy proxies created, with this type.
+     */
+    Class<?> getInstanceType() {
+        return instanceType;
+    }
+
+    boolean isFactory() {
+        return instanceType != beanClass;
+    }
+
+    private static Class<?> resolveInstanceType(Class<?> beanClass) {
+        if (!MultiBeanFactory.class.isAssignableFrom(beanClass)) {
+            return beanClass;
+        }
+        Class<?> instanceType = ResolvableType.forClass(beanClass).as(MultiBeanFactory.class).resolveGeneric(0);
+        if (instanceType == null) {
+            throw new RuntimeException(String.format(
+                    "Cannot resolve the type created by %s, declare it as MultiBeanFactory<Type>", beanClass.getName()));
+        }
+        return instanceType;
+    }
+
+    List<ConfigDependency> getConfigDependencies() {
+        return configDependencies;
+    }
+
+    List<ValueDependency> getValueDependencies() {
+        return valueDependencies;
+    }
+
+    List<List<ConstructorParameter>> getConstructors() {
+        return constructors;
+    }
+
+    /**
+     * The {@link Autowired} fields typed {@link Executor} or {@link ExecutorService}, which receive the
+     * {@link MultiBeanExecutor} of an instance. Only needed for instances declaring an {@code executor}
+     * block, so they are resolved reflectively on first use rather than indexed.
+     */
+    List<String> getExecutorFields() {
+        List<String> fields = executorFields;
+        if (fields == null) {
+            List<String> names = new ArrayList<>();
+            for (Field field : beanClass.getDeclaredFields()) {
+                if (isExecutorType(field.getType()) && field.isAnnotationPresent(Autowired.class)) {
+                    names.add(field.getName());
+                }
+            }
+            fields = List.copyOf(names);
+            executorFields = fields;
+        }
+        return fields;
+    }
+
+    /**
+     * Whether a field or parameter of the given type receives the {@link MultiBeanExecutor} of an instance.
+     */
+    static boolean isExecutorType(Class<?> type) {
+        return type == Executor.class || type == ExecutorService.class;
+    }
+
+    /**
+     * Builds the metadata of a {@link MultiBean} class through reflection.
+     */
+    static MultiBeanMetadata introspect(Class<?> beanClass) {
+        List<ConfigDependency> configDependencies = new ArrayList<>();
+        List<ValueDependency> valueDependencies = new ArrayList<>();
+        for (Field field : beanClass.getDeclaredFields()) {
+            Class<?> configClass = field.getType();
+            ConfigurationProperties annotation = configClass.getAnnotation(ConfigurationProperties.class);
+            if (annotation != null) {
+                String prefix = annotation.value().isEmpty() ? annotation.prefix() : annotation.value();
+                configDependencies.add(new ConfigDependency(field.getName(), configClass, prefix));
+            }
+            Value valueAnnotation = field.getAnnotation(Value.class);
+            if (valueAnnotation != null) {
+                valueDependencies.add(new ValueDependency(
+                        field.getName(),
+                        formatConfigProperties(valueAnnotation.value())
+                ));
+            }
+        }
+
+        return new MultiBeanMetadata(beanClass, configDependencies, valueDependencies, introspectConstructors(beanClass));
+    }
+
+    /**
+     * Describes the parameters of every declared constructor of the given class through reflection.
+     */
+    static List<List<ConstructorParameter>> introspectConstructors(Class<?> beanClass) {
+        List<List<ConstructorParameter>> constructors = new ArrayList<>();
+        for (Constructor<?> constructor : beanClass.getDeclaredConstructors()) {
+            List<ConstructorParameter> parameters = new ArrayList<>();
+            for (Parameter parameter : constructor.getParameters()) {
+                Value valueAnnotation = parameter.getAnnotation(Value.class);
+                parameters.add(new ConstructorParameter(
+                        parameter.getName(),
+                        parameter.getType(),
+                        valueAnnotation != null ? formatConfigProperties(valueAnnotation.value()) : null
+                ));
+            }
+            constructors.add(parameters);
+        }
+        return constructors;
+    }
+
+    /**
+     * A field whose type is annotated with {@link ConfigurationProperties}.
+     */
+    record ConfigDependency(String fieldName, Class<?> configClass, String prefix) {
+    }
+
+    /**
+     * A field annotated with {@link Value}, with the placeholder already stripped from its key.
+     */
+    record ValueDependency(String fieldName, String propertyKey) {
+    }
+
+    /**
+     * A constructor parameter. {@code propertyKey} is only set when the parameter is annotated with {@link Value}.
+     */
+    record ConstructorParameter(String name, Class<?> type, String propertyKey) {
+    }
+}
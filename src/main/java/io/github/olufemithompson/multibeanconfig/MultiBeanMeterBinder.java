@@ -0,0 +1,295 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.BeanFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link MultiBeanStatistics} as Micrometer meters:
+ * <ul>
+ *  <li>{@code multibean.phase}, a timer per {@link MultiBeanStatistics.Phase}, tagged with {@code phase}</li>
+ *  <li>{@code multibean.instances}, the number of instances currently bound</li>
+ *  <li>{@code multibean.executor.queued} and {@code multibean.executor.active}, the queued and running tasks
+ *  of each {@link MultiBeanExecutor}, tagged with the {@code name} of its instance</li>
+ *  <li>{@code multibean.calls}, a timer per method of each instance declared with {@code metrics: true},
+ *  tagged with the {@code name} of the instance and the {@code method}, together with {@code multibean.calls.errors},
+ *  {@code multibean.calls.histogram}, the calls that completed within each {@code le} bound, and, over the last one
+ *  to two minutes, {@code multibean.calls.max} and {@code multibean.calls.percentile} for the 0.5, 0.95 and 0.99
+ *  {@code phi}</li>
+ *  <li>{@code multibean.cache.gets}, the hits and misses of the {@link MultiBeanCache} of each instance declaring a
+ *  {@code cache} block, tagged with the {@code name} of the instance and the {@code result}, together with
+ *  {@code multibean.cache.hit.ratio}, {@code multibean.cache.size} and {@code multibean.cache.evictions}</li>
+ *  <li>{@code multibean.group.calls}, {@code multibean.group.hedges} and {@code multibean.group.failovers}, the calls
+ *  made through each {@link MultiBeanGroup} and how many of them were hedged or failed over, together with
+ *  {@code multibean.group.unhealthy}, the members currently skipped, tagged with the {@code name} of the group</li>
+ * </ul>
+ * Per-instance bind times are left to the {@code multibeans} endpoint, to keep the number of meters
+ * independent of the number of instances. Executors, call metrics and caches are opted into per instance, and their
+ * meters are removed with their instance. The call meters read the {@link MultiBeanLatencyRecorder} of their method
+ * when published, so recording a call does not touch Micrometer at all. The meters of one method share a single
+ * snapshot of the recorder per scrape.
+ */
+final class MultiBeanMeterBinder implements MeterBinder {
+
+    private final BeanFactory beanFactory;
+
+    MultiBeanMeterBinder(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        MultiBeanStatistics statistics = MultiBeanStatistics.get(beanFactory);
+        if (statistics == null) {
+            return;
+        }
+        for (MultiBeanStatistics.Phase phase : MultiBeanStatistics.Phase.values()) {
+            FunctionTimer.builder("multibean.phase", statistics,
+                            stats -> stats.getCount(phase),
+                            stats -> stats.getTotalNanos(phase),
+                            TimeUnit.NANOSECONDS)
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .description("Time spent by the multibean library, per phase")
+                    .register(registry);
+        }
+        Gauge.builder("multibean.instances", statistics, MultiBeanStatistics::getInstanceCount)
+                .description("Number of bound multibean instances")
+                .register(registry);
+        statistics.addExecutorListener(new ExecutorGauges(registry));
+        statistics.addCallListener(new CallMeters(registry));
+        statistics.addCacheListener(new CacheMeters(registry));
+        for (MultiBeanGroup group : statistics.getGroups()) {
+            FunctionCounter.builder("multibean.group.calls", group, MultiBeanGroup::getCalls)
+                    .tag("name", group.getName())
+                    .description("Calls made through a multibean group")
+                    .register(registry);
+            FunctionCounter.builder("multibean.group.hedges", group, MultiBeanGroup::getHedges)
+                    .tag("name", group.getName())
+                    .description("Calls made to another member of a multibean group after the hedge delay")
+                    .register(registry);
+            FunctionCounter.builder("multibean.group.failovers", group, MultiBeanGroup::getFailovers)
+                    .tag("name", group.getName())
+                    .description("Calls made to another member of a multibean group after a member failed")
+                    .register(registry);
+            Gauge.builder("multibean.group.unhealthy", group, MultiBeanGroup::getUnhealthyCount)
+                    .tag("name", group.getName())
+                    .description("Members of a multibean group currently skipped as unhealthy")
+                    .register(registry);
+        }
+    }
+
+    private static final class ExecutorGauges implements MultiBeanStatistics.ExecutorListener {
+
+        private final MeterRegistry registry;
+
+        private final Map<MultiBeanExecutor, List<Meter>> meters = new ConcurrentHashMap<>();
+
+        private ExecutorGauges(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void added(MultiBeanExecutor executor) {
+            meters.put(executor, List.of(
+                    Gauge.builder("multibean.executor.queued", executor, MultiBeanExecutor::getQueueSize)
+                            .tag("name", executor.getName())
+                            .description("Tasks waiting for a thread of a multibean instance executor")
+                            .register(registry),
+                    Gauge.builder("multibean.executor.active", executor, MultiBeanExecutor::getActiveCount)
+                            .tag("name", executor.getName())
+                            .description("Tasks running on a multibean instance executor")
+                            .register(registry)));
+        }
+
+        @Override
+        public void removed(MultiBeanExecutor executor) {
+            List<Meter> removed = meters.remove(executor);
+            if (removed != null) {
+                removed.forEach(registry::remove);
+            }
+        }
+    }
+
+    private static final class CallMeters implements MultiBeanStatistics.CallListener {
+
+        private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+        private static final Duration[] HISTOGRAM_BOUNDS = {
+                Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5),
+                Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50),
+                Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+                Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10)
+        };
+
+        private final MeterRegistry registry;
+
+        private final Map<MultiBeanCallMetrics, List<Meter>> meters = new ConcurrentHashMap<>();
+
+        private CallMeters(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void added(MultiBeanCallMetrics metrics, String method, MultiBeanLatencyRecorder recorder) {
+            Tags tags = Tags.of("name", metrics.getName(), "method", method);
+            CallSnapshots snapshots = new CallSnapshots(recorder);
+            List<Meter> added = new ArrayList<>();
+            added.add(FunctionTimer.builder("multibean.calls", snapshots,
+                            calls -> calls.total().count(),
+                            calls -> calls.total().totalNanos(),
+                            TimeUnit.NANOSECONDS)
+                    .tags(tags)
+                    .description("Calls made to a multibean instance")
+                    .register(registry));
+            added.add(FunctionCounter.builder("multibean.calls.errors", snapshots, calls -> calls.total().errors())
+                    .tags(tags)
+                    .description("Calls made to a multibean instance that threw")
+                    .register(registry));
+            for (Duration bound : HISTOGRAM_BOUNDS) {
+                long boundNanos = bound.toNanos();
+                added.add(FunctionCounter.builder("multibean.calls.histogram", snapshots,
+                                calls -> calls.total().countAtOrBelow(boundNanos))
+                        .tags(tags)
+                        .tag("le", String.valueOf(boundNanos / 1e9))
+                        .description("Calls made to a multibean instance that completed within the le bound, in seconds")
+                        .register(registry));
+            }
+            added.add(TimeGauge.builder("multibean.calls.max", snapshots, TimeUnit.NANOSECONDS,
+                            calls -> calls.recent().valueAt(1))
+                    .tags(tags)
+                    .description("Highest latency of the recent calls made to a multibean instance")
+                    .register(registry));
+            for (double percentile : PERCENTILES) {
+                added.add(TimeGauge.builder("multibean.calls.percentile", snapshots, TimeUnit.NANOSECONDS,
+                                calls -> calls.recent().valueAt(percentile))
+                        .tags(tags)
+                        .tag("phi", String.valueOf(percentile))
+                        .description("Latency percentile of the recent calls made to a multibean instance")
+                        .register(registry));
+            }
+            meters.computeIfAbsent(metrics, key -> new ArrayList<>()).addAll(added);
+        }
+
+        @Override
+        public void removed(MultiBeanCallMetrics metrics) {
+            List<Meter> removed = meters.remove(metrics);
+            if (removed != null) {
+                removed.forEach(registry::remove);
+            }
+        }
+    }
+
+    /**
+     * The snapshots of one {@link MultiBeanLatencyRecorder} read by the meters of its method. A new snapshot is
+     * taken at most once per {@link #SNAPSHOT_NANOS}, so a scrape reading every meter sums up the recorder once.
+     * The recent calls are the ones made since the older of the last two snapshots kept {@link #WINDOW_NANOS}
+     * apart, like the hedge delay of a {@link MultiBeanGroup}, so a slow period stops showing after two windows.
+     */
+    private static final class CallSnapshots {
+
+        private static final long SNAPSHOT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+        private final MultiBeanLatencyRecorder recorder;
+
+        private MultiBeanLatencyRecorder.Snapshot total;
+
+        private MultiBeanLatencyRecorder.Snapshot recent;
+
+        private MultiBeanLatencyRecorder.Snapshot older;
+
+        private MultiBeanLatencyRecorder.Snapshot previous;
+
+        private long takenAt;
+
+        private long rotatedAt = System.nanoTime();
+
+        private CallSnapshots(MultiBeanLatencyRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        synchronized MultiBeanLatencyRecorder.Snapshot total() {
+            update();
+            return total;
+        }
+
+        synchronized MultiBeanLatencyRecorder.Snapshot recent() {
+            update();
+            return recent;
+        }
+
+        private void update() {
+            long now = System.nanoTime();
+            if (total != null && now - takenAt < SNAPSHOT_NANOS) {
+                return;
+            }
+            total = recorder.snapshot();
+            takenAt = now;
+            recent = older != null ? total.since(older) : total;
+            if (now - rotatedAt >= WINDOW_NANOS) {
+                older = previous;
+                previous = total;
+                rotatedAt = now;
+            }
+        }
+    }
+
+    private static final class CacheMeters implements MultiBeanStatistics.CacheListener {
+
+        private final MeterRegistry registry;
+
+        private final Map<MultiBeanCache, List<Meter>> meters = new ConcurrentHashMap<>();
+
+        private CacheMeters(MeterRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public void added(MultiBeanCache cache) {
+            meters.put(cache, List.of(
+                    FunctionCounter.builder("multibean.cache.gets", cache, MultiBeanCache::getHits)
+                            .tags("name", cache.getName(), "result", "hit")
+                            .description("Calls to a multibean instance answered from its cache")
+                            .register(registry),
+                    FunctionCounter.builder("multibean.cache.gets", cache, MultiBeanCache::getMisses)
+                            .tags("name", cache.getName(), "result", "miss")
+                            .description("Calls to a multibean instance not answered from its cache")
+                            .register(registry),
+                    Gauge.builder("multibean.cache.hit.ratio", cache, MultiBeanCache::getHitRatio)
+                            .tag("name", cache.getName())
+                            .description("Share of the calls to a multibean instance answered from its cache")
+                            .register(registry),
+                    Gauge.builder("multibean.cache.size", cache, MultiBeanCache::getSize)
+                            .tag("name", cache.getName())
+                            .description("Results held by the cache of a multibean instance")
+                            .register(registry),
+                    FunctionCounter.builder("multibean.cache.evictions", cache, MultiBeanCache::getEvictions)
+                            .tag("name", cache.getName())
+                            .description("Results evicted from the cache of a multibean instance")
+                            .register(registry)));
+        }
+
+        @Override
+        public void removed(MultiBeanCache cache) {
+            List<Meter> removed = meters.remove(cache);
+            if (removed != null) {
+                removed.forEach(registry::remove);
+            }
+        }
+    }
+}
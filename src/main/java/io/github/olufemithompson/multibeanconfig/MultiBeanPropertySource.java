@@ -0,0 +1,176 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.core.env.EnumerablePropertySource;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_PROPERTY_SOURCE;
+import static io.github.olufemithompson.multibeanconfig.Constants.PARENT_CONFIG_NAME;
+import static io.github.olufemithompson.multibeanconfig.Utils.flattenKeys;
+import static io.github.olufemithompson.multibeanconfig.Utils.getNestedValue;
+
+/**
+ * The single property source through which per-bean {@code @ConfigurationProperties} inherit their defaults.
+ * <br>
+ * <br>
+ * For every bean and configuration key registered with {@link #registerBeanConfig(String, String, Map)},
+ * a lookup of {@code multibean.<bean>.<key>.x} first resolves the bean's own {@code <key>.x} and then
+ * falls back to the default {@code <key>.x}. Both trees are held by reference and read at lookup time,
+ * so no merged copy of the defaults is kept per bean and the lookup cost does not depend on the number
+ * of beans.
+ * <br>
+ * <br>
+ * {@link #getPropertyNames()} only lists the keys each bean declares itself. Inherited defaults resolve
+ * through {@link #getProperty(String)} but are not enumerated, so the name mappings Spring Boot caches for
+ * this source grow with the number of overrides rather than with the number of beans times the size of
+ * the defaults. The {@link #forBean(String) per-bean view} used for binding lists both.
+ * <br>
+ * <br>
+ * Beans registered at runtime are resolvable but left out of {@link #getPropertyNames()}. Every lookup in
+ * the environment re-reads the names of a source whose names changed, so enumerating them would make each
+ * registration cost time proportional to the number of beans.
+ */
+class MultiBeanPropertySource extends EnumerablePropertySource<Map<String, Map<String, Map<String, Object>>>> {
+
+    private static final String NAME_PREFIX = PARENT_CONFIG_NAME + ".";
+
+    private final MultiBeanPropertyTree defaults;
+
+    private final Set<String> runtimeBeans = ConcurrentHashMap.newKeySet();
+
+    private volatile String[] propertyNames;
+
+    /**
+     * @param defaults the application properties holding the default configuration of each key
+     */
+    MultiBeanPropertySource(MultiBeanPropertyTree defaults) {
+        super(MULTIBEAN_PROPERTY_SOURCE, new ConcurrentHashMap<>());
+        this.defaults = defaults;
+    }
+
+    /**
+     * Registers the configuration a bean declares for a key, e.g. the {@code config} subtree of
+     * {@code multibean.default-client}.
+     */
+    void registerBeanConfig(String beanName, String key, Map<String, Object> beanConfig) {
+        getSource().computeIfAbsent(beanName, name -> new ConcurrentHashMap<>()).put(key, beanConfig);
+        if (!runtimeBeans.contains(beanName)) {
+            propertyNames = null;
+        }
+    }
+
+    /**
+     * Marks a bean as registered at runtime, before its configurations are registered.
+     */
+    void registerRuntimeBean(String beanName) {
+        runtimeBeans.add(beanName);
+    }
+
+    /**
+     * Removes every configuration registered for a bean.
+     */
+    void removeBeanConfigs(String beanName) {
+        if (getSource().remove(beanName) != null && !runtimeBeans.remove(beanName)) {
+            propertyNames = null;
+        }
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        if (!name.startsWith(NAME_PREFIX)) {
+            return null;
+        }
+        int beanEnd = name.indexOf('.', NAME_PREFIX.length());
+        if (beanEnd < 0) {
+            return null;
+        }
+        Map<String, Map<String, Object>> beanConfigs = getSource().get(name.substring(NAME_PREFIX.length(), beanEnd));
+        if (beanConfigs == null) {
+            return null;
+        }
+        int keyEnd = name.indexOf('.', beanEnd + 1);
+        if (keyEnd < 0) {
+            return null;
+        }
+        String key = name.substring(beanEnd + 1, keyEnd);
+        Map<String, Object> beanConfig = beanConfigs.get(key);
+        if (beanConfig == null) {
+            return null;
+        }
+        String path = name.substring(keyEnd + 1);
+        Object value = getNestedValue(beanConfig, path);
+        if (value == null) {
+            value = defaults.getValue(key, path);
+        }
+        if (value instanceof Map<?, ?>) {
+            return null;
+        }
+        return value instanceof OriginTrackedValue originTrackedValue ? originTrackedValue.getValue() : value;
+    }
+
+    @Override
+    public boolean containsProperty(String name) {
+        return getProperty(name) != null;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        String[] names = propertyNames;
+        if (names == null) {
+            Set<String> keys = new LinkedHashSet<>();
+            getSource().forEach((beanName, beanConfigs) -> {
+                if (!runtimeBeans.contains(beanName)) {
+                    collectPropertyNames(beanName, beanConfigs, false, keys);
+                }
+            });
+            names = keys.toArray(String[]::new);
+            propertyNames = names;
+        }
+        return names;
+    }
+
+    /**
+     * Returns a view of this source restricted to a single bean.
+     * <br>
+     * <br>
+     * Binding enumerates the names of iterable sources, so binding each bean against the whole
+     * source would cost time proportional to the number of beans. The view only exposes the
+     * names of the given bean.
+     */
+    EnumerablePropertySource<?> forBean(String beanName) {
+        Map<String, Map<String, Object>> beanConfigs = getSource().getOrDefault(beanName, Map.of());
+        Set<String> keys = new LinkedHashSet<>();
+        collectPropertyNames(beanName, beanConfigs, true, keys);
+        String[] names = keys.toArray(String[]::new);
+        String beanPrefix = NAME_PREFIX + beanName + ".";
+        return new EnumerablePropertySource<>(MULTIBEAN_PROPERTY_SOURCE + "." + beanName, beanConfigs) {
+            @Override
+            public Object getProperty(String name) {
+                return name.startsWith(beanPrefix) ? MultiBeanPropertySource.this.getProperty(name) : null;
+            }
+
+            @Override
+            public String[] getPropertyNames() {
+                return names;
+            }
+        };
+    }
+
+    private void collectPropertyNames(String beanName,
+                                      Map<String, Map<String, Object>> beanConfigs,
+                                      boolean includeDefaults,
+                                      Set<String> keys) {
+        beanConfigs.forEach((key, beanConfig) -> {
+            String prefix = NAME_PREFIX + beanName + "." + key;
+            flattenKeys(beanConfig, prefix, keys);
+            Map<String, Object> defaultConfig = includeDefaults ? defaults.getSubtree(key) : null;
+            if (defaultConfig != null) {
+                flattenKeys(defaultConfig, prefix, keys);
+            }
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.PropertySources;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.github.olufemithompson.multibeanconfig.Utils.getNestedValue;
+import static io.github.olufemithompson.multibeanconfig.Utils.putNestedValueIfAbsent;
+
+/**
+ * Nested views of the environment, restricted to the root keys the library actually reads.
+ * <br>
+ * <br>
+ * Only the {@code multibean} section and the default sections referenced by
+ * {@code @ConfigurationProperties} prefixes are ever needed. Each of those subtrees is built
+ * on first request by a single pass over the {@link MapPropertySource}s, keeping only the keys
+ * under the requested root, so unrelated properties are never copied. When a key is defined in
+ * several sources, the source with the highest precedence wins.
+ * <br>
+ * <br>
+ * Key segments are interned per subtree, so the entries of many instances declaring the same keys,
+ * e.g. {@code class} or {@code url}, share their key strings.
+ */
+final class MultiBeanPropertyTree {
+
+    private static final Map<String, Object> MISSING = Map.of();
+
+    private final PropertySources propertySources;
+
+    private final Map<String, Map<String, Object>> subtrees = new ConcurrentHashMap<>();
+
+    MultiBeanPropertyTree(PropertySources propertySources) {
+        this.propertySources = propertySources;
+    }
+
+    /**
+     * Returns the nested properties under the given root key, or {@code null} when none are defined.
+     */
+    Map<String, Object> getSubtree(String rootKey) {
+        Map<String, Object> subtree = subtrees.computeIfAbsent(rootKey, this::buildSubtree);
+        return subtree == MISSING ? null : subtree;
+    }
+
+    /**
+     * Returns the value at a dot separated path under the given root key, or {@code null}.
+     */
+    Object getValue(String rootKey, String path) {
+        Map<String, Object> subtree = getSubtree(rootKey);
+        return subtree != null ? getNestedValue(subtree, path) : null;
+    }
+
+    private Map<String, Object> buildSubtree(String rootKey) {
+        String prefix = rootKey + ".";
+        Map<String, Object> subtree = new LinkedHashMap<>();
+        Map<String, String> keys = new HashMap<>();
+        for (PropertySource<?> propertySource : propertySources) {
+            if (propertySource instanceof MapPropertySource mapPropertySource) {
+                for (Map.Entry<String, Object> entry : mapPropertySource.getSource().entrySet()) {
+                    if (entry.getKey().startsWith(prefix)) {
+                        putNestedValueIfAbsent(subtree, entry.getKey(), prefix.length(), entry.getValue(),
+                                key -> keys.computeIfAbsent(key, k -> k));
+                    }
+                }
+            }
+        }
+        return subtree.isEmpty() ? MISSING : subtree;
+    }
+}
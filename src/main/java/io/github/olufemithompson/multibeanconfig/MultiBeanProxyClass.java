@@ -0,0 +1,134 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.cglib.core.SpringNamingPolicy;
+import org.springframework.cglib.proxy.Callback;
+import org.springframework.cglib.proxy.CallbackFilter;
+import org.springframework.cglib.proxy.Dispatcher;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.Factory;
+import org.springframework.cglib.proxy.MethodInterceptor;
+import org.springframework.objenesis.SpringObjenesis;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A generated subclass wrapping an instance, through which {@link MultiBeanCallMetrics} records and
+ * {@link MultiBeanCache} caches its calls, and through which {@link MultiBeanGroup} spreads calls over its members.
+ * <br>
+ * <br>
+ * Every intercepted method has a callback of its own, so a call reaches its interceptor without any lookup.
+ * Every other method, final ones aside, is dispatched to the wrapped instance untouched, so the subclass
+ * holds no state of its own and is created without running a constructor. Subclasses are generated once
+ * per class and interception, and instances are cheap to create. Proxies can wrap each other.
+ */
+final class MultiBeanProxyClass {
+
+    private static final SpringObjenesis OBJENESIS = new SpringObjenesis();
+
+    private final Class<?> proxyClass;
+
+    private MultiBeanProxyClass(Class<?> proxyClass) {
+        this.proxyClass = proxyClass;
+    }
+
+    /**
+     * Generates the subclass of the given class intercepting the given methods.
+     *
+     * @param beanClass  the class of the instances to wrap, without the generated subclasses of other proxies
+     * @param methods    the intercepted methods, the interceptor of each given at the same index to {@link #wrap}
+     * @param beanName   the declared name of the instance, for error messages
+     */
+    static MultiBeanProxyClass generate(Class<?> beanClass, List<Method> methods, String beanName) {
+        if (Modifier.isFinal(beanClass.getModifiers())) {
+            throw new RuntimeException(String.format(
+                    "Class %s of declared bean %s is final and cannot be proxied", beanClass.getName(), beanName));
+        }
+        Map<Method, Integer> indexes = new HashMap<>();
+        for (Method method : methods) {
+            indexes.put(method, indexes.size() + 1);
+        }
+        Class<?>[] callbackTypes = new Class<?>[methods.size() + 1];
+        Arrays.fill(callbackTypes, MethodInterceptor.class);
+        callbackTypes[0] = Dispatcher.class;
+
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(beanClass);
+        enhancer.setClassLoader(beanClass.getClassLoader());
+        enhancer.setNamingPolicy(SpringNamingPolicy.INSTANCE);
+        enhancer.setCallbackFilter(new MethodFilter(Map.copyOf(indexes)));
+        enhancer.setCallbackTypes(callbackTypes);
+        return new MultiBeanProxyClass(enhancer.createClass());
+    }
+
+    /**
+     * Wraps an instance.
+     *
+     * @param interceptors the interceptor of each method given to {@link #generate}, in the same order
+     */
+    Object wrap(Object bean, MethodInterceptor... interceptors) {
+        return create(new Target(bean), interceptors);
+    }
+
+    /**
+     * Creates an instance handing the methods that are not intercepted to the object the given dispatcher
+     * returns, e.g. one looked up on first use.
+     *
+     * @param interceptors the interceptor of each method given to {@link #generate}, in the same order
+     */
+    Object create(Dispatcher target, MethodInterceptor... interceptors) {
+        Callback[] callbacks = new Callback[interceptors.length + 1];
+        callbacks[0] = target;
+        System.arraycopy(interceptors, 0, callbacks, 1, interceptors.length);
+        Factory proxy = (Factory) OBJENESIS.newInstance(proxyClass);
+        proxy.setCallbacks(callbacks);
+        return proxy;
+    }
+
+    /**
+     * Returns the instance behind the proxies created by {@link #wrap}, or the given bean itself.
+     */
+    static Object getTarget(Object bean) {
+        Object target = bean;
+        while (target instanceof Factory proxy && proxy.getCallback(0) instanceof Target wrapped) {
+            target = wrapped.bean;
+        }
+        return target;
+    }
+
+    /**
+     * Whether a method of a class can be intercepted.
+     */
+    static boolean isInterceptable(Method method) {
+        return method.getDeclaringClass() != Object.class
+                && !Modifier.isFinal(method.getModifiers())
+                && !Modifier.isStatic(method.getModifiers());
+    }
+
+    /**
+     * Routes each intercepted method to its own callback, and every other method to {@link Target}.
+     * Equal for equal tables, so that Spring's class cache reuses the generated subclass.
+     */
+    private record MethodFilter(Map<Method, Integer> indexes) implements CallbackFilter {
+
+        @Override
+        public int accept(Method method) {
+            return indexes.getOrDefault(method, 0);
+        }
+    }
+
+    /**
+     * Dispatches the methods that are not intercepted to the instance.
+     */
+    private record Target(Object bean) implements Dispatcher {
+
+        @Override
+        public Object loadObject() {
+            return bean;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.util.Set;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_REFRESHER_BEAN_NAME;
+import static io.github.olufemithompson.multibeanconfig.Constants.PARENT_CONFIG_NAME;
+import static io.github.olufemithompson.multibeanconfig.Constants.WATCH_CONFIG_PARAM;
+
+/**
+ * Applies configuration changes to the declared {@link MultiBean} instances while the application runs.
+ * <br>
+ * <br>
+ * {@link #refresh()} reads the environment again and rebinds only the instances whose
+ * {@code multibean.<name>} entry, or one of the default sections they inherit from, changed.
+ * Untouched instances are not rebuilt. When {@code multibean.watch} is {@code true}, the configuration
+ * files the environment was loaded from are watched, reloaded when they change, and followed by a refresh.
+ * So are the files of {@code multibean.import-dir}.
+ * <br>
+ * <br>
+ * Rebinding happens off the request path: new configs are bound first and then published, so calls
+ * running on an instance are never blocked and never see a partially bound config. Only instances declared
+ * with {@code lazy: proxy} can be refreshed, the proxy swaps the whole instance.
+ */
+public final class MultiBeanRefresher implements SmartLifecycle {
+
+    private final MultiBeanDefinitionPostProcessor postProcessor;
+
+    private final DefaultListableBeanFactory beanFactory;
+
+    private final ConfigurableEnvironment environment;
+
+    private MultiBeanConfigWatcher watcher;
+
+    private MultiBeanRefresher(MultiBeanDefinitionPostProcessor postProcessor,
+                               DefaultListableBeanFactory beanFactory,
+                               ConfigurableEnvironment environment) {
+        this.postProcessor = postProcessor;
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+    }
+
+    /**
+     * Registers the refresher of the given registry as a singleton, once per context.
+     */
+    static void register(BeanDefinitionRegistry registry,
+                         MultiBeanDefinitionPostProcessor postProcessor,
+                         ConfigurableEnvironment environment) {
+        if (registry instanceof DefaultListableBeanFactory beanFactory
+                && !beanFactory.containsSingleton(MULTIBEAN_REFRESHER_BEAN_NAME)) {
+            beanFactory.registerSingleton(MULTIBEAN_REFRESHER_BEAN_NAME,
+                    new MultiBeanRefresher(postProcessor, beanFactory, environment));
+        }
+    }
+
+    /**
+     * Rebinds the instances whose configuration changed in the environment.
+     *
+     * @return the names, as declared under {@code multibean}, of the refreshed instances
+     */
+    public Set<String> refresh() {
+        return postProcessor.refresh(beanFactory);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (watcher == null
+                && environment.getProperty(PARENT_CONFIG_NAME + "." + WATCH_CONFIG_PARAM, Boolean.class, false)) {
+            watcher = MultiBeanConfigWatcher.start(environment, this::refresh, postProcessor.getImportDirectory());
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return watcher != null;
+    }
+}
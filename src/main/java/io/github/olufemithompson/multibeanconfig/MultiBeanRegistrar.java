@@ -0,0 +1,69 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Map;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_REGISTRAR_BEAN_NAME;
+
+/**
+ * Registers and removes {@link MultiBean} instances while the application runs, without refreshing the context.
+ * <br>
+ * <br>
+ * An instance registered here is handled exactly like an entry of the {@code multibean} section: its
+ * configuration falls back to the default sections, its {@code @ConfigurationProperties} and {@code @Value}
+ * dependencies are bound and injected, and it honours the {@code lazy} setting. For example:
+ * <pre>{@code
+ * registrar.register("tenant-42-client", HttpClientService.class, Map.of(
+ *         "config", Map.of("client-id", "tenant-42")));
+ * HttpClientService client = context.getBean("tenant42Client", HttpClientService.class);
+ * }</pre>
+ * Registrations and removals of different instances may run concurrently. Binding only reads the
+ * configuration of the instance being registered, so the cost of a registration does not grow with
+ * the number of instances already declared.
+ */
+public final class MultiBeanRegistrar {
+
+    private final MultiBeanDefinitionPostProcessor postProcessor;
+
+    private final DefaultListableBeanFactory beanFactory;
+
+    private MultiBeanRegistrar(MultiBeanDefinitionPostProcessor postProcessor, DefaultListableBeanFactory beanFactory) {
+        this.postProcessor = postProcessor;
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * Registers the registrar of the given registry as a singleton, once per context.
+     */
+    static void register(BeanDefinitionRegistry registry, MultiBeanDefinitionPostProcessor postProcessor) {
+        if (registry instanceof DefaultListableBeanFactory beanFactory
+                && !beanFactory.containsSingleton(MULTIBEAN_REGISTRAR_BEAN_NAME)) {
+            beanFactory.registerSingleton(MULTIBEAN_REGISTRAR_BEAN_NAME, new MultiBeanRegistrar(postProcessor, beanFactory));
+        }
+    }
+
+    /**
+     * Registers a new instance, created before this method returns unless it is declared {@code lazy}.
+     *
+     * @param name            the name of the instance in the same form as under {@code multibean}, e.g.
+     *                        {@code tenant-42-client}. The bean is registered under its camel case form.
+     * @param multiBeanClass  the class of the instance, annotated with {@link MultiBean}
+     * @param config          the configuration of the instance, as nested maps or dot separated keys,
+     *                        in the same shape as a {@code multibean.<name>} entry
+     * @throws RuntimeException if a bean with that name exists or the configuration cannot be bound
+     */
+    public void register(String name, Class<?> multiBeanClass, Map<String, ?> config) {
+        postProcessor.registerRuntimeMultiBean(beanFactory, name, multiBeanClass, config);
+    }
+
+    /**
+     * Destroys and removes an instance registered through {@link #register(String, Class, Map)}.
+     *
+     * @return {@code false} when no instance was registered under that name
+     */
+    public boolean unregister(String name) {
+        return postProcessor.removeRuntimeMultiBean(beanFactory, name);
+    }
+}
@@ -0,0 +1,262 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.BeanFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import static io.github.olufemithompson.multibeanconfig.Utils.kebabToCamelCase;
+
+/**
+ * Picks one of the replicas of a {@code multibean} entry declared with {@code replicas}:
+ * <pre>{@code
+ * multibean:
+ *   shard-client:
+ *     class: ShardClient
+ *     replicas: cores
+ * }</pre>
+ * The entry is expanded into the instances {@code shard-client-0}, {@code shard-client-1} and so on, all
+ * bound from the same section, and a selector is registered under the name of the entry:
+ * <pre>{@code
+ * @Autowired
+ * private MultiBeanSelector<ShardClient> shardClient;
+ *
+ * shardClient.select(customerId).send(message);
+ * }</pre>
+ * Three strategies are offered:
+ * <ul>
+ *  <li>
+ *      {@link #select(Object)} routes a key to the same replica on every call, by consistent hashing. Each
+ *      replica owns {@value #POINTS_PER_REPLICA} points on a hash ring, so changing the number of replicas
+ *      only moves the keys of the replicas added or removed.
+ *  </li>
+ *  <li>
+ *      {@link #next()} takes the replicas in turn.
+ *  </li>
+ *  <li>
+ *      {@link #acquire()} and {@link #call(Function)} take the replica with the fewest calls in flight. The
+ *      in-flight counters are spread over separate cache lines, so replicas used by different threads
+ *      do not contend on them.
+ *  </li>
+ * </ul>
+ * A replica is fetched from the bean factory on its first selection only, so {@code lazy} replicas are still
+ * created on first use.
+ */
+public final class MultiBeanSelector<T> {
+
+    static final int POINTS_PER_REPLICA = 128;
+
+    /**
+     * Ints per in-flight counter, so that each counter sits on its own 64 byte cache line.
+     */
+    private static final int COUNTER_STRIDE = 16;
+
+    private final Class<T> type;
+
+    private final BeanFactory beanFactory;
+
+    private final String[] names;
+
+    private final String[] beanNames;
+
+    private final AtomicReferenceArray<T> beans;
+
+    private final long[] ringPoints;
+
+    private final int[] ringReplicas;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final AtomicIntegerArray inFlight;
+
+    MultiBeanSelector(Class<T> type, List<String> names, BeanFactory beanFactory) {
+        this.type = type;
+        this.beanFactory = beanFactory;
+        this.names = names.toArray(String[]::new);
+        this.beanNames = new String[this.names.length];
+        for (int index = 0; index < this.names.length; index++) {
+            beanNames[index] = kebabToCamelCase(this.names[index]);
+        }
+        this.beans = new AtomicReferenceArray<>(this.names.length);
+        this.inFlight = new AtomicIntegerArray(this.names.length * COUNTER_STRIDE);
+
+        long[] points = new long[this.names.length * POINTS_PER_REPLICA];
+        for (int index = 0; index < this.names.length; index++) {
+            for (int point = 0; point < POINTS_PER_REPLICA; point++) {
+                points[index * POINTS_PER_REPLICA + point] =
+                        mix(((long) this.names[index].hashCode() << 32) | point) & ~0xFFFFL | index;
+            }
+        }
+        // the replica index is kept in the low bits, so sorting the points also orders their replicas
+        Arrays.sort(points);
+        this.ringPoints = new long[points.length];
+        this.ringReplicas = new int[points.length];
+        for (int point = 0; point < points.length; point++) {
+            ringPoints[point] = points[point] & ~0xFFFFL;
+            ringReplicas[point] = (int) (points[point] & 0xFFFFL);
+        }
+    }
+
+    /**
+     * The {@link MultiBean} class of the replicas.
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * The names of the replicas, e.g. {@code shard-client-0}, in index order.
+     */
+    public List<String> getNames() {
+        return List.of(names);
+    }
+
+    /**
+     * The replica at the given index.
+     *
+     * @throws IndexOutOfBoundsException if the index is not below {@link #size()}
+     */
+    public T get(int index) {
+        T bean = beans.get(index);
+        if (bean == null) {
+            bean = beanFactory.getBean(beanNames[index], type);
+            beans.set(index, bean);
+        }
+        return bean;
+    }
+
+    /**
+     * The index of the replica a key is routed to by {@link #select(Object)}.
+     */
+    public int indexOf(Object key) {
+        long hash = mix(key.hashCode()) & ~0xFFFFL;
+        int point = Arrays.binarySearch(ringPoints, hash);
+        if (point < 0) {
+            point = -point - 1;
+        }
+        return ringReplicas[point == ringPoints.length ? 0 : point];
+    }
+
+    /**
+     * The replica a key is routed to. The same key is always routed to the same replica.
+     */
+    public T select(Object key) {
+        return get(indexOf(key));
+    }
+
+    /**
+     * The next replica in turn.
+     */
+    public T next() {
+        return get(Math.floorMod(nextReplica.getAndIncrement(), names.length));
+    }
+
+    /**
+     * Leases the replica with the fewest calls in flight. The call counts as in flight until the lease is closed:
+     * <pre>{@code
+     * try (MultiBeanSelector.Lease<ShardClient> lease = shardClient.acquire()) {
+     *     lease.get().send(message);
+     * }
+     * }</pre>
+     * Replicas with the same count are picked from a random starting point, so ties are spread as well.
+     */
+    public Lease<T> acquire() {
+        int start = names.length > 1 ? ThreadLocalRandom.current().nextInt(names.length) : 0;
+        int least = start;
+        int leastCount = Integer.MAX_VALUE;
+        for (int offset = 0; offset < names.length; offset++) {
+            int index = (start + offset) % names.length;
+            int count = inFlight.get(index * COUNTER_STRIDE);
+            if (count < leastCount) {
+                least = index;
+                leastCount = count;
+                if (count == 0) {
+                    break;
+                }
+            }
+        }
+        inFlight.incrementAndGet(least * COUNTER_STRIDE);
+        try {
+            return new Lease<>(this, least, get(least));
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet(least * COUNTER_STRIDE);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a call on the replica with the fewest calls in flight, see {@link #acquire()}.
+     */
+    public <R> R call(Function<? super T, ? extends R> call) {
+        try (Lease<T> lease = acquire()) {
+            return call.apply(lease.get());
+        }
+    }
+
+    /**
+     * The number of calls in flight on the replica at the given index.
+     */
+    public int getInFlight(int index) {
+        return inFlight.get(index * COUNTER_STRIDE);
+    }
+
+    /**
+     * Spreads the bits of a hash over a long, with the finalizer of MurmurHash3.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * A replica leased by {@link #acquire()}. Closing the lease ends the call; closing it again has no effect.
+     */
+    public static final class Lease<T> implements AutoCloseable {
+
+        private final MultiBeanSelector<T> selector;
+
+        private final int index;
+
+        private final T bean;
+
+        private boolean closed;
+
+        private Lease(MultiBeanSelector<T> selector, int index, T bean) {
+            this.selector = selector;
+            this.index = index;
+            this.bean = bean;
+        }
+
+        public T get() {
+            return bean;
+        }
+
+        /**
+         * The index of the leased replica.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                selector.inFlight.decrementAndGet(index * COUNTER_STRIDE);
+            }
+        }
+    }
+}
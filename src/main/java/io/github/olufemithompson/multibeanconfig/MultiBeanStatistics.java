@@ -0,0 +1,464 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_STATISTICS_BEAN_NAME;
+
+/**
+ * Times the work the library does while a context starts, and while instances are refreshed or
+ * registered at runtime.
+ * <br>
+ * <br>
+ * Each {@link Phase} is reported as a {@link StartupStep} of the context's {@link ApplicationStartup},
+ * so it shows up next to Spring's own steps, e.g. in the {@code startup} actuator endpoint, and its count
+ * and total time are kept for the {@code multibean} Micrometer meters. The bind time, configuration source
+ * and injected fields of every instance are kept for the {@code multibeans} actuator endpoint, and so is
+ * the outcome of its warm-up.
+ * <br>
+ * <br>
+ * The running {@link MultiBeanExecutor}s are tracked as well, and announced to {@link ExecutorListener}s
+ * as they are created and shut down, so their gauges follow instances registered at runtime. So are the
+ * {@link MultiBeanCallMetrics} of the instances declared with {@code metrics: true}, announced to
+ * {@link CallListener}s per recorded method, and the {@link MultiBeanCache}s of the instances declaring a
+ * {@code cache} block, announced to {@link CacheListener}s. The {@link MultiBeanGroup}s are kept for their meters.
+ */
+final class MultiBeanStatistics {
+
+    /**
+     * A timed phase, named after the {@link StartupStep} it is reported as.
+     */
+    enum Phase {
+        /**
+         * Locating the {@link MultiBean} classes, from the index or by a classpath scan.
+         */
+        SCAN("multibean.scan"),
+        /**
+         * Reading the {@code multibean} section and the default sections from the environment.
+         */
+        PROPERTIES("multibean.properties"),
+        /**
+         * Registering the per-instance configs and binding them.
+         */
+        BIND("multibean.bind"),
+        /**
+         * Injecting the {@code @Value} and config fields of one instance.
+         */
+        INJECT("multibean.inject"),
+        /**
+         * Running the {@link MultiBeanWarmup} of the eager instances, see {@link MultiBeanWarmer}.
+         */
+        WARMUP("multibean.warmup");
+
+        private final String stepName;
+
+        Phase(String stepName) {
+            this.stepName = stepName;
+        }
+
+        String getStepName() {
+            return stepName;
+        }
+    }
+
+    /**
+     * What is known about one instance.
+     *
+     * @param name            the name declared under {@code multibean}
+     * @param beanName        the bean name of the instance
+     * @param beanClass       the {@link MultiBean} class
+     * @param initialization  {@code EAGER}, {@code LAZY} or {@code PROXY}
+     * @param bindNanos       the time spent binding its configs, without the deferred binding of lazy instances
+     * @param source          where the instance was declared, e.g. {@code class path resource [application.yml] - 9:5}
+     * @param configFields    the fields injected with a {@code @ConfigurationProperties} config
+     * @param valueFields     the fields injected with a {@code @Value}
+     */
+    record InstanceStatistics(String name,
+                              String beanName,
+                              Class<?> beanClass,
+                              MultiBeanInstance.Initialization initialization,
+                              long bindNanos,
+                              String source,
+                              List<String> configFields,
+                              List<String> valueFields) {
+    }
+
+    /**
+     * How the warm-up of an instance ended.
+     */
+    enum WarmupStatus {
+        COMPLETED,
+        FAILED,
+        TIMED_OUT
+    }
+
+    /**
+     * The warm-up of one instance.
+     *
+     * @param status  how it ended
+     * @param nanos   how long it ran
+     * @param error   why it did not complete, or {@code null}
+     */
+    record WarmupStatistics(WarmupStatus status, long nanos, String error) {
+    }
+
+    private final ApplicationStartup applicationStartup;
+
+    private final Map<Phase, LongAdder> counts = new EnumMap<>(Phase.class);
+
+    private final Map<Phase, LongAdder> nanos = new EnumMap<>(Phase.class);
+
+    private final Map<String, InstanceStatistics> instances = new ConcurrentHashMap<>();
+
+    private final Map<String, WarmupStatistics> warmups = new ConcurrentHashMap<>();
+
+    private final Map<String, MultiBeanExecutor> executors = new LinkedHashMap<>();
+
+    private final List<ExecutorListener> executorListeners = new ArrayList<>();
+
+    private final Map<String, MultiBeanCallMetrics> callMetrics = new ConcurrentHashMap<>();
+
+    private final Map<String, MultiBeanCallMetrics> callMetricsByBeanName = new ConcurrentHashMap<>();
+
+    private final List<CallListener> callListeners = new ArrayList<>();
+
+    private final Map<String, MultiBeanCache> caches = new ConcurrentHashMap<>();
+
+    private final Map<String, MultiBeanCache> cachesByBeanName = new ConcurrentHashMap<>();
+
+    private final List<CacheListener> cacheListeners = new ArrayList<>();
+
+    private final Map<String, MultiBeanGroup> groups = new ConcurrentHashMap<>();
+
+    MultiBeanStatistics(ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+        for (Phase phase : Phase.values()) {
+            counts.put(phase, new LongAdder());
+            nanos.put(phase, new LongAdder());
+        }
+    }
+
+    /**
+     * Registers the statistics of the given registry as a singleton, once per context, and returns them.
+     * Returns unregistered statistics when the registry is not a bean factory.
+     */
+    static MultiBeanStatistics register(BeanDefinitionRegistry registry) {
+        if (registry instanceof ConfigurableListableBeanFactory beanFactory) {
+            if (!beanFactory.containsSingleton(MULTIBEAN_STATISTICS_BEAN_NAME)) {
+                beanFactory.registerSingleton(MULTIBEAN_STATISTICS_BEAN_NAME,
+                        new MultiBeanStatistics(beanFactory.getApplicationStartup()));
+            }
+            return beanFactory.getBean(MULTIBEAN_STATISTICS_BEAN_NAME, MultiBeanStatistics.class);
+        }
+        return new MultiBeanStatistics(ApplicationStartup.DEFAULT);
+    }
+
+    /**
+     * Returns the statistics of the given bean factory, or {@code null} when no multibean was declared.
+     */
+    static MultiBeanStatistics get(BeanFactory beanFactory) {
+        if (!beanFactory.containsBean(MULTIBEAN_STATISTICS_BEAN_NAME)) {
+            return null;
+        }
+        return beanFactory.getBean(MULTIBEAN_STATISTICS_BEAN_NAME, MultiBeanStatistics.class);
+    }
+
+    /**
+     * Runs an action as the given phase.
+     *
+     * @param tagKey    the key of a tag added to the startup step, or {@code null}
+     * @param tagValue  the value of that tag
+     */
+    <T> T record(Phase phase, String tagKey, Object tagValue, Supplier<T> action) {
+        StartupStep step = applicationStartup.start(phase.getStepName());
+        if (tagKey != null) {
+            step.tag(tagKey, String.valueOf(tagValue));
+        }
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            nanos.get(phase).add(System.nanoTime() - start);
+            counts.get(phase).increment();
+            step.end();
+        }
+    }
+
+    void run(Phase phase, String tagKey, Object tagValue, Runnable action) {
+        record(phase, tagKey, tagValue, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    void recordInstance(MultiBeanInstance instance, long bindNanos, String source) {
+        List<String> configFields = new ArrayList<>();
+        for (MultiBeanInstance.BoundConfig config : instance.configs()) {
+            configFields.add(config.fieldName());
+        }
+        instances.put(instance.name(), new InstanceStatistics(
+                instance.name(),
+                instance.beanName(),
+                instance.metadata().getBeanClass(),
+                instance.initialization(),
+                bindNanos,
+                source,
+                List.copyOf(configFields),
+                List.copyOf(instance.values().keySet())));
+    }
+
+    void removeInstance(String name) {
+        instances.remove(name);
+        warmups.remove(name);
+        removeCallMetrics(name);
+        removeCache(name);
+    }
+
+    /**
+     * Records how the warm-up of an instance ended, and announces it to the groups it is a member of.
+     */
+    synchronized void recordWarmup(String name, WarmupStatus status, long nanos, String error) {
+        warmups.put(name, new WarmupStatistics(status, nanos, error));
+        for (MultiBeanGroup group : groups.values()) {
+            group.warmedUp(name, status);
+        }
+    }
+
+    /**
+     * How many times the given phase ran.
+     */
+    long getCount(Phase phase) {
+        return counts.get(phase).sum();
+    }
+
+    /**
+     * The total time spent in the given phase, in nanoseconds.
+     */
+    long getTotalNanos(Phase phase) {
+        return nanos.get(phase).sum();
+    }
+
+    int getInstanceCount() {
+        return instances.size();
+    }
+
+    Collection<InstanceStatistics> getInstances() {
+        return instances.values();
+    }
+
+    InstanceStatistics getInstance(String name) {
+        return instances.get(name);
+    }
+
+    /**
+     * The warm-up of the given instance, or {@code null} when it was not warmed up.
+     */
+    WarmupStatistics getWarmup(String name) {
+        return warmups.get(name);
+    }
+
+    synchronized void addExecutor(MultiBeanExecutor executor) {
+        executors.put(executor.getName(), executor);
+        for (ExecutorListener listener : executorListeners) {
+            listener.added(executor);
+        }
+    }
+
+    synchronized void removeExecutor(MultiBeanExecutor executor) {
+        if (executors.remove(executor.getName(), executor)) {
+            for (ExecutorListener listener : executorListeners) {
+                listener.removed(executor);
+            }
+        }
+    }
+
+    /**
+     * Adds a listener, first announcing the executors already running to it.
+     */
+    synchronized void addExecutorListener(ExecutorListener listener) {
+        executorListeners.add(listener);
+        executors.values().forEach(listener::added);
+    }
+
+    /**
+     * Starts recording the calls of an instance once its bean is created, keeping the recorders of an
+     * instance declared before, e.g. when it is refreshed.
+     *
+     * @param beanName the bean name the {@link MultiBean} class is instantiated under
+     */
+    synchronized void addCallMetrics(String name, String beanName) {
+        MultiBeanCallMetrics metrics = callMetrics.get(name);
+        if (metrics == null || !metrics.getBeanName().equals(beanName)) {
+            removeCallMetrics(name);
+            metrics = new MultiBeanCallMetrics(name, beanName, this::callRecorderAdded);
+            callMetrics.put(name, metrics);
+            callMetricsByBeanName.put(beanName, metrics);
+        }
+    }
+
+    synchronized void removeCallMetrics(String name) {
+        MultiBeanCallMetrics metrics = callMetrics.remove(name);
+        if (metrics != null) {
+            callMetricsByBeanName.remove(metrics.getBeanName(), metrics);
+            for (CallListener listener : callListeners) {
+                listener.removed(metrics);
+            }
+        }
+    }
+
+    /**
+     * The calls of the given instance, or {@code null} when they are not recorded.
+     */
+    MultiBeanCallMetrics getCallMetrics(String name) {
+        return callMetrics.get(name);
+    }
+
+    /**
+     * Starts caching the results of an instance once its bean is created. The cache of an instance declared
+     * before, e.g. when it is refreshed, is kept but emptied, since its results may no longer hold, so its
+     * settings only change with the bean name the instance is created under.
+     *
+     * @param beanName the bean name the {@link MultiBean} class is instantiated under
+     */
+    synchronized void addCache(String name, String beanName, MultiBeanCache.Settings settings) {
+        MultiBeanCache cache = caches.get(name);
+        if (cache != null && cache.getBeanName().equals(beanName)) {
+            cache.invalidateAll();
+            return;
+        }
+        removeCache(name);
+        cache = new MultiBeanCache(name, beanName, settings);
+        caches.put(name, cache);
+        cachesByBeanName.put(beanName, cache);
+        for (CacheListener listener : cacheListeners) {
+            listener.added(cache);
+        }
+    }
+
+    synchronized void removeCache(String name) {
+        MultiBeanCache cache = caches.remove(name);
+        if (cache != null) {
+            cachesByBeanName.remove(cache.getBeanName(), cache);
+            cache.close();
+            for (CacheListener listener : cacheListeners) {
+                listener.removed(cache);
+            }
+        }
+    }
+
+    /**
+     * The result cache of the given instance, or {@code null} when it has none.
+     */
+    MultiBeanCache getCache(String name) {
+        return caches.get(name);
+    }
+
+    /**
+     * Adds a listener, first announcing the caches already created to it.
+     */
+    synchronized void addCacheListener(CacheListener listener) {
+        cacheListeners.add(listener);
+        caches.values().forEach(listener::added);
+    }
+
+    /**
+     * Adds a group, first announcing the warm-ups that already ended to it.
+     */
+    synchronized void addGroup(MultiBeanGroup group) {
+        groups.put(group.getName(), group);
+        warmups.forEach((name, warmup) -> group.warmedUp(name, warmup.status()));
+    }
+
+    /**
+     * The instances and groups called through a proxy class generated at runtime: instances with a cache or
+     * {@code metrics: true}, and groups.
+     */
+    synchronized Set<String> getProxiedNames() {
+        Set<String> names = new TreeSet<>(callMetrics.keySet());
+        names.addAll(caches.keySet());
+        names.addAll(groups.keySet());
+        return names;
+    }
+
+    /**
+     * The {@link MultiBeanGroup}s declared under {@code multibean.group}, all created while the context starts.
+     */
+    Collection<MultiBeanGroup> getGroups() {
+        return groups.values();
+    }
+
+    /**
+     * Returns the bean created under the given name, wrapped in a proxy caching its results when it is an
+     * instance declaring a {@code cache} block, and in one recording its calls when it is an instance declared
+     * with {@code metrics: true}. Cache hits are therefore recorded too.
+     */
+    Object instrument(Object bean, String beanName) {
+        MultiBeanCache cache = cachesByBeanName.get(beanName);
+        Object instrumented = cache != null ? cache.instrument(bean) : bean;
+        MultiBeanCallMetrics metrics = callMetricsByBeanName.get(beanName);
+        return metrics != null ? metrics.instrument(instrumented) : instrumented;
+    }
+
+    private synchronized void callRecorderAdded(MultiBeanCallMetrics metrics, String method, MultiBeanLatencyRecorder recorder) {
+        for (CallListener listener : callListeners) {
+            listener.added(metrics, method, recorder);
+        }
+    }
+
+    /**
+     * Adds a listener, first announcing the recorders already created to it.
+     */
+    synchronized void addCallListener(CallListener listener) {
+        callListeners.add(listener);
+        for (MultiBeanCallMetrics metrics : callMetrics.values()) {
+            metrics.getRecorders().forEach((method, recorder) -> listener.added(metrics, method, recorder));
+        }
+    }
+
+    /**
+     * Notified when a {@link MultiBeanExecutor} is created or shut down.
+     */
+    interface ExecutorListener {
+
+        void added(MultiBeanExecutor executor);
+
+        void removed(MultiBeanExecutor executor);
+    }
+
+    /**
+     * Notified when the calls of a method start being recorded, and when an instance whose calls were
+     * recorded is removed.
+     */
+    interface CallListener {
+
+        void added(MultiBeanCallMetrics metrics, String method, MultiBeanLatencyRecorder recorder);
+
+        default void removed(MultiBeanCallMetrics metrics) {
+        }
+    }
+
+    /**
+     * Notified when the cache of an instance is created, and when it is dropped.
+     */
+    interface CacheListener {
+
+        void added(MultiBeanCache cache);
+
+        void removed(MultiBeanCache cache);
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors shared by the features that run work off the caller's thread.
+ * <br>
+ * <br>
+ * Virtual threads are looked up reflectively, since the library is compiled for Java 17.
+ */
+final class MultiBeanThreads {
+
+    private MultiBeanThreads() {
+    }
+
+    /**
+     * Creates an executor running every task on a new virtual thread.
+     *
+     * @param name the name of the instance the executor belongs to, used in error messages
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(String.format("Executor of %s: virtual-threads requires Java 21 or later", name));
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(String.format("Unable to create the virtual thread executor of %s", name), e);
+        }
+    }
+
+    /**
+     * Creates an executor running every task on a new thread: a virtual thread on Java 21 or later,
+     * otherwise a daemon thread named with the given prefix. Used for the short-lived, blocking tasks
+     * of warming up and draining instances and refreshing cached results.
+     */
+    static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+            threadFactory.setDaemon(true);
+            return Executors.newCachedThreadPool(threadFactory);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static io.github.olufemithompson.multibeanconfig.Constants.MULTIBEAN_WARMER_BEAN_NAME;
+import static io.github.olufemithompson.multibeanconfig.Constants.PARENT_CONFIG_NAME;
+import static io.github.olufemithompson.multibeanconfig.Constants.WARMUP_CONFIG_PARAM;
+import static io.github.olufemithompson.multibeanconfig.MultiBeanStatistics.Phase.WARMUP;
+
+/**
+ * Runs the {@link MultiBeanWarmup} of every eager instance once the context is refreshed, all at the
+ * same time, and waits for them before the context finishes starting, so readiness is only reported
+ * once they are done.
+ * <br>
+ * <br>
+ * Each warm-up runs on its own virtual thread on Java 21 or later, and on its own daemon thread otherwise.
+ * The outcome and duration of every warm-up are kept in {@link MultiBeanStatistics} for the {@code multibeans}
+ * actuator endpoint and logged as one report, slowest first. Lazy instances and instances registered through
+ * {@link MultiBeanRegistrar} are not warmed up.
+ */
+final class MultiBeanWarmer implements SmartLifecycle {
+
+    private static final Log logger = LogFactory.getLog(MultiBeanWarmer.class);
+
+    /**
+     * The {@code multibean.warmup} section.
+     *
+     * @param timeout          how long all warm-ups may take together
+     * @param instanceTimeout  how long one warm-up may take, unless its entry declares a {@code warmup-timeout},
+     *                         {@code timeout} by default
+     * @param failOnError      whether a failed or timed out warm-up fails the startup, otherwise it is only logged
+     */
+    record Settings(@DefaultValue("5m") Duration timeout,
+                    Duration instanceTimeout,
+                    @DefaultValue("true") boolean failOnError) {
+    }
+
+    private final MultiBeanDefinitionPostProcessor postProcessor;
+
+    private final DefaultListableBeanFactory beanFactory;
+
+    private final ConfigurableEnvironment environment;
+
+    private boolean warmedUp;
+
+    private volatile boolean running;
+
+    private MultiBeanWarmer(MultiBeanDefinitionPostProcessor postProcessor,
+                            DefaultListableBeanFactory beanFactory,
+                            ConfigurableEnvironment environment) {
+        this.postProcessor = postProcessor;
+        this.beanFactory = beanFactory;
+        this.environment = environment;
+    }
+
+    /**
+     * Registers the warmer of the given registry as a singleton, once per context.
+     */
+    static void register(BeanDefinitionRegistry registry,
+                         MultiBeanDefinitionPostProcessor postProcessor,
+                         ConfigurableEnvironment environment) {
+        if (registry instanceof DefaultListableBeanFactory beanFactory
+                && !beanFactory.containsSingleton(MULTIBEAN_WARMER_BEAN_NAME)) {
+            beanFactory.registerSingleton(MULTIBEAN_WARMER_BEAN_NAME,
+                    new MultiBeanWarmer(postProcessor, beanFactory, environment));
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        if (warmedUp) {
+            return;
+        }
+        warmedUp = true;
+        MultiBeanStatistics statistics = MultiBeanStatistics.get(beanFactory);
+        if (statistics == null) {
+            return;
+        }
+        Settings settings = Binder.get(environment)
+                .bindOrCreate(PARENT_CONFIG_NAME + "." + WARMUP_CONFIG_PARAM, Settings.class);
+        List<Warmup> warmups = findWarmups(statistics, settings);
+        if (!warmups.isEmpty()) {
+            statistics.run(WARMUP, "beans", warmups.size(), () -> warmUp(statistics, settings, warmups));
+        }
+    }
+
+    private List<Warmup> findWarmups(MultiBeanStatistics statistics, Settings settings) {
+        Duration defaultTimeout = settings.instanceTimeout() != null ? settings.instanceTimeout() : settings.timeout();
+        List<Warmup> warmups = new ArrayList<>();
+        for (MultiBeanStatistics.InstanceStatistics instance : statistics.getInstances()) {
+            if (instance.initialization() != MultiBeanInstance.Initialization.EAGER) {
+                continue;
+            }
+            // looked up by name, since the bean is the created instance when the class is a MultiBeanFactory
+            if (beanFactory.getBean(instance.beanName()) instanceof MultiBeanWarmup bean) {
+                Duration timeout = postProcessor.getWarmupTimeout(instance.name());
+                warmups.add(new Warmup(instance.name(), bean, timeout != null ? timeout : defaultTimeout));
+            }
+        }
+        warmups.sort(Comparator.comparing(warmup -> warmup.name));
+        return warmups;
+    }
+
+    private void warmUp(MultiBeanStatistics statistics, Settings settings, List<Warmup> warmups) {
+        ExecutorService executor = MultiBeanThreads.newThreadPerTaskExecutor("multibean-warmup-");
+        long start = System.nanoTime();
+        try {
+            for (Warmup warmup : warmups) {
+                warmup.future = executor.submit(warmup::run);
+            }
+            long deadline = start + settings.timeout().toNanos();
+            for (Warmup warmup : warmups) {
+                warmup.await(Math.min(deadline, start + warmup.timeout.toNanos()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Warmup> failed = new ArrayList<>();
+        for (Warmup warmup : warmups) {
+            statistics.recordWarmup(warmup.name, warmup.status, warmup.nanos, warmup.getError());
+            if (warmup.status != MultiBeanStatistics.WarmupStatus.COMPLETED) {
+                failed.add(warmup);
+            }
+        }
+        report(warmups, System.nanoTime() - start);
+        if (failed.isEmpty()) {
+            return;
+        }
+        List<String> names = failed.stream().map(warmup -> warmup.name).toList();
+        if (settings.failOnError()) {
+            throw new RuntimeException(String.format("Warm-up of multibean instances %s did not complete", names),
+                    failed.get(0).cause);
+        }
+        for (Warmup warmup : failed) {
+            logger.warn(String.format("Warm-up of multibean instance %s did not complete: %s",
+                    warmup.name, warmup.getError()), warmup.cause);
+        }
+    }
+
+    private static void report(List<Warmup> warmups, long nanos) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        StringBuilder report = new StringBuilder(String.format(
+                "Warmed up %d multibean instances in %d ms:", warmups.size(), TimeUnit.NANOSECONDS.toMillis(nanos)));
+        warmups.stream()
+                .sorted(Comparator.comparingLong((Warmup warmup) -> warmup.nanos).reversed())
+                .forEach(warmup -> {
+                    report.append(String.format(" %s %d ms", warmup.name, TimeUnit.NANOSECONDS.toMillis(warmup.nanos)));
+                    if (warmup.status != MultiBeanStatistics.WarmupStatus.COMPLETED) {
+                        report.append(" (").append(warmup.status.name().toLowerCase(Locale.ROOT).replace('_', ' ')).append(')');
+                    }
+                    report.append(',');
+                });
+        report.setLength(report.length() - 1);
+        logger.info(report);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The warm-up of one instance.
+     */
+    private static final class Warmup {
+
+        private final String name;
+
+        private final MultiBeanWarmup bean;
+
+        private final Duration timeout;
+
+        private Future<?> future;
+
+        private volatile long startedAt;
+
+        private volatile long finishedAt;
+
+        private MultiBeanStatistics.WarmupStatus status;
+
+        private long nanos;
+
+        private Throwable cause;
+
+        private Warmup(String name, MultiBeanWarmup bean, Duration timeout) {
+            this.name = name;
+            this.bean = bean;
+            this.timeout = timeout;
+        }
+
+        private Void run() throws Exception {
+            startedAt = System.nanoTime();
+            try {
+                bean.warmUp();
+                return null;
+            } finally {
+                finishedAt = System.nanoTime();
+            }
+        }
+
+        /**
+         * Waits for the warm-up until the given {@link System#nanoTime()}, and interrupts it once that has passed.
+         */
+        private void await(long deadline) {
+            long end;
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                status = MultiBeanStatistics.WarmupStatus.COMPLETED;
+                end = finishedAt;
+            } catch (ExecutionException e) {
+                status = MultiBeanStatistics.WarmupStatus.FAILED;
+                cause = e.getCause();
+                end = finishedAt;
+            } catch (TimeoutException e) {
+                // reported as running until its deadline, not until it was awaited
+                future.cancel(true);
+                status = MultiBeanStatistics.WarmupStatus.TIMED_OUT;
+                end = deadline;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                status = MultiBeanStatistics.WarmupStatus.FAILED;
+                cause = e;
+                end = System.nanoTime();
+            }
+            long started = startedAt;
+            nanos = started == 0 ? 0 : Math.max(0, end - started);
+        }
+
+        private String getError() {
+            if (status == MultiBeanStatistics.WarmupStatus.TIMED_OUT) {
+                return String.format("timed out after %d ms", TimeUnit.NANOSECONDS.toMillis(nanos));
+            }
+            return cause != null ? String.valueOf(cause) : null;
+        }
+    }
+}
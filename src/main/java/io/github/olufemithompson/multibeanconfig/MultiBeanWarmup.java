@@ -0,0 +1,34 @@
+package io.github.olufemithompson.multibeanconfig;
+
+/**
+ * Implemented by a {@link MultiBean} class whose instances need to warm up before the application
+ * accepts traffic, e.g. to open connections or fetch a token:
+ * <pre>{@code
+ * @MultiBean
+ * public class PartnerClient implements MultiBeanWarmup {
+ *     @Override
+ *     public void warmUp() throws Exception {
+ *         connectionPool.prime();
+ *     }
+ * }
+ * }</pre>
+ * Once the context is refreshed, {@link #warmUp()} runs for all eager instances at the same time, each on
+ * its own virtual thread when running on Java 21 or later. Startup therefore takes as long as the slowest
+ * warm-up rather than the sum of all of them, and readiness is only reported once every warm-up has
+ * completed.
+ * <br>
+ * <br>
+ * The whole phase is bounded by {@code multibean.warmup.timeout}, and each instance by its
+ * {@code warmup-timeout}, or {@code multibean.warmup.instance-timeout} by default. A warm-up that exceeds
+ * its timeout is interrupted. Unless {@code multibean.warmup.fail-on-error} is {@code false}, a warm-up
+ * that fails or times out fails the startup.
+ */
+public interface MultiBeanWarmup {
+
+    /**
+     * Warms up this instance. Called once, after the context is refreshed.
+     *
+     * @throws Exception if the instance cannot warm up
+     */
+    void warmUp() throws Exception;
+}
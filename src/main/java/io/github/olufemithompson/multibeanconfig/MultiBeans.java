@@ -0,0 +1,186 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.springframework.beans.factory.BeanFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static io.github.olufemithompson.multibeanconfig.Utils.kebabToCamelCase;
+
+/**
+ * The instances of one {@link MultiBean} class, for picking an instance per request without going
+ * through the bean factory. One handle is registered per class and is injected by its generic type:
+ * <pre>{@code
+ * @Autowired
+ * private MultiBeans<HttpClientService> clients;
+ *
+ * HttpClientService client = clients.get("fail-over-client");
+ * }</pre>
+ * Instances are numbered in declaration order, followed by the ones added through {@link MultiBeanRegistrar}.
+ * Each instance can be looked up by its name under {@code multibean}, in kebab or camel case, or by
+ * its index. Both lookups read precomputed tables and do not allocate; an instance is fetched from the
+ * bean factory on its first lookup only, so {@code lazy} instances are still created on first use.
+ * <br>
+ * <br>
+ * Registering or removing an instance at runtime publishes a new table, and lookups already running keep
+ * the previous one. Indexes of the remaining instances may shift when an instance is removed.
+ */
+public final class MultiBeans<T> implements Iterable<T> {
+
+    private final Class<T> type;
+
+    private final BeanFactory beanFactory;
+
+    private volatile Instances instances = new Instances(List.of(), null);
+
+    MultiBeans(Class<T> type, BeanFactory beanFactory) {
+        this.type = type;
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * The {@link MultiBean} class of the instances.
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    public int size() {
+        return instances.names.length;
+    }
+
+    /**
+     * The index of an instance, or {@code -1} when no instance has that name.
+     *
+     * @param name the name of the instance under {@code multibean}, in kebab or camel case
+     */
+    public int indexOf(String name) {
+        Integer index = instances.indexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * The instance with the given name, or {@code null} when there is none.
+     *
+     * @param name the name of the instance under {@code multibean}, in kebab or camel case
+     */
+    public T get(String name) {
+        Instances current = instances;
+        Integer index = current.indexes.get(name);
+        return index != null ? current.get(index) : null;
+    }
+
+    /**
+     * The instance at the given index.
+     *
+     * @throws IndexOutOfBoundsException if the index is not below {@link #size()}
+     */
+    public T get(int index) {
+        return instances.get(index);
+    }
+
+    /**
+     * The name, as declared under {@code multibean}, of the instance at the given index.
+     */
+    public String getName(int index) {
+        return instances.names[index];
+    }
+
+    /**
+     * The names of all instances, in index order.
+     */
+    public List<String> getNames() {
+        return List.of(instances.names);
+    }
+
+    /**
+     * All instances in index order, as an immutable list. Creates the {@code lazy} instances not yet used.
+     */
+    public List<T> getAll() {
+        return instances.getAll();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return getAll().iterator();
+    }
+
+    synchronized void addAll(Collection<String> names) {
+        List<String> updated = new ArrayList<>(List.of(instances.names));
+        updated.addAll(names);
+        instances = new Instances(updated, instances);
+    }
+
+    synchronized void add(String name) {
+        addAll(List.of(name));
+    }
+
+    synchronized void remove(String name) {
+        List<String> updated = new ArrayList<>(List.of(instances.names));
+        if (updated.remove(name)) {
+            instances = new Instances(updated, instances);
+        }
+    }
+
+    /**
+     * An immutable table of instance names. Instances are resolved into it on first lookup.
+     */
+    private final class Instances {
+
+        private final String[] names;
+
+        private final String[] beanNames;
+
+        private final Map<String, Integer> indexes;
+
+        private final AtomicReferenceArray<T> beans;
+
+        private volatile List<T> all;
+
+        private Instances(List<String> names, Instances previous) {
+            this.names = names.toArray(String[]::new);
+            this.beanNames = new String[this.names.length];
+            this.indexes = new HashMap<>();
+            this.beans = new AtomicReferenceArray<>(this.names.length);
+            for (int index = 0; index < this.names.length; index++) {
+                String beanName = kebabToCamelCase(this.names[index]);
+                beanNames[index] = beanName;
+                indexes.put(this.names[index], index);
+                indexes.putIfAbsent(beanName, index);
+                if (previous != null) {
+                    Integer previousIndex = previous.indexes.get(this.names[index]);
+                    if (previousIndex != null) {
+                        beans.set(index, previous.beans.get(previousIndex));
+                    }
+                }
+            }
+        }
+
+        private T get(int index) {
+            T bean = beans.get(index);
+            if (bean == null) {
+                bean = beanFactory.getBean(beanNames[index], type);
+                beans.set(index, bean);
+            }
+            return bean;
+        }
+
+        private List<T> getAll() {
+            List<T> result = all;
+            if (result == null) {
+                List<T> resolved = new ArrayList<>(names.length);
+                for (int index = 0; index < names.length; index++) {
+                    resolved.add(get(index));
+                }
+                result = List.copyOf(resolved);
+                all = result;
+            }
+            return result;
+        }
+    }
+}
@@ -3,8 +3,10 @@ package io.github.olufemithompson.multibeanconfig;
 import org.springframework.boot.origin.OriginTrackedValue;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 public final class Utils {
     protected static String formatConfigProperties(String input){
@@ -20,30 +22,47 @@ public final class Utils {
 
     protected static Map<String, Object> generateNestedMap(Map<String, Object> properties) {
         Map<String, Object> rootMap = new HashMap<>();
-        Set<String> keys = properties.keySet();
-        for (String key : keys) {
-            String[] parts = key.split("\\.");
-            Map<String, Object> currentMap = rootMap;
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            putNestedValueIfAbsent(rootMap, entry.getKey(), 0, entry.getValue());
+        }
+        return rootMap;
+    }
 
-            boolean shouldProceed = true;
-            for (int i = 0; i < parts.length - 1; i++) {
-                String part = parts[i];
-                try{
-                    currentMap = (Map<String, Object>) currentMap.computeIfAbsent(part, k -> new HashMap<>());
+    /**
+     * Inserts a value into a nested map along the dot separated key, starting at the given offset.
+     * The value is skipped when the path is already taken by another value.
+     */
+    protected static void putNestedValueIfAbsent(Map<String, Object> rootMap, String key, int start, Object value) {
+        putNestedValueIfAbsent(rootMap, key, start, value, UnaryOperator.identity());
+    }
 
-                }
-                catch (java.lang.ClassCastException e){
-                    shouldProceed=false;
-                }
+    /**
+     * Same as {@link #putNestedValueIfAbsent(Map, String, int, Object)}, passing every key segment through
+     * the given interner, so maps built from many keys with the same segments share their key strings.
+     */
+    protected static void putNestedValueIfAbsent(Map<String, Object> rootMap,
+                                                 String key,
+                                                 int start,
+                                                 Object value,
+                                                 UnaryOperator<String> keyInterner) {
+        Map<String, Object> currentMap = rootMap;
+        int end;
+        while ((end = key.indexOf('.', start)) >= 0) {
+            Object child = currentMap.get(key.substring(start, end));
+            if (child == null) {
+                child = new LinkedHashMap<String, Object>();
+                currentMap.put(keyInterner.apply(key.substring(start, end)), child);
             }
-
-            if(shouldProceed){
-                String finalPart = parts[parts.length - 1];
-                currentMap.put(finalPart, properties.get(key));
+            if (!(child instanceof Map<?, ?>)) {
+                return;
             }
+            currentMap = (Map<String, Object>) child;
+            start = end + 1;
+        }
+        String leaf = key.substring(start);
+        if (!currentMap.containsKey(leaf)) {
+            currentMap.put(keyInterner.apply(leaf), value);
         }
-
-        return rootMap;
     }
 
     protected static String kebabToCamelCase(String kebabCase) {
@@ -69,22 +88,22 @@ public final class Utils {
         return camelCase.toString();
     }
 
-    protected static  Map<String, Object> flatten(Map<String, Object> nestedMap, String prefix) {
+    protected static  Map<String, Object> flatten(Map<?, ?> nestedMap, String prefix) {
         Map<String, Object> flatMap = new HashMap<>();
         flatten(nestedMap, prefix,flatMap);
         return flatMap;
     }
 
-    private static void flatten(Map<String, Object> nestedMap, String prefix, Map<String, Object> flatMap) {
+    private static void flatten(Map<?, ?> nestedMap, String prefix, Map<String, Object> flatMap) {
 
-        for (Map.Entry<String, Object> entry : nestedMap.entrySet()) {
-            String key = entry.getKey();
+        for (Map.Entry<?, ?> entry : nestedMap.entrySet()) {
+            String key = String.valueOf(entry.getKey());
             Object value = entry.getValue();
 
             String newKey = prefix.isEmpty() ? key : prefix + "." + key;
 
-            if (value instanceof Map<?, ?>) {
-                flatten((Map<String, Object>) value, newKey, flatMap);
+            if (value instanceof Map<?, ?> nestedValue) {
+                flatten(nestedValue, newKey, flatMap);
             } else {
                 if(value instanceof OriginTrackedValue originTrackedValue){
                     flatMap.put(newKey, originTrackedValue.getValue());
@@ -96,6 +115,33 @@ public final class Utils {
         }
     }
 
+    protected static void flattenKeys(Map<?, ?> nestedMap, String prefix, Set<String> keys) {
+        for (Map.Entry<?, ?> entry : nestedMap.entrySet()) {
+            String newKey = prefix.isEmpty() ? String.valueOf(entry.getKey()) : prefix + "." + entry.getKey();
+            if (entry.getValue() instanceof Map<?, ?> nestedValue) {
+                flattenKeys(nestedValue, newKey, keys);
+            } else {
+                keys.add(newKey);
+            }
+        }
+    }
+
+    /**
+     * Walks a nested map along a dot separated path, returning {@code null} when the path does not exist.
+     */
+    protected static Object getNestedValue(Map<String, Object> nestedMap, String path) {
+        Object current = nestedMap;
+        int start = 0;
+        while (current instanceof Map<?, ?> currentMap) {
+            int end = path.indexOf('.', start);
+            if (end < 0) {
+                return currentMap.get(path.substring(start));
+            }
+            current = currentMap.get(path.substring(start, end));
+            start = end + 1;
+        }
+        return null;
+    }
 
     protected static <T> T extractDataFromMap(String errorMessage,
                                               final String key,
@@ -0,0 +1,125 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.ClientConfig;
+import io.github.olufemithompson.multibeanconfig.testapp.ConstructorClient;
+import io.github.olufemithompson.multibeanconfig.testapp.EndpointClient;
+import io.github.olufemithompson.multibeanconfig.testapp.FieldClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.test.generate.TestGenerationContext;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.aot.ApplicationContextAotGenerator;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.test.tools.CompileWithForkedClassLoader;
+import org.springframework.core.test.tools.TestCompiler;
+import org.springframework.javapoet.ClassName;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@CompileWithForkedClassLoader
+class MultiBeanAotProcessorTest {
+
+    @Test
+    void rebuildsTheSameBeansFromTheGeneratedInitializer() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.constructor-client.class", "ConstructorClient");
+        properties.put("multibean.constructor-client.client.client-id", "constructor");
+        properties.put("multibean.field-client.class", "FieldClient");
+        properties.put("multibean.field-client.client.client-id", "field");
+        properties.put("multibean.shard.class", "EndpointClient");
+        properties.put("multibean.shard.replicas", "2");
+        properties.put("multibean.shard.endpoint.url", "http://shard");
+        TestGenerationContext generationContext = new TestGenerationContext();
+        ClassName initializerName = new ApplicationContextAotGenerator()
+                .processAheadOfTime(createContext(properties), generationContext);
+        generationContext.writeGeneratedContent();
+
+        // bound from the runtime environment, not the one seen at build time
+        properties.put("multibean.field-client.client.client-id", "runtime");
+        TestCompiler.forSystem().with(generationContext).compile(compiled -> {
+            try (GenericApplicationContext context = new GenericApplicationContext()) {
+                context.setEnvironment(createEnvironment(properties));
+                @SuppressWarnings("unchecked")
+                ApplicationContextInitializer<GenericApplicationContext> initializer =
+                        compiled.getInstance(ApplicationContextInitializer.class, initializerName.toString());
+                initializer.initialize(context);
+                context.refresh();
+
+                assertThat(context.getBeansOfType(MultiBeanDefinitionPostProcessor.class)).isEmpty();
+                assertThat(context.getBean("constructorClient", ConstructorClient.class).getConfig().getClientId())
+                        .isEqualTo("constructor");
+                assertThat(context.getBean("fieldClient", FieldClient.class).getConfig().getClientId())
+                        .isEqualTo("runtime");
+                assertThat(context.getBean("shard0", EndpointClient.class).getConfig().url()).isEqualTo("http://shard");
+                assertThat(context.getBean("shard1", EndpointClient.class).getConfig().url()).isEqualTo("http://shard");
+            }
+        });
+    }
+
+    @Test
+    void rejectsReplicasThatDependOnTheHost() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.shard.class", "EndpointClient");
+        properties.put("multibean.shard.replicas", "cores");
+        properties.put("multibean.shard.endpoint.url", "http://shard");
+        GenericApplicationContext context = createContext(properties);
+
+        assertThatThrownBy(() -> new ApplicationContextAotGenerator().processAheadOfTime(context, new TestGenerationContext()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("shard")
+                .hasMessageContaining("cores");
+    }
+
+    @Test
+    void rejectsProxiesGeneratedAtRuntime() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.constructor-client.class", "ConstructorClient");
+        properties.put("multibean.constructor-client.metrics", "true");
+        properties.put("multibean.partner.class", "Partner");
+        properties.put("multibean.group.pair.members[0]", "partner");
+        GenericApplicationContext context = createContext(properties);
+
+        assertThatThrownBy(() -> new ApplicationContextAotGenerator().processAheadOfTime(context, new TestGenerationContext()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("[constructor-client, pair]");
+    }
+
+    @Test
+    void rejectsLazyProxiesOfAClass() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.proxy-client.class", "ConstructorClient");
+        properties.put("multibean.proxy-client.lazy", "proxy");
+        GenericApplicationContext context = createContext(properties);
+
+        assertThatThrownBy(() -> new ApplicationContextAotGenerator().processAheadOfTime(context, new TestGenerationContext()))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("proxy-client")
+                .hasMessageContaining(ConstructorClient.class.getName());
+    }
+
+    private static GenericApplicationContext createContext(Map<String, Object> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.setEnvironment(createEnvironment(properties));
+        AutoConfigurationPackages.register(context, "io.github.olufemithompson.multibeanconfig.testapp");
+        // the default config bean an application declares, which field injection resolves first
+        context.register(MultiBeanConfig.class, ClientConfig.class);
+        return context;
+    }
+
+    private static StandardEnvironment createEnvironment(Map<String, Object> properties) {
+        Map<String, Object> environment = new HashMap<>(properties);
+        environment.put("client.client-id", "default");
+        environment.put("client.url", "http://default");
+        environment.put("endpoint.url", "http://default");
+        StandardEnvironment standardEnvironment = new StandardEnvironment();
+        standardEnvironment.getPropertySources().addFirst(new MapPropertySource("test", environment));
+        return standardEnvironment;
+    }
+}
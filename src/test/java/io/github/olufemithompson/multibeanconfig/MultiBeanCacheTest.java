@@ -0,0 +1,236 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBeanCacheTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void answersRepeatedCallsFromTheCache() {
+        MultiBeanCache cache = newCache(100);
+        Quotes target = new Quotes();
+        Quotes quotes = (Quotes) cache.instrument(target);
+
+        assertThat(quotes.quote("a")).isEqualTo("a@0");
+        assertThat(quotes.quote("a")).isEqualTo("a@0");
+        assertThat(quotes.quote("b")).isEqualTo("b@0");
+
+        assertThat(target.calls).hasValue(2);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getSize()).isEqualTo(2);
+    }
+
+    @Test
+    void cachesNullsButNotExceptions() {
+        MultiBeanCache cache = newCache(100);
+        Quotes target = new Quotes();
+        Quotes quotes = (Quotes) cache.instrument(target);
+
+        assertThat(quotes.quote(null)).isNull();
+        assertThat(quotes.quote(null)).isNull();
+        assertThatThrownBy(() -> quotes.quote("fail")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> quotes.quote("fail")).isInstanceOf(IllegalStateException.class);
+
+        assertThat(target.calls).hasValue(3);
+    }
+
+    @Test
+    void callsStraightThroughWhenALoadAsksForItsOwnResult() throws Exception {
+        MultiBeanCache cache = newCache(100);
+        Quotes target = new Quotes();
+        Quotes quotes = (Quotes) cache.instrument(target);
+        target.self = quotes;
+
+        assertThat(callers.submit(() -> quotes.quote("self")).get(5, TimeUnit.SECONDS)).isEqualTo("self@0!");
+        assertThat(quotes.quote("self")).isEqualTo("self@0!");
+
+        assertThat(target.calls).hasValue(2);
+        assertThat(cache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    void waitsForASingleCallOnConcurrentMisses() throws Exception {
+        MultiBeanCache cache = newCache(100);
+        Quotes target = new Quotes();
+        Quotes quotes = (Quotes) cache.instrument(target);
+        target.block();
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int caller = 0; caller < 8; caller++) {
+            results.add(callers.submit(() -> quotes.quote("a")));
+        }
+        target.awaitEntered();
+        Thread.sleep(50);
+        target.release();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("a@0");
+        }
+        assertThat(target.calls).hasValue(1);
+    }
+
+    @Test
+    void keepsFrequentResultsThroughAScan() {
+        MultiBeanCache cache = newCache(100);
+        Quotes target = new Quotes();
+        Quotes quotes = (Quotes) cache.instrument(target);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 20; key++) {
+                quotes.quote("hot-" + key);
+            }
+        }
+        for (int key = 0; key < 2000; key++) {
+            quotes.quote("scan-" + key);
+        }
+        int before = target.calls.get();
+
+        for (int key = 0; key < 20; key++) {
+            quotes.quote("hot-" + key);
+        }
+
+        // an LRU cache of the same size would reload all 20
+        assertThat(target.calls.get() - before).isLessThanOrEqualTo(2);
+        assertThat(cache.getSize()).isEqualTo(100);
+        assertThat(cache.getEvictions()).isEqualTo(target.calls.get() - 100);
+    }
+
+    @Test
+    void dropsEveryResultOnInvalidation() {
+        MultiBeanCache cache = newCache(100);
+        Quotes target = new Quotes();
+        Quotes quotes = (Quotes) cache.instrument(target);
+        quotes.quote("a");
+
+        cache.invalidateAll();
+        target.version = 1;
+
+        assertThat(cache.getSize()).isZero();
+        assertThat(quotes.quote("a")).isEqualTo("a@1");
+    }
+
+    @Test
+    void doesNotCacheALoadStartedBeforeInvalidation() throws Exception {
+        MultiBeanCache cache = newCache(100);
+        Quotes target = new Quotes();
+        Quotes quotes = (Quotes) cache.instrument(target);
+        target.block();
+        Future<String> stale = callers.submit(() -> quotes.quote("a"));
+        target.awaitEntered();
+
+        cache.invalidateAll();
+        target.release();
+
+        assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("a@0");
+        assertThat(cache.getSize()).isZero();
+        target.version = 1;
+        assertThat(quotes.quote("a")).isEqualTo("a@1");
+    }
+
+    @Test
+    void staysWithinItsSizeWhenInvalidatedUnderLoad() throws Exception {
+        MultiBeanCache cache = newCache(20);
+        Quotes quotes = (Quotes) cache.instrument(new Quotes());
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < 4; worker++) {
+            int seed = worker;
+            workers.add(callers.submit(() -> {
+                Random random = new Random(seed);
+                for (int call = 0; call < 100_000; call++) {
+                    int key = random.nextInt(10) < 8 ? random.nextInt(10) : random.nextInt(1000);
+                    assertThat(quotes.quote("k" + key)).isEqualTo("k" + key + "@0");
+                }
+            }));
+        }
+        workers.add(callers.submit(() -> {
+            for (int invalidation = 0; invalidation < 2_000; invalidation++) {
+                cache.invalidateAll();
+            }
+        }));
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(cache.getSize()).isLessThanOrEqualTo(20);
+        for (int key = 0; key < 1000; key++) {
+            quotes.quote("after-" + key);
+        }
+        assertThat(cache.getSize()).isEqualTo(20);
+    }
+
+    private static MultiBeanCache newCache(int maxEntries) {
+        return new MultiBeanCache("quotes", "quotes", new MultiBeanCache.Settings(maxEntries, null, Duration.ofDays(1)));
+    }
+
+    public static class Quotes {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        private volatile CountDownLatch released;
+
+        private volatile int version;
+
+        private volatile Quotes self;
+
+        private boolean reentered;
+
+        @MultiBeanCacheable
+        public String quote(String symbol) {
+            calls.incrementAndGet();
+            if ("self".equals(symbol) && !reentered) {
+                reentered = true;
+                return self.quote(symbol) + "!";
+            }
+            CountDownLatch latch = released;
+            if (latch != null) {
+                entered.countDown();
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            if ("fail".equals(symbol)) {
+                throw new IllegalStateException("failed");
+            }
+            return symbol == null ? null : symbol + "@" + version;
+        }
+
+        void block() {
+            released = new CountDownLatch(1);
+        }
+
+        void awaitEntered() throws InterruptedException {
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void release() {
+            CountDownLatch latch = released;
+            released = null;
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.ClientConfig;
+import io.github.olufemithompson.multibeanconfig.testapp.ConstructorClient;
+import io.github.olufemithompson.multibeanconfig.testapp.EndpointClient;
+import io.github.olufemithompson.multibeanconfig.testapp.FieldClient;
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBeanDefinitionPostProcessorTest {
+
+    @Test
+    void bindsAFreshMutableConfigPerInstance() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.twin-a.class", "ConstructorClient");
+        properties.put("multibean.twin-a.client.client-id", "twin");
+        properties.put("multibean.twin-b.class", "ConstructorClient");
+        properties.put("multibean.twin-b.client.client-id", "twin");
+        try (ConfigurableApplicationContext context = TestApplication.start(properties)) {
+            ClientConfig configA = context.getBean("twinAClientConfig", ClientConfig.class);
+            ClientConfig configB = context.getBean("twinBClientConfig", ClientConfig.class);
+
+            assertThat(configA).isNotSameAs(configB);
+            configA.setUrl("http://changed");
+            assertThat(configB.getUrl()).isEqualTo("http://default");
+            assertThat(configB.getClientId()).isEqualTo("twin");
+        }
+    }
+
+    @Test
+    void sharesEqualConstructorBoundConfigs() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.endpoint-a.class", "EndpointClient");
+        properties.put("multibean.endpoint-a.endpoint.url", "http://same");
+        properties.put("multibean.endpoint-b.class", "EndpointClient");
+        properties.put("multibean.endpoint-b.endpoint.url", "http://same");
+        properties.put("multibean.endpoint-c.class", "EndpointClient");
+        properties.put("multibean.endpoint-c.endpoint.url", "http://other");
+        try (ConfigurableApplicationContext context = TestApplication.start(properties)) {
+            EndpointClient a = context.getBean("endpointA", EndpointClient.class);
+            EndpointClient b = context.getBean("endpointB", EndpointClient.class);
+            EndpointClient c = context.getBean("endpointC", EndpointClient.class);
+
+            assertThat(a.getConfig()).isSameAs(b.getConfig());
+            assertThat(c.getConfig()).isNotSameAs(a.getConfig());
+            assertThat(c.getConfig().url()).isEqualTo("http://other");
+        }
+    }
+
+    @Test
+    void expandsReplicasBehindASelector() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.shard.class", "EndpointClient");
+        properties.put("multibean.shard.replicas", "3");
+        properties.put("multibean.shard.endpoint.url", "http://shard");
+        try (ConfigurableApplicationContext context = TestApplication.start(properties)) {
+            MultiBeanSelector<?> selector = (MultiBeanSelector<?>) context.getBean("shard");
+
+            assertThat(selector.getNames()).isEqualTo(List.of("shard-0", "shard-1", "shard-2"));
+            for (int index = 0; index < selector.size(); index++) {
+                assertThat(selector.get(index)).isSameAs(context.getBean("shard" + index));
+                assertThat(((EndpointClient) selector.get(index)).getConfig().url()).isEqualTo("http://shard");
+            }
+            assertThat(selector.select("key")).isSameAs(selector.select("key"));
+        }
+    }
+
+    @Test
+    void expandsCoresReplicasToTheAvailableProcessors() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.shard.class", "EndpointClient");
+        properties.put("multibean.shard.replicas", "cores");
+        properties.put("multibean.shard.endpoint.url", "http://shard");
+        try (ConfigurableApplicationContext context = TestApplication.start(properties)) {
+            MultiBeanSelector<?> selector = (MultiBeanSelector<?>) context.getBean("shard");
+
+            assertThat(selector.getNames()).hasSize(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    @Test
+    void bindsInParallelInTheDeclaredOrder() {
+        List<List<String>> runs = new ArrayList<>();
+        for (String parallelism : List.of("1", "4")) {
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("multibean.parallelism", parallelism);
+            for (int index = 0; index < 16; index++) {
+                properties.put("multibean.client-" + index + ".class", index % 2 == 0 ? "ConstructorClient" : "FieldClient");
+                properties.put("multibean.client-" + index + ".client.client-id", "id-" + index);
+            }
+            try (ConfigurableApplicationContext context = TestApplication.start(properties)) {
+                List<String> run = new ArrayList<>();
+                for (String beanName : context.getBeanDefinitionNames()) {
+                    if (beanName.matches("client\\d+.*")) {
+                        Object bean = context.getBean(beanName);
+                        ClientConfig config = bean instanceof ConstructorClient constructorClient
+                                ? constructorClient.getConfig()
+                                : bean instanceof FieldClient fieldClient ? fieldClient.getConfig() : (ClientConfig) bean;
+                        run.add(beanName + "=" + config.getClientId());
+                    }
+                }
+                runs.add(run);
+            }
+        }
+
+        assertThat(runs.get(0)).hasSize(32).contains("client0=id-0", "client15ClientConfig=id-15");
+        assertThat(runs.get(1)).isEqualTo(runs.get(0));
+    }
+
+    @Test
+    void rejectsABeanNamedAfterASetting() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.parallelism.class", "FieldClient");
+
+        assertThatThrownBy(() -> TestApplication.start(properties))
+                .hasMessageContaining("Declared bean parallelism has the name of the multibean.parallelism setting");
+    }
+}
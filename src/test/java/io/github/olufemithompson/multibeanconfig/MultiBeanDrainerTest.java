@@ -0,0 +1,89 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.SlowResource;
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultiBeanDrainerTest {
+
+    @BeforeEach
+    void setUp() {
+        SlowResource.EVENTS.clear();
+    }
+
+    @Test
+    void destroysTheInstancesInParallel() {
+        ConfigurableApplicationContext context = start(Map.of(), 800, "first", "second", "third");
+
+        long elapsed = close(context);
+
+        assertThat(SlowResource.EVENTS).contains("end first", "end second", "end third");
+        assertThat(elapsed).isLessThan(1800);
+    }
+
+    @Test
+    void destroysAnInstanceBeforeTheOnesItDependsOn() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.user.shutdown.depends-on[0]", "used");
+        ConfigurableApplicationContext context = start(properties, 300, "used", "user", "other");
+
+        close(context);
+
+        assertThat(SlowResource.EVENTS.indexOf("end user")).isLessThan(SlowResource.EVENTS.indexOf("start used"));
+        // not held back by the dependency
+        assertThat(SlowResource.EVENTS.indexOf("start other")).isLessThan(SlowResource.EVENTS.indexOf("end user"));
+    }
+
+    @Test
+    void stopsWaitingForAnInstanceAfterItsTimeout() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.slow.shutdown.timeout", "200ms");
+        ConfigurableApplicationContext context = start(properties, 2000, "slow");
+
+        long elapsed = close(context);
+
+        assertThat(elapsed).isLessThan(1000);
+        // events of instances left running by other tests may still arrive
+        assertThat(SlowResource.EVENTS).contains("start slow").doesNotContain("end slow");
+    }
+
+    @Test
+    void stopsWaitingForAllInstancesAfterTheShutdownTimeout() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.shutdown.timeout", "300ms");
+        ConfigurableApplicationContext context = start(properties, 2000, "laggard", "straggler");
+
+        long elapsed = close(context);
+
+        assertThat(elapsed).isLessThan(1000);
+        assertThat(SlowResource.EVENTS).contains("start laggard", "start straggler").doesNotContain("end laggard", "end straggler");
+    }
+
+    private static ConfigurableApplicationContext start(Map<String, Object> extraProperties, long delayMillis, String... names) {
+        Map<String, Object> properties = new HashMap<>(extraProperties);
+        for (String name : names) {
+            properties.put("multibean." + name + ".class", "SlowResource");
+        }
+        ConfigurableApplicationContext context = TestApplication.start(properties);
+        for (String name : names) {
+            SlowResource resource = context.getBean(name, SlowResource.class);
+            resource.id = name;
+            resource.delayMillis = delayMillis;
+        }
+        return context;
+    }
+
+    private static long close(ConfigurableApplicationContext context) {
+        long start = System.nanoTime();
+        context.close();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.metrics.ApplicationStartup;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBeanExecutorTest {
+
+    private final MultiBeanStatistics statistics = new MultiBeanStatistics(ApplicationStartup.DEFAULT);
+
+    @Test
+    void sizesThePoolFromWhicheverSizeIsSet() {
+        assertThat(settings(null, null, 100).resolvedCoreSize()).isEqualTo(8);
+        assertThat(settings(null, null, 100).resolvedMaxSize()).isEqualTo(8);
+        assertThat(settings(null, 16, 100).resolvedCoreSize()).isEqualTo(16);
+        assertThat(settings(4, null, 100).resolvedMaxSize()).isEqualTo(4);
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThatThrownBy(() -> MultiBeanExecutor.create("partner", settings(4, 2, 100), statistics))
+                .hasMessage("Invalid executor of partner: core-size 4, max-size 2, queue-capacity 100");
+        assertThatThrownBy(() -> MultiBeanExecutor.create("partner", settings(0, 0, 100), statistics))
+                .hasMessageContaining("max-size 0");
+        assertThatThrownBy(() -> MultiBeanExecutor.create("partner", settings(1, 1, -1), statistics))
+                .hasMessageContaining("queue-capacity -1");
+    }
+
+    @Test
+    void rejectsTasksOnceTheThreadsAndQueueAreFull() throws Exception {
+        MultiBeanExecutor executor = MultiBeanExecutor.create("partner", settings(1, 1, 1), statistics);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Future<?> running = executor.submit(() -> {
+                started.countDown();
+                release.await();
+                return null;
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<?> queued = executor.submit(() -> { });
+
+            assertThat(executor.getActiveCount()).isEqualTo(1);
+            assertThat(executor.getQueueSize()).isEqualTo(1);
+            assertThatThrownBy(() -> executor.submit(() -> { })).isInstanceOf(RejectedExecutionException.class);
+
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.destroy();
+        }
+        assertThat(executor.isTerminated()).isTrue();
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void rejectsVirtualThreadsBeforeJava21() {
+        assertThatThrownBy(() -> MultiBeanExecutor.create("partner", virtualThreads(), statistics))
+                .hasMessage("Executor of partner: virtual-threads requires Java 21 or later");
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void runsSharedTasksOnDaemonThreadsBeforeJava21() throws Exception {
+        ExecutorService executor = MultiBeanThreads.newThreadPerTaskExecutor("multibean-test-");
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            assertThat(thread.isDaemon()).isTrue();
+            assertThat(thread.getName()).startsWith("multibean-test-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void runsTasksOnVirtualThreads() throws Exception {
+        MultiBeanExecutor executor = MultiBeanExecutor.create("partner", virtualThreads(), statistics);
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        } finally {
+            executor.destroy();
+        }
+    }
+
+    private static MultiBeanExecutor.Settings settings(Integer coreSize, Integer maxSize, int queueCapacity) {
+        return new MultiBeanExecutor.Settings(coreSize, maxSize, queueCapacity, Duration.ofSeconds(60), false, Duration.ofSeconds(5));
+    }
+
+    private static MultiBeanExecutor.Settings virtualThreads() {
+        return new MultiBeanExecutor.Settings(null, null, 100, Duration.ofSeconds(60), true, Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.Connection;
+import io.github.olufemithompson.multibeanconfig.testapp.ConnectionFactory;
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultiBeanFactoryTest {
+
+    private static final Map<String, Object> PROPERTIES = Map.of(
+            "multibean.primary-connection.class", "ConnectionFactory",
+            "multibean.primary-connection.endpoint.url", "http://primary",
+            "multibean.replica-connection.class", "ConnectionFactory",
+            "multibean.replica-connection.endpoint.url", "http://replica");
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory.DESTROYED.clear();
+    }
+
+    @Test
+    void createsTheInstanceFromTheBoundConfig() {
+        try (ConfigurableApplicationContext context = TestApplication.start(PROPERTIES)) {
+            Connection primary = context.getBean("primaryConnection", Connection.class);
+            Connection replica = context.getBean("replicaConnection", Connection.class);
+
+            assertThat(primary.getUrl()).isEqualTo("http://primary");
+            assertThat(replica.getUrl()).isEqualTo("http://replica");
+            assertThat(context.getBean("primaryConnection")).isSameAs(primary);
+            assertThat(context.getBean("&primaryConnection", ConnectionFactory.class).getConfig().url())
+                    .isEqualTo("http://primary");
+            assertThat(context.getBeansOfType(Connection.class)).containsOnlyKeys(
+                    "primaryConnection", "replicaConnection");
+        }
+    }
+
+    @Test
+    void destroysTheInstanceThroughTheFactoryOnClose() {
+        Connection primary;
+        Connection replica;
+        try (ConfigurableApplicationContext context = TestApplication.start(PROPERTIES)) {
+            primary = context.getBean("primaryConnection", Connection.class);
+            replica = context.getBean("replicaConnection", Connection.class);
+            assertThat(ConnectionFactory.DESTROYED).isEmpty();
+        }
+
+        assertThat(ConnectionFactory.DESTROYED).containsExactlyInAnyOrder(primary, replica);
+        assertThat(primary.isClosed()).isTrue();
+        assertThat(replica.isClosed()).isTrue();
+    }
+
+    @Test
+    void destroysTheInstanceOfAnUnregisteredEntry() {
+        try (ConfigurableApplicationContext context = TestApplication.start(PROPERTIES)) {
+            MultiBeanRegistrar registrar = context.getBean(MultiBeanRegistrar.class);
+            registrar.register("tenant-connection", ConnectionFactory.class, Map.of("endpoint.url", "http://tenant"));
+            Connection tenant = context.getBean("tenantConnection", Connection.class);
+            assertThat(tenant.getUrl()).isEqualTo("http://tenant");
+
+            assertThat(registrar.unregister("tenant-connection")).isTrue();
+
+            assertThat(ConnectionFactory.DESTROYED).containsExactly(tenant);
+            assertThat(context.containsBean("tenantConnection")).isFalse();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.Partner;
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBeanGroupTest {
+
+    private ConfigurableApplicationContext context;
+
+    private Partner group;
+
+    private Partner a;
+
+    private Partner b;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.partner-a.class", "Partner");
+        properties.put("multibean.partner-b.class", "Partner");
+        properties.put("multibean.partner-c.class", "Partner");
+        properties.put("multibean.group.partners.members[0]", "partner-a");
+        properties.put("multibean.group.partners.members[1]", "partner-b");
+        properties.put("multibean.group.partners.hedge-delay", "500ms");
+        properties.put("multibean.group.partners.unhealthy-after", "100");
+        properties.put("multibean.group.solo.members[0]", "partner-c");
+        properties.put("multibean.partner-d.class", "ColdPartner");
+        properties.put("multibean.group.cold.members[0]", "partner-d");
+        properties.put("multibean.group.cold.members[1]", "partner-b");
+        properties.put("multibean.group.cold.type", Partner.class.getName());
+        properties.put("multibean.warmup.fail-on-error", "false");
+        context = TestApplication.start(properties);
+        group = context.getBean("partners", Partner.class);
+        a = context.getBean("partnerA", Partner.class);
+        b = context.getBean("partnerB", Partner.class);
+        a.id = "a";
+        b.id = "b";
+    }
+
+    @AfterEach
+    void tearDown() {
+        Partner.CONTEXT.remove();
+        context.close();
+    }
+
+    @Test
+    void callsTheFirstMemberOnThePool() {
+        Partner.CONTEXT.set("caller");
+
+        assertThat(group.fetch("key")).isEqualTo("a:key");
+
+        assertThat(a.lastThread).isNotSameAs(Thread.currentThread());
+        assertThat(a.lastContext).isNull();
+        assertThat(b.calls).hasValue(0);
+    }
+
+    @Test
+    void callsASingleMemberOnTheCallersThread() {
+        Partner c = context.getBean("partnerC", Partner.class);
+        c.id = "c";
+
+        assertThat(context.getBean("solo", Partner.class).fetch("key")).isEqualTo("c:key");
+
+        assertThat(c.lastThread).isSameAs(Thread.currentThread());
+    }
+
+    @Test
+    void hedgesASlowMember() {
+        a.delayMillis = 5_000;
+
+        long start = System.nanoTime();
+        assertThat(group.fetch("key")).isEqualTo("b:key");
+
+        assertThat(System.nanoTime() - start).isLessThan(2_000_000_000L);
+        assertThat(b.calls).hasValue(1);
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    }
+
+    @Test
+    void returnsAHedgeWhileTheFirstMemberIgnoresInterrupts() {
+        a.delayMillis = 5_000;
+        a.ignoresInterrupts = true;
+
+        long start = System.nanoTime();
+        assertThat(group.fetch("key")).isEqualTo("b:key");
+
+        // the hedge delay is 500ms
+        assertThat(System.nanoTime() - start).isLessThan(2_000_000_000L);
+    }
+
+    @Test
+    void failsOverToTheLastMemberOnTheCallersThread() {
+        a.failing = true;
+
+        assertThat(group.fetch("key")).isEqualTo("b:key");
+
+        assertThat(b.lastThread).isSameAs(Thread.currentThread());
+    }
+
+    @Test
+    void throwsTheFirstFailureWhenEveryMemberFails() {
+        a.failing = true;
+        b.failing = true;
+
+        assertThatThrownBy(() -> group.fetch("key"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("down a")
+                .satisfies(e -> assertThat(e.getSuppressed()).extracting(Throwable::getMessage).containsExactly("down b"));
+    }
+
+    @Test
+    void skipsAMemberWhoseWarmupFailed() {
+        assertThat(context.getBean("cold", Partner.class).fetch("key")).isEqualTo("b:key");
+
+        assertThat(context.getBean("partnerD", Partner.class).calls).hasValue(0);
+    }
+
+    @Test
+    void skipsAMemberOnceItsWarmupFailed() {
+        MultiBeanStatistics statistics = context.getBean(MultiBeanStatistics.class);
+        assertThat(group.fetch("key")).isEqualTo("a:key");
+
+        statistics.recordWarmup("partner-a", MultiBeanStatistics.WarmupStatus.FAILED, 0, "cold");
+
+        assertThat(group.fetch("key")).isEqualTo("b:key");
+    }
+
+    @Test
+    void rejectsAnEntryNamedGroup() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.group.class", "Partner");
+
+        assertThatThrownBy(() -> TestApplication.start(properties))
+                .hasMessageContaining("Declared bean group has the name of the multibean.group setting");
+    }
+}
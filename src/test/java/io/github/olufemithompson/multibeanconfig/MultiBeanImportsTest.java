@@ -0,0 +1,95 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.FieldClient;
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBeanImportsTest {
+
+    @TempDir
+    private Path directory;
+
+    private final MultiBeanImports imports = new MultiBeanImports();
+
+    @Test
+    void readsYamlAndPropertiesFilesInFileNameOrder() throws IOException {
+        write("tenant-b.properties", "class=FieldClient\nclient.client-id=b\n");
+        write("tenant-a.yml", "class: FieldClient\nclient:\n  client-id: a\n");
+        write(".tenant-c.yml", "class: FieldClient\n");
+        write("notes.txt", "not an entry");
+
+        Map<String, Object> entries = imports.load(directory);
+
+        assertThat(entries.keySet()).containsExactly("tenant-a", "tenant-b");
+        assertThat(clientId(entries, "tenant-a")).isEqualTo("a");
+        assertThat(clientId(entries, "tenant-b")).isEqualTo("b");
+    }
+
+    @Test
+    void rejectsANameDeclaredInTwoFiles() throws IOException {
+        write("tenant-a.yml", "class: FieldClient\n");
+        write("tenant-a.properties", "class=FieldClient\n");
+
+        assertThatThrownBy(() -> imports.load(directory))
+                .hasMessageContaining("A bean named tenant-a is declared more than once");
+    }
+
+    @Test
+    void parsesAgainOnlyTheFilesThatChanged() throws IOException {
+        write("tenant-a.yml", "class: FieldClient\nclient:\n  client-id: a\n");
+        write("tenant-b.yml", "class: FieldClient\nclient:\n  client-id: b\n");
+        Map<String, Object> first = imports.load(directory);
+
+        Path changed = write("tenant-b.yml", "class: FieldClient\nclient:\n  client-id: b2\n");
+        Files.setLastModifiedTime(changed, FileTime.from(Instant.now().plusSeconds(10)));
+        Map<String, Object> second = imports.load(directory);
+
+        assertThat(second.get("tenant-a")).isSameAs(first.get("tenant-a"));
+        assertThat(clientId(second, "tenant-b")).isEqualTo("b2");
+    }
+
+    @Test
+    void keepsTheEntriesReadBeforeWhenTheDirectoryGoesMissing() throws IOException {
+        Path file = write("tenant-a.yml", "class: FieldClient\n");
+        Map<String, Object> entries = imports.load(directory);
+
+        Files.delete(file);
+        Files.delete(directory);
+
+        assertThat(imports.load(directory)).isSameAs(entries);
+        assertThatThrownBy(() -> new MultiBeanImports().load(directory))
+                .hasMessageContaining("does not exist");
+    }
+
+    @Test
+    void declaresTheImportedEntries() throws IOException {
+        write("tenant-a.yml", "class: FieldClient\nclient:\n  client-id: a\n");
+
+        try (ConfigurableApplicationContext context = TestApplication.start(
+                Map.of("multibean.import-dir", directory.toString()))) {
+            assertThat(context.getBean("tenantA", FieldClient.class).getConfig().getClientId()).isEqualTo("a");
+        }
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        return Files.writeString(directory.resolve(fileName), content);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String clientId(Map<String, Object> entries, String name) {
+        Map<String, Object> client = (Map<String, Object>) ((Map<String, Object>) entries.get(name)).get("client");
+        return client.get("client-id").toString();
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.FieldClient;
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultiBeanIndexProcessorTest {
+
+    private static final String CONFIG_SOURCE = """
+            package index.fixture;
+
+            import org.springframework.boot.context.properties.ConfigurationProperties;
+
+            @ConfigurationProperties("indexed")
+            public class IndexedConfig {
+                private String name;
+
+                public String getName() {
+                    return name;
+                }
+
+                public void setName(String name) {
+                    this.name = name;
+                }
+            }
+            """;
+
+    private static final String CLIENT_SOURCE = """
+            package index.fixture;
+
+            import io.github.olufemithompson.multibeanconfig.MultiBean;
+            import org.springframework.beans.factory.annotation.Autowired;
+            import org.springframework.beans.factory.annotation.Value;
+
+            @MultiBean
+            public class IndexedClient {
+                @Autowired
+                private IndexedConfig indexedConfig;
+
+                @Value("${indexed.greeting:a\\tb\\\\c}")
+                private String greeting;
+
+                private final String name;
+
+                public IndexedClient(@Value("${indexed.name}") String name) {
+                    this.name = name;
+                }
+            }
+            """;
+
+    private static final String SECOND_CLIENT_SOURCE = """
+            package index.fixture;
+
+            import io.github.olufemithompson.multibeanconfig.MultiBean;
+
+            @MultiBean
+            public class SecondClient {
+            }
+            """;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void writesAnIndexThatLoadsBackIntoTheSameMetadata() throws Exception {
+        Path output = compile("first", Map.of("IndexedConfig", CONFIG_SOURCE, "IndexedClient", CLIENT_SOURCE));
+
+        try (URLClassLoader classLoader = classLoader(output)) {
+            List<MultiBeanMetadata> index = MultiBeanIndex.load(classLoader);
+
+            assertThat(index).hasSize(1);
+            MultiBeanMetadata client = index.get(0);
+            assertThat(client.getBeanClass().getName()).isEqualTo("index.fixture.IndexedClient");
+            assertThat(client.getConfigDependencies()).singleElement().satisfies(config -> {
+                assertThat(config.fieldName()).isEqualTo("indexedConfig");
+                assertThat(config.configClass().getName()).isEqualTo("index.fixture.IndexedConfig");
+                assertThat(config.prefix()).isEqualTo("indexed");
+            });
+            assertThat(client.getValueDependencies()).singleElement().satisfies(value -> {
+                assertThat(value.fieldName()).isEqualTo("greeting");
+                assertThat(value.propertyKey()).isEqualTo("indexed.greeting:a\tb\\c");
+            });
+            assertThat(client.getConstructors()).singleElement().satisfies(constructor ->
+                    assertThat(constructor).containsExactly(
+                            new MultiBeanMetadata.ConstructorParameter("name", String.class, "indexed.name")));
+            assertThat(Files.readString(output.resolve(Constants.MULTIBEAN_INDEX_LOCATION)))
+                    .contains("indexed.greeting:a\\tb\\\\c\n");
+        }
+    }
+
+    @Test
+    void keepsTheClassesOfAPreviousCompilation() throws Exception {
+        Path output = compile("first", Map.of("IndexedConfig", CONFIG_SOURCE, "IndexedClient", CLIENT_SOURCE));
+        compile("second", Map.of("SecondClient", SECOND_CLIENT_SOURCE), output);
+
+        try (URLClassLoader classLoader = classLoader(output)) {
+            assertThat(MultiBeanIndex.load(classLoader))
+                    .extracting(metadata -> metadata.getBeanClass().getName())
+                    .containsExactly("index.fixture.IndexedClient", "index.fixture.SecondClient");
+        }
+    }
+
+    @Test
+    void scansForTheClassesMissingFromTheIndex() throws Exception {
+        Path output = compile("first", Map.of("IndexedConfig", CONFIG_SOURCE, "IndexedClient", CLIENT_SOURCE));
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("indexed.name", "default");
+        properties.put("multibean.indexed.class", "IndexedClient");
+        properties.put("multibean.indexed.indexed.name", "indexed");
+        properties.put("multibean.field.class", "FieldClient");
+
+        try (URLClassLoader classLoader = classLoader(output);
+             ConfigurableApplicationContext context = TestApplication.start(properties, classLoader)) {
+            assertThat(context.getBean("indexed").getClass().getName()).isEqualTo("index.fixture.IndexedClient");
+            assertThat(context.getBean("field")).isInstanceOf(FieldClient.class);
+        }
+    }
+
+    private Path compile(String name, Map<String, String> sources) throws IOException {
+        Path output = Files.createDirectories(directory.resolve(name + "-classes"));
+        return compile(name, sources, output);
+    }
+
+    /**
+     * Compiles the given sources into the output directory, which is on the class path as well,
+     * with {@link MultiBeanIndexProcessor} as the only annotation processor.
+     */
+    private Path compile(String name, Map<String, String> sources, Path output) throws IOException {
+        Path sourceDirectory = Files.createDirectories(directory.resolve(name + "-sources/index/fixture"));
+        List<String> arguments = new ArrayList<>(List.of(
+                "-processor", MultiBeanIndexProcessor.class.getName(),
+                "-classpath", classPath(output),
+                "-d", output.toString()));
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = sourceDirectory.resolve(source.getKey() + ".java");
+            Files.writeString(file, source.getValue());
+            arguments.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, arguments.toArray(String[]::new));
+        assertThat(result).as(errors.toString()).isZero();
+        return output;
+    }
+
+    private static String classPath(Path output) {
+        List<String> entries = new ArrayList<>();
+        entries.add(output.toString());
+        for (Class<?> type : List.of(MultiBean.class, ConfigurationProperties.class, Value.class)) {
+            entries.add(type.getProtectionDomain().getCodeSource().getLocation().getPath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static URLClassLoader classLoader(Path output) throws IOException {
+        return new URLClassLoader(new URL[]{output.toUri().toURL()}, MultiBeanIndexProcessorTest.class.getClassLoader());
+    }
+}
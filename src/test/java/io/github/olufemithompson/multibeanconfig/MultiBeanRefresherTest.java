@@ -0,0 +1,130 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.ConstructorClient;
+import io.github.olufemithompson.multibeanconfig.testapp.FieldClient;
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBeanRefresherTest {
+
+    private final Map<String, Object> overrides = new HashMap<>();
+
+    private ConfigurableApplicationContext context;
+
+    private MultiBeanRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("multibean.field-a.class", "FieldClient");
+        properties.put("multibean.field-a.lazy", "proxy");
+        properties.put("multibean.field-a.client.client-id", "a");
+        properties.put("multibean.field-b.class", "FieldClient");
+        properties.put("multibean.field-b.lazy", "proxy");
+        properties.put("multibean.field-b.client.client-id", "b");
+        properties.put("multibean.lazy-client.class", "FieldClient");
+        properties.put("multibean.lazy-client.lazy", "true");
+        properties.put("multibean.lazy-client.client.client-id", "lazy");
+        properties.put("multibean.constructor-client.class", "ConstructorClient");
+        properties.put("multibean.constructor-client.client.client-id", "constructor");
+        properties.put("multibean.proxy-client.class", "ConstructorClient");
+        properties.put("multibean.proxy-client.lazy", "proxy");
+        properties.put("multibean.proxy-client.client.client-id", "proxy");
+        context = TestApplication.start(properties);
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("overrides", overrides));
+        refresher = context.getBean(MultiBeanRefresher.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void rebindsOnlyTheChangedBeans() {
+        FieldClient a = context.getBean("fieldA", FieldClient.class);
+        FieldClient b = context.getBean("fieldB", FieldClient.class);
+        Object configB = b.getConfig();
+
+        overrides.put("multibean.field-a.client.client-id", "a2");
+        Set<String> refreshed = refresher.refresh();
+
+        assertThat(refreshed).containsExactly("field-a");
+        assertThat(context.getBean("fieldA")).isSameAs(a);
+        assertThat(a.getConfig().getClientId()).isEqualTo("a2");
+        assertThat(b.getConfig()).isSameAs(configB);
+        assertThat(refresher.refresh()).isEmpty();
+    }
+
+    @Test
+    void keepsTheConfigOfBeansCreatedAfterARefresh() {
+        overrides.put("multibean.field-a.client.client-id", "a2");
+        refresher.refresh();
+
+        assertThat(context.getBean("lazyClient", FieldClient.class).getConfig().getClientId()).isEqualTo("lazy");
+        assertThat(context.getEnvironment().getProperty("client.client-id")).isEqualTo("default");
+    }
+
+    @Test
+    void recreatesProxiedBeans() {
+        ConstructorClient proxy = context.getBean("proxyClient", ConstructorClient.class);
+        assertThat(proxy.getConfig().getClientId()).isEqualTo("proxy");
+
+        overrides.put("multibean.proxy-client.client.client-id", "proxy2");
+        assertThat(refresher.refresh()).containsExactly("proxy-client");
+
+        assertThat(context.getBean("proxyClient")).isSameAs(proxy);
+        assertThat(proxy.getConfig().getClientId()).isEqualTo("proxy2");
+    }
+
+    @Test
+    void rejectsAChangedConstructorConfigAndKeepsEveryBean() {
+        FieldClient a = context.getBean("fieldA", FieldClient.class);
+
+        overrides.put("multibean.field-a.client.client-id", "a2");
+        overrides.put("multibean.constructor-client.client.client-id", "constructor2");
+
+        assertThatThrownBy(() -> refresher.refresh())
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("constructor-client");
+        assertThat(a.getConfig().getClientId()).isEqualTo("a");
+        assertThat(context.getBean("constructorClient", ConstructorClient.class).getConfig().getClientId())
+                .isEqualTo("constructor");
+
+        overrides.remove("multibean.constructor-client.client.client-id");
+        assertThat(refresher.refresh()).containsExactly("field-a");
+    }
+
+    @Test
+    void rejectsAChangedBeanThatIsNotProxied() {
+        context.getBean("lazyClient", FieldClient.class);
+
+        overrides.put("multibean.lazy-client.client.client-id", "lazy2");
+
+        assertThatThrownBy(() -> refresher.refresh())
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("lazy-client")
+                .hasMessageContaining("proxy");
+        assertThat(context.getBean("lazyClient", FieldClient.class).getConfig().getClientId()).isEqualTo("lazy");
+    }
+
+    @Test
+    void rejectsAChangedLazySetting() {
+        overrides.put("multibean.field-b.lazy", "true");
+
+        assertThatThrownBy(() -> refresher.refresh())
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("field-b");
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.ConstructorClient;
+import io.github.olufemithompson.multibeanconfig.testapp.FieldClient;
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBeanRegistrarTest {
+
+    private ConfigurableApplicationContext context;
+
+    private MultiBeanRegistrar registrar;
+
+    @BeforeEach
+    void setUp() {
+        context = TestApplication.start(Map.of(
+                "multibean.declared-client.class", "ConstructorClient",
+                "multibean.declared-client.client.client-id", "declared"));
+        registrar = context.getBean(MultiBeanRegistrar.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void registersAnInstanceWithItsOwnConfig() {
+        registrar.register("tenant-1-client", ConstructorClient.class, Map.of(
+                "client", Map.of("client-id", "tenant-1")));
+        registrar.register("tenant-2-client", FieldClient.class, Map.of("client.client-id", "tenant-2"));
+
+        ConstructorClient first = context.getBean("tenant1Client", ConstructorClient.class);
+        FieldClient second = context.getBean("tenant2Client", FieldClient.class);
+        assertThat(first.getConfig().getClientId()).isEqualTo("tenant-1");
+        assertThat(first.getConfig().getUrl()).isEqualTo("http://default");
+        assertThat(second.getConfig().getClientId()).isEqualTo("tenant-2");
+        assertThat(context.getBean("declaredClient", ConstructorClient.class).getConfig().getClientId())
+                .isEqualTo("declared");
+    }
+
+    @Test
+    void rejectsANameInUse() {
+        registrar.register("tenant-client", ConstructorClient.class, Map.of("client.client-id", "first"));
+
+        assertThatThrownBy(() -> registrar.register("tenant-client", ConstructorClient.class, Map.of()))
+                .isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> registrar.register("declared-client", ConstructorClient.class, Map.of()))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(context.getBean("tenantClient", ConstructorClient.class).getConfig().getClientId())
+                .isEqualTo("first");
+    }
+
+    @Test
+    void unregistersAnInstanceAndItsConfig() {
+        registrar.register("tenant-client", FieldClient.class, Map.of("client.client-id", "first"));
+
+        assertThat(registrar.unregister("tenant-client")).isTrue();
+        assertThat(context.containsBean("tenantClient")).isFalse();
+        assertThat(context.containsBean("tenantClientClientConfig")).isFalse();
+        assertThat(registrar.unregister("tenant-client")).isFalse();
+        assertThat(registrar.unregister("declared-client")).isFalse();
+
+        registrar.register("tenant-client", FieldClient.class, Map.of("client.client-id", "second"));
+        assertThat(context.getBean("tenantClient", FieldClient.class).getConfig().getClientId()).isEqualTo("second");
+    }
+
+    @Test
+    void registersConcurrently() {
+        IntStream.range(0, 200).parallel().forEach(index -> registrar.register(
+                "tenant-" + index, ConstructorClient.class, Map.of("client.client-id", "tenant-" + index)));
+
+        List<String> clientIds = IntStream.range(0, 200)
+                .mapToObj(index -> context.getBean("tenant" + index, ConstructorClient.class).getConfig().getClientId())
+                .toList();
+        assertThat(clientIds).isEqualTo(IntStream.range(0, 200).mapToObj(index -> "tenant-" + index).toList());
+
+        IntStream.range(0, 200).parallel().forEach(index -> assertThat(registrar.unregister("tenant-" + index)).isTrue());
+        assertThat(context.getBeanNamesForType(ConstructorClient.class)).containsExactly("declaredClient");
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.olufemithompson.multibeanconfig;
+
+import io.github.olufemithompson.multibeanconfig.testapp.TestApplication;
+import io.github.olufemithompson.multibeanconfig.testapp.WarmingClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiBeanWarmerTest {
+
+    @BeforeEach
+    void setUp() {
+        WarmingClient.clear();
+    }
+
+    @Test
+    void reportsReadinessOnceEveryWarmUpCompleted() {
+        WarmingClient.DELAYS.put("first", 500L);
+        WarmingClient.DELAYS.put("second", 500L);
+
+        try (ConfigurableApplicationContext context = TestApplication.start(declare(new HashMap<>(), "first", "second"))) {
+            assertThat(WarmingClient.READINESS)
+                    .containsEntry("first", ReadinessState.REFUSING_TRAFFIC)
+                    .containsEntry("second", ReadinessState.REFUSING_TRAFFIC);
+            assertThat(WarmingClient.FINISHED).containsKeys("first", "second");
+            assertThat(context.getBean(ApplicationAvailability.class).getReadinessState())
+                    .isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+            // run at the same time
+            assertThat(WarmingClient.STARTED.get("second")).isLessThan(WarmingClient.FINISHED.get("first"));
+            assertThat(WarmingClient.STARTED.get("first")).isLessThan(WarmingClient.FINISHED.get("second"));
+            assertThat(statistics(context).getWarmup("first").status()).isEqualTo(MultiBeanStatistics.WarmupStatus.COMPLETED);
+        }
+    }
+
+    @Test
+    void interruptsAWarmUpAfterItsTimeout() {
+        WarmingClient.DELAYS.put("slow", 5000L);
+        Map<String, Object> properties = declare(new HashMap<>(), "slow", "fast");
+        properties.put("multibean.slow.warmup-timeout", "200ms");
+        properties.put("multibean.warmup.fail-on-error", "false");
+
+        try (ConfigurableApplicationContext context = TestApplication.start(properties)) {
+            assertThat(statistics(context).getWarmup("slow").status()).isEqualTo(MultiBeanStatistics.WarmupStatus.TIMED_OUT);
+            assertThat(statistics(context).getWarmup("fast").status()).isEqualTo(MultiBeanStatistics.WarmupStatus.COMPLETED);
+            assertThat(WarmingClient.FINISHED).doesNotContainKey("slow");
+        }
+    }
+
+    @Test
+    void interruptsEveryWarmUpAfterTheOverallTimeout() {
+        WarmingClient.DELAYS.put("first", 5000L);
+        WarmingClient.DELAYS.put("second", 5000L);
+        Map<String, Object> properties = declare(new HashMap<>(), "first", "second");
+        properties.put("multibean.warmup.timeout", "300ms");
+        properties.put("multibean.warmup.instance-timeout", "10s");
+        properties.put("multibean.warmup.fail-on-error", "false");
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = TestApplication.start(properties)) {
+            assertThat(statistics(context).getWarmup("first").status()).isEqualTo(MultiBeanStatistics.WarmupStatus.TIMED_OUT);
+            assertThat(statistics(context).getWarmup("second").status()).isEqualTo(MultiBeanStatistics.WarmupStatus.TIMED_OUT);
+        }
+        assertThat(System.nanoTime() - start).isLessThan(4_000_000_000L);
+    }
+
+    @Test
+    void failsTheStartupWhenAWarmUpFails() {
+        WarmingClient.FAILING.put("broken", true);
+
+        assertThatThrownBy(() -> TestApplication.start(declare(new HashMap<>(), "broken", "fine")))
+                .cause()
+                .hasMessage("Warm-up of multibean instances [broken] did not complete")
+                .hasRootCauseMessage("cannot reach broken");
+    }
+
+    @Test
+    void recordsAFailedWarmUpWhenFailuresAreOnlyLogged() {
+        WarmingClient.FAILING.put("broken", true);
+        Map<String, Object> properties = declare(new HashMap<>(), "broken");
+        properties.put("multibean.warmup.fail-on-error", "false");
+
+        try (ConfigurableApplicationContext context = TestApplication.start(properties)) {
+            MultiBeanStatistics.WarmupStatistics warmup = statistics(context).getWarmup("broken");
+            assertThat(warmup.status()).isEqualTo(MultiBeanStatistics.WarmupStatus.FAILED);
+            assertThat(warmup.error()).contains("cannot reach broken");
+        }
+    }
+
+    private static Map<String, Object> declare(Map<String, Object> properties, String... names) {
+        for (String name : names) {
+            properties.put("multibean." + name + ".class", "WarmingClient");
+            properties.put("multibean." + name + ".client.client-id", name);
+        }
+        return properties;
+    }
+
+    private static MultiBeanStatistics statistics(ConfigurableApplicationContext context) {
+        return context.getBean(MultiBeanStatistics.class);
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * A mutable config, bound through its setters.
+ */
+@ConfigurationProperties("client")
+@Configuration
+public class ClientConfig {
+
+    private String clientId;
+
+    private String url;
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+}
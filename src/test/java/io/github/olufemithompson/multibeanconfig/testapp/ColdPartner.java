@@ -0,0 +1,16 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+import io.github.olufemithompson.multibeanconfig.MultiBeanWarmup;
+
+/**
+ * A partner whose warm-up fails.
+ */
+@MultiBean
+public class ColdPartner extends Partner implements MultiBeanWarmup {
+
+    @Override
+    public void warmUp() {
+        throw new IllegalStateException("cold");
+    }
+}
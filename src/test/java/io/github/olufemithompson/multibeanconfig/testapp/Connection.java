@@ -0,0 +1,27 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+/**
+ * A third-party type that cannot be annotated, created by {@link ConnectionFactory}.
+ */
+public class Connection {
+
+    private final String url;
+
+    private volatile boolean closed;
+
+    public Connection(String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+    }
+}
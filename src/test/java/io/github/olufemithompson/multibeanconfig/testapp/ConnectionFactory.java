@@ -0,0 +1,37 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+import io.github.olufemithompson.multibeanconfig.MultiBeanFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A multibean factory creating a {@link Connection} from its entry's config, recording the connections it destroys.
+ */
+@MultiBean
+public class ConnectionFactory implements MultiBeanFactory<Connection> {
+
+    public static final List<Connection> DESTROYED = new CopyOnWriteArrayList<>();
+
+    private final EndpointConfig config;
+
+    public ConnectionFactory(EndpointConfig config) {
+        this.config = config;
+    }
+
+    public EndpointConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public Connection create() {
+        return new Connection(config.url());
+    }
+
+    @Override
+    public void destroy(Connection instance) {
+        instance.close();
+        DESTROYED.add(instance);
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+
+/**
+ * A multibean receiving its config through the constructor.
+ */
+@MultiBean
+public class ConstructorClient {
+
+    private final ClientConfig config;
+
+    public ConstructorClient(ClientConfig config) {
+        this.config = config;
+    }
+
+    public ClientConfig getConfig() {
+        return config;
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+
+/**
+ * A multibean receiving an immutable config through the constructor.
+ */
+@MultiBean
+public class EndpointClient {
+
+    private final EndpointConfig config;
+
+    public EndpointClient(EndpointConfig config) {
+        this.config = config;
+    }
+
+    public EndpointConfig getConfig() {
+        return config;
+    }
+}
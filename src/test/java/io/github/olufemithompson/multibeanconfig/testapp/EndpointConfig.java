@@ -0,0 +1,10 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * An immutable config, bound through its constructor.
+ */
+@ConfigurationProperties("endpoint")
+public record EndpointConfig(String url) {
+}
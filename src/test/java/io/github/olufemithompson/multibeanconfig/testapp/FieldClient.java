@@ -0,0 +1,18 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * A multibean receiving its config through a field.
+ */
+@MultiBean
+public class FieldClient {
+
+    @Autowired
+    private ClientConfig clientConfig;
+
+    public ClientConfig getConfig() {
+        return clientConfig;
+    }
+}
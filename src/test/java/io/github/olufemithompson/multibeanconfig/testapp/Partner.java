@@ -0,0 +1,52 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A multibean called through a group, answering after {@code delayMillis}, or failing.
+ */
+@MultiBean
+public class Partner {
+
+    public static final ThreadLocal<String> CONTEXT = new ThreadLocal<>();
+
+    public final AtomicInteger calls = new AtomicInteger();
+
+    public final AtomicInteger interrupted = new AtomicInteger();
+
+    public volatile String id;
+
+    public volatile long delayMillis;
+
+    public volatile boolean failing;
+
+    // like a call blocked in socket I/O
+    public volatile boolean ignoresInterrupts;
+
+    public volatile Thread lastThread;
+
+    public volatile String lastContext;
+
+    public String fetch(String key) {
+        calls.incrementAndGet();
+        lastThread = Thread.currentThread();
+        lastContext = CONTEXT.get();
+        if (failing) {
+            throw new IllegalStateException("down " + id);
+        }
+        long deadline = System.nanoTime() + delayMillis * 1_000_000;
+        for (long left = delayMillis; left > 0; left = (deadline - System.nanoTime()) / 1_000_000) {
+            try {
+                Thread.sleep(left);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                if (!ignoresInterrupts) {
+                    throw new IllegalStateException("interrupted " + id, e);
+                }
+            }
+        }
+        return id + ":" + key;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A multibean taking {@code delayMillis} to be destroyed, recording when its destruction starts and ends.
+ */
+@MultiBean
+public class SlowResource implements DisposableBean {
+
+    public static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
+    public volatile String id;
+
+    public volatile long delayMillis;
+
+    @Override
+    public void destroy() throws InterruptedException {
+        EVENTS.add("start " + id);
+        Thread.sleep(delayMillis);
+        EVENTS.add("end " + id);
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The application started by the tests, declaring the {@code multibean} entries passed to {@link #start(Map)}
+ * next to the default {@code client} and {@code endpoint} sections.
+ */
+@SpringBootApplication
+@EnableConfigurationProperties(EndpointConfig.class)
+public class TestApplication {
+
+    /**
+     * Starts a context with the given flat properties, e.g. {@code multibean.client-a.class}.
+     */
+    public static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        return start(properties, null);
+    }
+
+    /**
+     * Starts a context as {@link #start(Map)} does, loading the bean classes through the given class loader.
+     */
+    public static ConfigurableApplicationContext start(Map<String, Object> properties, ClassLoader classLoader) {
+        Map<String, Object> applicationProperties = new LinkedHashMap<>();
+        applicationProperties.put("client.client-id", "default");
+        applicationProperties.put("client.url", "http://default");
+        applicationProperties.put("endpoint.url", "http://default");
+        applicationProperties.putAll(properties);
+        SpringApplication application = new SpringApplication(TestApplication.class);
+        application.setBannerMode(Banner.Mode.OFF);
+        application.setLogStartupInfo(false);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setDefaultProperties(applicationProperties);
+        if (classLoader != null) {
+            application.setResourceLoader(new DefaultResourceLoader(classLoader));
+        }
+        return application.run("--logging.level.root=warn");
+    }
+}
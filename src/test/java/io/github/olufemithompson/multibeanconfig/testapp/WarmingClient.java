@@ -0,0 +1,63 @@
+package io.github.olufemithompson.multibeanconfig.testapp;
+
+import io.github.olufemithompson.multibeanconfig.MultiBean;
+import io.github.olufemithompson.multibeanconfig.MultiBeanWarmup;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A multibean warming up for the delay set for its client id, or failing, recording what it saw.
+ */
+@MultiBean
+public class WarmingClient implements MultiBeanWarmup {
+
+    public static final Map<String, Long> DELAYS = new ConcurrentHashMap<>();
+
+    public static final Map<String, Boolean> FAILING = new ConcurrentHashMap<>();
+
+    public static final Map<String, ReadinessState> READINESS = new ConcurrentHashMap<>();
+
+    public static final Map<String, Long> STARTED = new ConcurrentHashMap<>();
+
+    public static final Map<String, Long> FINISHED = new ConcurrentHashMap<>();
+
+    public static final Map<String, Boolean> INTERRUPTED = new ConcurrentHashMap<>();
+
+    private final ClientConfig config;
+
+    private final ApplicationAvailability applicationAvailability;
+
+    public WarmingClient(ClientConfig config, ApplicationAvailability applicationAvailability) {
+        this.config = config;
+        this.applicationAvailability = applicationAvailability;
+    }
+
+    public static void clear() {
+        DELAYS.clear();
+        FAILING.clear();
+        READINESS.clear();
+        STARTED.clear();
+        FINISHED.clear();
+        INTERRUPTED.clear();
+    }
+
+    @Override
+    public void warmUp() {
+        String id = config.getClientId();
+        STARTED.put(id, System.nanoTime());
+        READINESS.put(id, applicationAvailability.getReadinessState());
+        if (FAILING.containsKey(id)) {
+            throw new IllegalStateException("cannot reach " + id);
+        }
+        try {
+            Thread.sleep(DELAYS.getOrDefault(id, 0L));
+        } catch (InterruptedException e) {
+            INTERRUPTED.put(id, true);
+            return;
+        }
+        FINISHED.put(id, System.nanoTime());
+    }
+}